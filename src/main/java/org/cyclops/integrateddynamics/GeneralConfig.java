@@ -81,6 +81,12 @@ public class GeneralConfig extends DummyConfig {
     @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The maximum network energy transfer rate.", isCommandable = true, minimalValue = 0)
     public static int energyRateLimit = Integer.MAX_VALUE;
 
+    /**
+     * If energy should be allocated by element priority when a network does not have enough energy for all elements.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If energy should be allocated by element priority when a network does not have enough energy for all elements. Elements with the lowest priority will be shed first, and elements with an equal priority will receive a fair share.", isCommandable = true)
+    public static boolean energyLoadShedding = true;
+
     /**
      * The maximum offset in blocks a directional connector can look for its target.
      */
@@ -143,6 +149,60 @@ public class GeneralConfig extends DummyConfig {
     @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If the ingredient network observer can work on separate thread.", isCommandable = true)
     public static boolean ingredientNetworkObserverEnableMultithreading = true;
 
+    /**
+     * The maximum time in nanoseconds an observation of one ingredient network may take per tick.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The maximum time in nanoseconds an observation of one ingredient network may take per tick, remaining positions are observed in the next tick. 0 disables this limit.", minimalValue = 0, isCommandable = true)
+    public static int ingredientNetworkObserverJobBudgetNs = 5000000;
+
+    /**
+     * If storages that signal their changes should only be observed after a change, instead of being polled.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If storages that signal their changes should only be observed after a change, instead of being polled. Other storages are always polled.", isCommandable = true)
+    public static boolean ingredientNetworkObserverEventDriven = true;
+
+    /**
+     * If slotted storages that signal their slot changes should be observed per slot, instead of comparing their full contents.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If slotted storages that signal their slot changes should be observed per slot, instead of comparing their full contents. Only the signalled slots will be inspected. This requires ingredientNetworkObserverEventDriven. Other storages are always observed by comparing their full contents.", isCommandable = true)
+    public static boolean ingredientNetworkObserverSlotDiffing = true;
+
+    /**
+     * If the ingredient network index should be saved with the network, so that it is available immediately after loading.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If the ingredient network index should be saved with the network, so that it is available immediately after loading. This stores the contents of all observed storages in the world save, so it is disabled by default.", isCommandable = true)
+    public static boolean ingredientNetworkPersistIndex = false;
+
+    /**
+     * The number of ticks during which cable additions and removals are collected before networks are (re)formed.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The number of ticks during which cable additions and removals are collected before networks are (re)formed. With 0, networks are formed at the end of the tick in which cables were changed.", minimalValue = 0, isCommandable = true)
+    public static int networkFormationWindow = 0;
+
+    /**
+     * If the elements of disjoint networks can be updated in parallel on separate threads.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If the elements of disjoint networks can be updated in parallel on separate threads. This only applies to networks of which all updating elements are thread-safe, all other networks are updated on the server thread.", isCommandable = true)
+    public static boolean networkTickEnableMultithreading = true;
+
+    /**
+     * The number of threads that can be used to update networks in parallel.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The number of threads that can be used to update networks in parallel.", minimalValue = 1, requiresMcRestart = true)
+    public static int networkTickThreads = 4;
+
+    /**
+     * The maximum number of nanoseconds a single network can spend on updating its elements in one tick.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The maximum number of nanoseconds a single network can spend on updating its elements in one tick. Elements that could not be updated in time are deferred to the next tick. With 0, there is no limit.", minimalValue = 0, isCommandable = true)
+    public static int networkTickBudgetNs = 0;
+
+    /**
+     * The maximum number of nanoseconds all networks together can spend on updating their elements in one tick.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The maximum number of nanoseconds all networks together can spend on updating their elements in one tick. Networks that are ticked after this budget is exceeded only update a single element, the order of networks is rotated each tick. With 0, there is no limit.", minimalValue = 0, isCommandable = true)
+    public static int networkTickGlobalBudgetNs = 0;
+
     /**
      * If network change events should be logged. Only enable this when debugging.
      */
@@ -55,6 +55,7 @@ import org.cyclops.integrateddynamics.client.render.valuetype.ValueTypeWorldRend
 import org.cyclops.integrateddynamics.command.CommandCrash;
 import org.cyclops.integrateddynamics.command.CommandNetworkDiagnostics;
 import org.cyclops.integrateddynamics.command.CommandTest;
+import org.cyclops.integrateddynamics.core.ChunkLoadHandler;
 import org.cyclops.integrateddynamics.core.NoteBlockEventReceiver;
 import org.cyclops.integrateddynamics.core.TickHandler;
 import org.cyclops.integrateddynamics.core.client.gui.ExtendedGuiHandler;
@@ -233,6 +234,7 @@ public class IntegratedDynamics extends ModBaseVersionable {
                 OnTheDynamicsOfIntegrationBook.getInstance(), "/assets/" + Reference.MOD_ID + "/info/on_the_dynamics_of_integration.xml");
 
         MinecraftForge.EVENT_BUS.register(TickHandler.getInstance());
+        MinecraftForge.EVENT_BUS.register(ChunkLoadHandler.getInstance());
         MinecraftForge.EVENT_BUS.register(NoteBlockEventReceiver.getInstance());
         MinecraftForge.EVENT_BUS.register(new NetworkCapabilityConstructors());
         if (MinecraftHelpers.isClientSide()) {
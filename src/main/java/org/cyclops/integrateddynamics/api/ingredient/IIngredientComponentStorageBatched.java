@@ -0,0 +1,38 @@
+package org.cyclops.integrateddynamics.api.ingredient;
+
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+
+import java.util.List;
+
+/**
+ * An ingredient component storage that can transfer multiple ingredients at once.
+ *
+ * This is cheaper than separate calls for each ingredient,
+ * as the underlying storages only have to be visited once.
+ *
+ * @param <T> The instance type.
+ * @param <M> The matching condition parameter.
+ * @author rubensworks
+ */
+public interface IIngredientComponentStorageBatched<T, M> extends IIngredientComponentStorage<T, M> {
+
+    /**
+     * Insert the given ingredients.
+     * Each ingredient is handled as in {@link #insert(Object, boolean)}.
+     * @param ingredients The ingredients to insert.
+     * @param simulate If insertion should be simulated.
+     * @return The remaining ingredients that were not inserted, in the same order as the given ingredients.
+     */
+    public List<T> insertAll(List<T> ingredients, boolean simulate);
+
+    /**
+     * Extract ingredients matching the given prototypes.
+     * Each prototype is handled as in {@link #extract(Object, Object, boolean)}.
+     * @param prototypes The prototypes to extract.
+     * @param matchFlags The match flags for all prototypes.
+     * @param simulate If extraction should be simulated.
+     * @return The extracted ingredients, in the same order as the given prototypes.
+     */
+    public List<T> extractAll(List<T> prototypes, M matchFlags, boolean simulate);
+
+}
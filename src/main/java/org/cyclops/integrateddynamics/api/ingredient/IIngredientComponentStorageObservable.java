@@ -58,6 +58,19 @@ public interface IIngredientComponentStorageObservable<T, M> {
      */
     public void scheduleObservationForced(int channel, PartPos pos);
 
+    /**
+     * Apply a change that was made by this network to the storage at the given position to the index immediately,
+     * instead of waiting for the next observation of the position.
+     *
+     * Later observations of the position will only emit the changes that were not applied in this way.
+     *
+     * @param pos The position of the changed storage.
+     * @param changeType The type of change.
+     * @param completeChange If the storage has become completely empty.
+     * @param instance The inserted or extracted instance.
+     */
+    public void applyStorageChange(PartPos pos, Change changeType, boolean completeChange, T instance);
+
     /**
      * @return If an observation should happen.
      */
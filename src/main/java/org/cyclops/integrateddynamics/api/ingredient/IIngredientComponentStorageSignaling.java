@@ -0,0 +1,28 @@
+package org.cyclops.integrateddynamics.api.ingredient;
+
+/**
+ * An ingredient component storage that signals when its contents have changed.
+ *
+ * Ingredient networks will only observe such storages after they have signalled a change,
+ * instead of polling them periodically.
+ * Storages that can not guarantee that all changes are signalled should not implement this interface.
+ *
+ * @author rubensworks
+ */
+public interface IIngredientComponentStorageSignaling {
+
+    /**
+     * Add a listener that must be called each time the contents of this storage have changed.
+     * The listener may be called from any thread.
+     * @param listener A change listener.
+     */
+    public void addChangeListener(Runnable listener);
+
+    /**
+     * Remove the given listener.
+     * This will silently fail if the given listener was not registered.
+     * @param listener A change listener.
+     */
+    public void removeChangeListener(Runnable listener);
+
+}
@@ -0,0 +1,30 @@
+package org.cyclops.integrateddynamics.api.ingredient;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A slotted ingredient component storage that signals which of its slots have changed.
+ *
+ * Ingredient networks will only inspect the signalled slots when observing such storages.
+ * Changes that are not bound to a single slot, such as a change in the number of slots,
+ * must be signalled via the listeners of {@link IIngredientComponentStorageSignaling}.
+ *
+ * @author rubensworks
+ */
+public interface IIngredientComponentStorageSlotSignaling extends IIngredientComponentStorageSignaling {
+
+    /**
+     * Add a listener that must be called with the slot id each time the contents of a slot have changed.
+     * The listener may be called from any thread.
+     * @param listener A slot change listener.
+     */
+    public void addSlotChangeListener(IntConsumer listener);
+
+    /**
+     * Remove the given listener.
+     * This will silently fail if the given listener was not registered.
+     * @param listener A slot change listener.
+     */
+    public void removeSlotChangeListener(IntConsumer listener);
+
+}
@@ -1,49 +1,55 @@
 package org.cyclops.integrateddynamics.api.ingredient;
 
+import com.google.common.collect.Iterators;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
 import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollection;
 import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
 import java.util.Iterator;
+import java.util.NavigableSet;
 
 /**
  * An index that maps ingredients to positions that contain that instance.
  *
+ * This index can only be read, as it may be a view over other indexes.
+ * Indexes that can be modified implement {@link IIngredientPositionsIndexMutable}.
+ *
  * @param <T> An instance type.
  * @param <M> The matching condition parameter.
  */
 public interface IIngredientPositionsIndex<T, M> extends IIngredientCollection<T, M> {
 
     /**
-     * @return Get all positions that are not empty.
+     * @return Get all positions that are not empty, sorted by priority.
+     *         This set must not be modified.
      */
-    public Iterator<PartPos> getNonEmptyPositions();
+    public NavigableSet<PrioritizedPartPos> getNonEmptyPrioritizedPositions();
 
     /**
-     * Get all positions that have an instance that contain the given instance.
+     * Get all positions that have an instance that contain the given instance, sorted by priority.
      * @param instance An instance to match.
      * @param matchFlags Instance match conditions.
-     * @return The positions.
+     * @return The positions, this set must not be modified.
      */
-    public Iterator<PartPos> getPositions(T instance, M matchFlags);
+    public NavigableSet<PrioritizedPartPos> getPrioritizedPositions(T instance, M matchFlags);
 
     /**
-     * Indicate that the given position contains the given position.
-     * @param instance An instance.
-     * @param pos A position.
+     * @return Get all positions that are not empty.
      */
-    public void addPosition(T instance, PrioritizedPartPos pos);
+    public default Iterator<PartPos> getNonEmptyPositions() {
+        return Iterators.transform(getNonEmptyPrioritizedPositions().iterator(), PrioritizedPartPos::getPartPos);
+    }
 
     /**
-     * Indicate that the given instance is removed from the given position.
-     *
-     * This will not necessarily remove the given position,
-     * only if the total instance quantity becomes zero.
-     *
-     * @param instance An instance.
-     * @param pos A position.
+     * Get all positions that have an instance that contain the given instance.
+     * @param instance An instance to match.
+     * @param matchFlags Instance match conditions.
+     * @return The positions.
      */
-    public void removePosition(T instance, PrioritizedPartPos pos);
+    public default Iterator<PartPos> getPositions(T instance, M matchFlags) {
+        return Iterators.transform(getPrioritizedPositions(instance, matchFlags).iterator(), PrioritizedPartPos::getPartPos);
+    }
 
     /**
      * Get the available quantity for the given instance.
@@ -52,4 +58,34 @@ public interface IIngredientPositionsIndex<T, M> extends IIngredientCollection<T
      */
     public long getQuantity(T instance);
 
+    /**
+     * Get the summed quantity of all instances that match with the given instance.
+     * The quantity of the given instance is ignored for matching.
+     * @param instance An instance to match.
+     * @param matchCondition Instance match conditions.
+     * @return The indexed quantity.
+     */
+    public default long getQuantity(T instance, M matchCondition) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        M condition = matcher.withoutCondition(matchCondition, getComponent().getPrimaryQuantifier().getMatchCondition());
+        long quantity = 0;
+        Iterator<T> it = iterator(instance, condition);
+        while (it.hasNext()) {
+            quantity += matcher.getQuantity(it.next());
+        }
+        return quantity;
+    }
+
+    /**
+     * @return The summed quantity of all indexed instances.
+     */
+    public default long getTotalQuantity() {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        long quantity = 0;
+        for (T instance : this) {
+            quantity += matcher.getQuantity(instance);
+        }
+        return quantity;
+    }
+
 }
@@ -0,0 +1,32 @@
+package org.cyclops.integrateddynamics.api.ingredient;
+
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+
+/**
+ * An index that maps ingredients to positions that contain that instance,
+ * of which the positions can be modified.
+ *
+ * @param <T> An instance type.
+ * @param <M> The matching condition parameter.
+ */
+public interface IIngredientPositionsIndexMutable<T, M> extends IIngredientPositionsIndex<T, M> {
+
+    /**
+     * Indicate that the given position contains the given position.
+     * @param instance An instance.
+     * @param pos A position.
+     */
+    public void addPosition(T instance, PrioritizedPartPos pos);
+
+    /**
+     * Indicate that the given instance is removed from the given position.
+     *
+     * This will not necessarily remove the given position,
+     * only if the total instance quantity becomes zero.
+     *
+     * @param instance An instance.
+     * @param pos A position.
+     */
+    public void removePosition(T instance, PrioritizedPartPos pos);
+
+}
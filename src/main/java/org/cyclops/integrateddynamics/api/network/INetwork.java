@@ -132,4 +132,35 @@ public interface INetwork extends IFullNetworkListener, INBTSerializable {
      */
     public IFullNetworkListener[] getFullNetworkListeners();
 
+    /**
+     * Update the parts of this network that must run on the server thread,
+     * such as loading, deriving elements, killing the network when it is empty and updating the network listeners.
+     * This is the first part of {@link #update()}.
+     * @return If {@link #updateElements()} should be called afterwards.
+     */
+    public boolean updateNetwork();
+
+    /**
+     * Update the network elements that are due in this tick.
+     * This is the second part of {@link #update()},
+     * and may be called from another thread if {@link #canUpdateElementsConcurrently()} is true.
+     */
+    public void updateElements();
+
+    /**
+     * @return If all updateable elements of this network are thread-safe,
+     *         so that they can be updated in parallel with the elements of other networks.
+     */
+    public boolean canUpdateElementsConcurrently();
+
+    /**
+     * Run the given task on the server thread.
+     * If the elements of this network are being updated on another thread,
+     * the task is deferred until the elements of all networks have been updated.
+     * Tasks of the same network are run in the order they were scheduled.
+     * Otherwise, the task is run immediately.
+     * @param task A task that may modify the world.
+     */
+    public void runOnMainThread(Runnable task);
+
 }
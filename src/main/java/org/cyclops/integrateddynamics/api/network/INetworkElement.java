@@ -35,6 +35,15 @@ public interface INetworkElement extends Comparable<INetworkElement> {
      */
     public void update(INetwork network);
 
+    /**
+     * If this element can be updated in parallel with the elements of other networks.
+     * If so, {@link #update(INetwork)} and the listeners that are called after it may only modify
+     * the state of this element and its network, and must run all effects on the world via
+     * {@link INetwork#runOnMainThread(Runnable)}.
+     * @return If the update of this element is thread-safe.
+     */
+    public boolean isUpdateThreadSafe();
+
     /**
      * Called right before the network is terminated or will be reset.
      * @param network The network to update in.
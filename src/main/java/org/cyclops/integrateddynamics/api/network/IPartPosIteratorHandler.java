@@ -1,8 +1,11 @@
 package org.cyclops.integrateddynamics.api.network;
 
+import com.google.common.collect.Iterators;
 import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
 import java.util.Iterator;
+import java.util.NavigableSet;
 import java.util.function.Supplier;
 
 /**
@@ -20,6 +23,17 @@ public interface IPartPosIteratorHandler {
      */
     public Iterator<PartPos> handleIterator(Supplier<Iterator<PartPos>> iteratorSupplier, int channel);
 
+    /**
+     * Given positions sorted by priority, determine the starting position of an iterator over them.
+     * Handlers can use the ordering of the positions to resume iteration without skipping positions.
+     * @param positions Positions sorted by priority, which must not be modified during iteration.
+     * @param channel The channel in which the iterator is being handled.
+     * @return An iterator, may be ended.
+     */
+    public default Iterator<PartPos> handleIterator(NavigableSet<PrioritizedPartPos> positions, int channel) {
+        return handleIterator(() -> Iterators.transform(positions.iterator(), PrioritizedPartPos::getPartPos), channel);
+    }
+
     /**
      * Copy this handler.
      * This should be cheap to call, as this can be called multiple times per tick.
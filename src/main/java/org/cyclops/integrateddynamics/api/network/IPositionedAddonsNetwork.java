@@ -5,6 +5,8 @@ import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.NavigableSet;
 import java.util.stream.Collectors;
 
 /**
@@ -45,9 +47,9 @@ public interface IPositionedAddonsNetwork {
 
     /**
      * @param channel The channel id.
-     * @return The stored positions, sorted by priority.
+     * @return The stored positions, sorted by priority. This set must not be modified.
      */
-    public Collection<PrioritizedPartPos> getPrioritizedPositions(int channel);
+    public NavigableSet<PrioritizedPartPos> getPrioritizedPositions(int channel);
 
     /**
      * Get the channel this position is present in.
@@ -57,6 +59,26 @@ public interface IPositionedAddonsNetwork {
      */
     public int getPositionChannel(PartPos pos);
 
+    /**
+     * Get the prioritized variant of the given position.
+     * @param pos A position.
+     * @return The prioritized position, or null if it is not present.
+     */
+    @Nullable
+    public PrioritizedPartPos getPrioritizedPosition(PartPos pos);
+
+    /**
+     * Iterate over the positions of the given channel in a cyclic manner,
+     * starting right after the given cursor position, and ending with the cursor position itself.
+     * The cursor does not have to be present in the network,
+     * so a cursor remains valid when positions are added or removed.
+     * @param channel The channel id.
+     * @param cursor The position after which iteration should start,
+     *               or null if iteration should start at the first position.
+     * @return The positions, sorted by priority and rotated after the cursor.
+     */
+    public Iterator<PrioritizedPartPos> getPrioritizedPositionsAfter(int channel, @Nullable PrioritizedPartPos cursor);
+
     /**
      * @param channel The channel id.
      * @return The stored positions, sorted by priority.
@@ -91,6 +113,7 @@ public interface IPositionedAddonsNetwork {
 
     /**
      * Add the given position.
+     * If the position was already present with another priority or channel, it will be moved.
      * @param pos The position.
      * @param priority The priority.
      * @param channel The channel id.
@@ -85,6 +85,44 @@ public interface IPositionedAddonsNetworkIngredients<T, M> extends IPositionedAd
         return wrapperHandler != null ? wrapperHandler.wrapStorage(getChannel(channel)) : null;
     }
 
+    /**
+     * Get the summed quantity of all instances in the given channel that match with the given instance.
+     * This is answered by the index of the channel, without iterating over the storages.
+     * @param channel A channel id.
+     * @param instance An instance to match, its quantity is ignored for matching.
+     * @param matchCondition Instance match conditions.
+     * @return The indexed quantity.
+     */
+    public default long getChannelQuantity(int channel, T instance, M matchCondition) {
+        return getChannelIndex(channel).getQuantity(instance, matchCondition);
+    }
+
+    /**
+     * Get the summed quantity of all instances in the given channel.
+     * This is answered by the index of the channel, without iterating over the storages.
+     * @param channel A channel id.
+     * @return The indexed quantity.
+     */
+    public default long getChannelTotalQuantity(int channel) {
+        return getChannelIndex(channel).getTotalQuantity();
+    }
+
+    /**
+     * Get the summed capacity of all storages in the given channel.
+     * This is kept up to date when positions are added, removed and observed, without iterating over the storages.
+     * @param channel A channel id.
+     * @return The summed capacity, as last observed.
+     */
+    public long getChannelMaxQuantity(int channel);
+
+    /**
+     * Update the capacity of the storage at the given position.
+     * This is called when the position is observed.
+     * @param pos A position.
+     * @param maxQuantity The current capacity of the storage.
+     */
+    public void setPositionMaxQuantity(PartPos pos, long maxQuantity);
+
     /**
      * Get the last tick duration of the index observer.
      * @return Duration in nanoseconds
@@ -0,0 +1,72 @@
+package org.cyclops.integrateddynamics.capability.path;
+
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.cyclopscore.helper.TileHelpers;
+import org.cyclops.integrateddynamics.api.path.IPathElement;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A path element that only knows its position,
+ * and that resolves the actual {@link IPathElement} capability at that position when it is first used.
+ * This is used when loading networks, so that no capabilities have to be looked up during world load.
+ * The resolved capability is kept for as long as the chunk it was resolved in is loaded,
+ * as the tile entity at this position is recreated when its chunk is loaded again.
+ * @author rubensworks
+ */
+public class PathElementLazy extends PathElementDefault {
+
+    private final DimPos position;
+    private final EnumFacing side;
+
+    private IPathElement resolved;
+    private Chunk resolvedChunk;
+
+    public PathElementLazy(DimPos position, @Nullable EnumFacing side) {
+        this.position = position;
+        this.side = side;
+    }
+
+    /**
+     * @return The actual path element at this position, or null if it could not be resolved.
+     */
+    @Nullable
+    public IPathElement resolve() {
+        if (resolved != null && resolvedChunk.isLoaded()) {
+            return resolved;
+        }
+        resolved = null;
+        resolvedChunk = null;
+        if (!position.isLoaded()) {
+            return null;
+        }
+        World world = position.getWorld();
+        BlockPos pos = position.getBlockPos();
+        Chunk chunk = world.getChunkProvider().getLoadedChunk(pos.getX() >> 4, pos.getZ() >> 4);
+        IPathElement pathElement = TileHelpers.getCapability(world, pos, side, PathElementConfig.CAPABILITY);
+        if (pathElement != null && chunk != null) {
+            resolved = pathElement;
+            resolvedChunk = chunk;
+        }
+        return pathElement;
+    }
+
+    @Override
+    public DimPos getPosition() {
+        return position;
+    }
+
+    @Override
+    public Set<ISidedPathElement> getReachableElements() {
+        IPathElement pathElement = resolve();
+        return pathElement == null ? Collections.emptySet() : pathElement.getReachableElements();
+    }
+
+}
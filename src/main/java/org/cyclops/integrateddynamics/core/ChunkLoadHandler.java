@@ -0,0 +1,42 @@
+package org.cyclops.integrateddynamics.core;
+
+import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.core.network.Network;
+import org.cyclops.integrateddynamics.core.network.NetworkPositionIndex;
+
+/**
+ * Wakes up dormant network elements when their chunk is loaded.
+ * @author rubensworks
+ */
+public final class ChunkLoadHandler {
+
+    private static ChunkLoadHandler INSTANCE;
+
+    private ChunkLoadHandler() {
+
+    }
+
+    public static ChunkLoadHandler getInstance() {
+        if(INSTANCE == null) {
+            INSTANCE = new ChunkLoadHandler();
+        }
+        return INSTANCE;
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event) {
+        if(!event.getWorld().isRemote) {
+            Chunk chunk = event.getChunk();
+            int dimension = event.getWorld().provider.getDimension();
+            for (INetwork network : NetworkPositionIndex.getInstance().getNetworks(dimension, chunk.x, chunk.z)) {
+                if (network instanceof Network) {
+                    ((Network) network).wakeChunk(dimension, chunk.x, chunk.z);
+                }
+            }
+        }
+    }
+
+}
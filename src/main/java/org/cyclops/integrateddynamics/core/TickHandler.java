@@ -8,9 +8,13 @@ import org.cyclops.integrateddynamics.api.network.IFullNetworkListener;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.core.helper.NetworkHelpers;
+import org.cyclops.integrateddynamics.core.network.NetworkFormationQueue;
+import org.cyclops.integrateddynamics.core.network.NetworkTickScheduler;
 import org.cyclops.integrateddynamics.core.network.diagnostics.NetworkDiagnostics;
 import org.cyclops.integrateddynamics.core.persist.world.NetworkWorldStorage;
 
+import java.util.List;
+
 /**
  * Handles server ticks to delegate to networks.
  * @author rubensworks
@@ -41,13 +45,18 @@ public final class TickHandler {
         if (shouldCrash) {
             throw new RuntimeException("Forcefully crashed the server.");
         }
+        if(event.type == TickEvent.Type.SERVER && event.phase == TickEvent.Phase.END) {
+            // Form all networks that were affected by cable changes in this tick.
+            NetworkFormationQueue.getInstance().process();
+        }
         if(event.type == TickEvent.Type.SERVER && event.phase == TickEvent.Phase.END && NetworkHelpers.shouldWork()) {
             boolean isBeingDiagnozed = NetworkDiagnostics.getInstance().isBeingDiagnozed();
             if (isBeingDiagnozed) {
                 tick = (tick + 1) % MinecraftHelpers.SECOND_IN_TICKS;
             }
             boolean shouldSendTickDurationInfo = isBeingDiagnozed && tick == 0;
-            for(INetwork network : NetworkWorldStorage.getInstance(IntegratedDynamics._instance).getNetworks()) {
+            List<INetwork> networks = NetworkWorldStorage.getInstance(IntegratedDynamics._instance).getNetworks();
+            for(INetwork network : networks) {
                 if (isBeingDiagnozed && (shouldSendTickDurationInfo || network.hasChanged())) {
                     NetworkDiagnostics.getInstance().sendNetworkUpdate(network);
                     network.resetLastSecondDurations();
@@ -60,15 +69,8 @@ public final class TickHandler {
                         }
                     }
                 }
-                try {
-                    if (!network.isCrashed()) {
-                        network.update();
-                    }
-                } catch (Throwable e) {
-                    network.setCrashed(true);
-                    throw e;
-                }
             }
+            NetworkTickScheduler.getInstance().tick(networks);
         }
     }
 
@@ -11,7 +11,6 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
-import net.minecraftforge.common.MinecraftForge;
 import org.cyclops.cyclopscore.helper.ItemStackHelpers;
 import org.cyclops.cyclopscore.helper.TileHelpers;
 import org.cyclops.integrateddynamics.api.block.IFacadeable;
@@ -23,12 +22,13 @@ import org.cyclops.integrateddynamics.api.network.INetworkElement;
 import org.cyclops.integrateddynamics.api.network.INetworkElementProvider;
 import org.cyclops.integrateddynamics.api.part.IPartContainer;
 import org.cyclops.integrateddynamics.api.part.IPartType;
+import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
 import org.cyclops.integrateddynamics.capability.cable.CableConfig;
 import org.cyclops.integrateddynamics.capability.cable.CableFakeableConfig;
 import org.cyclops.integrateddynamics.capability.facadeable.FacadeableConfig;
 import org.cyclops.integrateddynamics.capability.path.PathElementConfig;
-import org.cyclops.integrateddynamics.core.network.event.NetworkInitializedEvent;
+import org.cyclops.integrateddynamics.core.network.NetworkFormationQueue;
 import org.cyclops.integrateddynamics.item.ItemBlockCable;
 
 import javax.annotation.Nullable;
@@ -186,9 +186,9 @@ public class CableHelpers {
                 sidesToUpdate.add(cableConnectionHit);
                 CableHelpers.updateConnectionsNeighbours(world, pos, sidesToUpdate);
 
-                // Reinit the networks for this block and the disconnected neighbour.
-                NetworkHelpers.initNetwork(world, pos, side);
-                NetworkHelpers.initNetwork(world, pos.offset(cableConnectionHit), side.getOpposite());
+                // Split the network for this block and the disconnected neighbour if they became detached.
+                NetworkHelpers.splitNetwork(Lists.newArrayList(PartPos.of(world, pos, side),
+                        PartPos.of(world, pos.offset(cableConnectionHit), side.getOpposite())));
                 return true;
             } else if (cableConnectionHit == null) {
                 // Reconnect cable side
@@ -208,9 +208,8 @@ public class CableHelpers {
                     sidesToUpdate.add(side);
                     CableHelpers.updateConnectionsNeighbours(world, pos, sidesToUpdate);
 
-                    // Reinit the networks for this block and the connected neighbour.
-                    NetworkHelpers.initNetwork(world, pos, side);
-                    NetworkHelpers.initNetwork(world, neighbourPos, side.getOpposite());
+                    // Merge the networks of this block and the connected neighbour.
+                    NetworkHelpers.joinNetwork(world, pos, side);
                 }
                 return true;
             }
@@ -221,7 +220,9 @@ public class CableHelpers {
 
     /**
      * This should be called when a cable is added.
-     * This method automatically notifies the neighbours and (re-)initializes the network if this cable carries one.
+     * This method automatically notifies the neighbours and schedules the (re-)initialization
+     * of the network if this cable carries one.
+     * The network will be formed at the end of the tick, together with all other cable changes in that tick.
      * This should in most cases only be called server-side.
      * @param world The world.
      * @param pos The position.
@@ -229,8 +230,7 @@ public class CableHelpers {
     public static void onCableAdded(World world, BlockPos pos) {
         CableHelpers.updateConnectionsNeighbours(world, pos, CableHelpers.ALL_SIDES);
         if(!world.isRemote) {
-            INetwork network = NetworkHelpers.initNetwork(world, pos, null);
-            MinecraftForge.EVENT_BUS.post(new NetworkInitializedEvent(network, world, pos, null));
+            NetworkFormationQueue.getInstance().scheduleJoin(world, pos, null, null);
         }
     }
 
@@ -245,8 +245,7 @@ public class CableHelpers {
     public static void onCableAddedByPlayer(World world, BlockPos pos, @Nullable EntityLivingBase placer) {
         CableHelpers.updateConnectionsNeighbours(world, pos, CableHelpers.ALL_SIDES);
         if(!world.isRemote) {
-            INetwork network = NetworkHelpers.initNetwork(world, pos, null);
-            MinecraftForge.EVENT_BUS.post(new NetworkInitializedEvent(network, world, pos, placer));
+            NetworkFormationQueue.getInstance().scheduleJoin(world, pos, null, placer);
         }
     }
 
@@ -297,11 +296,12 @@ public class CableHelpers {
     public static boolean onCableRemoved(World world, BlockPos pos, Collection<EnumFacing> sides) {
         updateConnectionsNeighbours(world, pos, sides);
         if (!world.isRemote) {
-            // Reinit neighbouring networks.
+            // Schedule splitting off neighbouring parts of the network that became detached.
+            List<PartPos> sidePositions = Lists.newArrayList();
             for(EnumFacing side : sides) {
-                BlockPos sidePos = pos.offset(side);
-                NetworkHelpers.initNetwork(world, sidePos, side.getOpposite());
+                sidePositions.add(PartPos.of(world, pos.offset(side), side.getOpposite()));
             }
+            NetworkFormationQueue.getInstance().scheduleSplit(sidePositions);
         }
         return true;
     }
@@ -1,5 +1,8 @@
 package org.cyclops.integrateddynamics.core.helper;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.tileentity.TileEntity;
@@ -8,9 +11,9 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.cyclopscore.helper.TileHelpers;
 import org.cyclops.integrateddynamics.GeneralConfig;
-import org.cyclops.integrateddynamics.IntegratedDynamics;
 import org.cyclops.integrateddynamics.api.network.IEnergyNetwork;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.api.network.INetworkCarrier;
@@ -20,6 +23,7 @@ import org.cyclops.integrateddynamics.api.network.IPartNetwork;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
 import org.cyclops.integrateddynamics.capability.network.EnergyNetworkConfig;
 import org.cyclops.integrateddynamics.capability.network.NetworkCarrierConfig;
 import org.cyclops.integrateddynamics.capability.network.PartNetworkConfig;
@@ -28,9 +32,15 @@ import org.cyclops.integrateddynamics.capability.networkelementprovider.NetworkE
 import org.cyclops.integrateddynamics.capability.path.PathElementConfig;
 import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
 import org.cyclops.integrateddynamics.core.network.Network;
-import org.cyclops.integrateddynamics.core.persist.world.NetworkWorldStorage;
+import org.cyclops.integrateddynamics.core.network.NetworkPositionIndex;
+import org.cyclops.integrateddynamics.core.path.Cluster;
+import org.cyclops.integrateddynamics.core.path.PathFinder;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Network helper methods.
@@ -147,6 +157,102 @@ public class NetworkHelpers {
         return null;
     }
 
+    /**
+     * Connect the path element at the given position to the networks of the path elements it can reach.
+     * If no neighbouring networks exist, a new network will be formed.
+     * If multiple networks are involved, they will be merged into the largest one,
+     * so that only the path elements of the smaller networks have to be moved.
+     * This should be used instead of {@link #initNetwork(World, BlockPos, EnumFacing)}
+     * when a single path element or connection was added.
+     * @param world The world.
+     * @param pos The position of the path element.
+     * @param side The side.
+     * @return The network the path element is part of.
+     * Can be null if the position did not have a {@link IPathElement} capability.
+     */
+    public static @Nullable INetwork joinNetwork(World world, BlockPos pos, @Nullable EnumFacing side) {
+        IPathElement pathElement = TileHelpers.getCapability(world, pos, side, PathElementConfig.CAPABILITY);
+        if (pathElement == null) {
+            return null;
+        }
+        ISidedPathElement sidedPathElement = SidedPathElement.of(pathElement, side);
+
+        // Collect the networks of this element and its neighbours.
+        Set<Network> networks = Sets.newIdentityHashSet();
+        INetwork ownNetwork = getNetwork(world, pos, side);
+        if (ownNetwork != null && ownNetwork.containsSidedPathElement(sidedPathElement)) {
+            if (!isNetworkJoinable(ownNetwork)) {
+                return initNetwork(world, pos, side);
+            }
+            networks.add((Network) ownNetwork);
+        }
+        for (ISidedPathElement neighbour : pathElement.getReachableElements()) {
+            DimPos neighbourPos = neighbour.getPathElement().getPosition();
+            INetwork network = getNetwork(neighbourPos.getWorld(), neighbourPos.getBlockPos(), neighbour.getSide());
+            if (!isNetworkJoinable(network)) {
+                // Fallback to a full network formation if we encounter a network in an unexpected state.
+                return initNetwork(world, pos, side);
+            }
+            networks.add((Network) network);
+        }
+        if (networks.isEmpty()) {
+            return initNetwork(world, pos, side);
+        }
+
+        // Merge all smaller networks into the largest one
+        Network largest = null;
+        for (Network network : networks) {
+            if (largest == null || network.getCablesCount() > largest.getCablesCount()) {
+                largest = network;
+            }
+        }
+        for (Network network : networks) {
+            if (network != largest) {
+                largest.absorbNetwork(network);
+            }
+        }
+        largest.addPathElement(sidedPathElement);
+        return largest;
+    }
+
+    protected static boolean isNetworkJoinable(@Nullable INetwork network) {
+        return network instanceof Network && network.isInitialized() && !network.isKilled() && !network.isCrashed();
+    }
+
+    /**
+     * Split off the parts of a network that have become unreachable
+     * after a path element or connection was removed.
+     * Only the detached parts will be formed into new networks, the remaining part keeps its network,
+     * so the required work only depends on the size of the detached parts.
+     * @param positions The positions of the path elements that were adjacent to the removed element or connection.
+     */
+    public static void splitNetwork(Collection<PartPos> positions) {
+        // Group the adjacent path elements by their network.
+        Map<INetwork, List<ISidedPathElement>> networkHeads = Maps.newIdentityHashMap();
+        for (PartPos position : positions) {
+            World world = position.getPos().getWorld();
+            BlockPos pos = position.getPos().getBlockPos();
+            IPathElement pathElement = TileHelpers.getCapability(world, pos, position.getSide(), PathElementConfig.CAPABILITY);
+            if (pathElement != null) {
+                INetwork network = getNetwork(position);
+                if (!isNetworkJoinable(network)) {
+                    initNetwork(world, pos, position.getSide());
+                } else {
+                    networkHeads.computeIfAbsent(network, (n) -> Lists.newArrayList())
+                            .add(SidedPathElement.of(pathElement, position.getSide()));
+                }
+            }
+        }
+
+        // Form new networks for all detached clusters.
+        for (List<ISidedPathElement> heads : networkHeads.values()) {
+            for (Cluster cluster : PathFinder.getDetachedClusters(heads)) {
+                Network network = Network.initiateNetworkSetup(cluster);
+                network.initialize();
+            }
+        }
+    }
+
     /**
      * This MUST be called by blocks having the {@link INetworkElementProvider} capability in
      * when a neighbouring block is updated, more specifically when
@@ -210,13 +316,11 @@ public class NetworkHelpers {
             INetworkElementProvider networkElementProvider = TileHelpers.getCapability(world, pos, NetworkElementProviderConfig.CAPABILITY);
             if (networkElementProvider != null) {
                 // Attempt to revalidate the network elements in this provider
-                for (INetwork network : NetworkWorldStorage.getInstance(IntegratedDynamics._instance).getNetworks()) {
-                    if (network.containsSidedPathElement(SidedPathElement.of(pathElement, null))) {
-                        // Revalidate all network elements
-                        for (INetworkElement networkElement : networkElementProvider.createNetworkElements(world, pos)) {
-                            networkElement.revalidate(network);
-                        }
-                        break; // No need to check the other networks anymore
+                INetwork network = NetworkPositionIndex.getInstance().getNetwork(pathElement.getPosition());
+                if (network != null && network.containsSidedPathElement(SidedPathElement.of(pathElement, null))) {
+                    // Revalidate all network elements
+                    for (INetworkElement networkElement : networkElementProvider.createNetworkElements(world, pos)) {
+                        networkElement.revalidate(network);
                     }
                 }
             }
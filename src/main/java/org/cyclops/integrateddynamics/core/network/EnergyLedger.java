@@ -0,0 +1,536 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2LongRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2LongSortedMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntComparators;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+import org.cyclops.integrateddynamics.api.network.IEnergyConsumingNetworkElement;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps track of the energy in an energy network.
+ *
+ * The stored energy and capacity of a channel are determined at most once per tick,
+ * after which consumers are admitted by reserving energy from that balance,
+ * without having to query the energy storages for each consumer.
+ *
+ * Consumed energy is not extracted by each consumer,
+ * but in a single transaction per channel in the next tick,
+ * which balances the fill ratio of the storages.
+ * Energy that could not be extracted, for example because a storage was removed,
+ * is owed by the channel, and is extracted together with the energy that is consumed in the next tick.
+ *
+ * The consumption rates of all consumers are summed incrementally.
+ *
+ * If a channel does not have enough energy for the expected demand of a tick,
+ * consumers with the highest priority are served first.
+ * Consumers with a lower priority than the priority at which the energy runs out are shed,
+ * and consumers at that priority receive a fair share of the remaining energy.
+ *
+ * @author rubensworks
+ */
+public class EnergyLedger {
+
+    /**
+     * Expected demands are stored in thousandths of energy units,
+     * so that consumers that do not update each tick are accounted for.
+     */
+    private static final long DEMAND_SCALE = 1000;
+
+    private final EnergyNetwork network;
+    private final Int2ObjectMap<Balance> balances = new Int2ObjectOpenHashMap<>();
+    private final Object2ObjectMap<INetworkElement, Consumer> consumers = new Object2ObjectOpenHashMap<>();
+    private final Int2ObjectMap<Int2LongSortedMap> channelDemands = new Int2ObjectOpenHashMap<>();
+    private final Object2IntMap<INetworkElement> lastSecondShedUpdates = new Object2IntOpenHashMap<>();
+    private final Int2LongMap debts = new Int2LongOpenHashMap();
+    private long totalConsumptionRate = 0;
+
+    public EnergyLedger(EnergyNetwork network) {
+        this.network = network;
+    }
+
+    /**
+     * Forget all balances, so that they are determined again when they are needed.
+     * This should be called at the start of each tick, after {@link #settle()}.
+     */
+    public void reset() {
+        this.balances.clear();
+    }
+
+    /**
+     * Extract all energy that was consumed since the balances were determined from the storages.
+     */
+    public void settle() {
+        for (Int2ObjectMap.Entry<Balance> entry : this.balances.int2ObjectEntrySet()) {
+            Balance balance = entry.getValue();
+            if (balance.consumed > 0) {
+                long remaining = settle(entry.getIntKey(), balance);
+                if (remaining > 0) {
+                    this.debts.put(entry.getIntKey(), remaining);
+                }
+                balance.consumed = 0;
+            }
+        }
+    }
+
+    /**
+     * Extract the consumed energy of a balance in a single pass over its storages,
+     * so that the storages end up with a fill ratio that is as equal as possible.
+     * @param channel The channel of the balance.
+     * @param balance A balance.
+     * @return The consumed energy that could not be extracted.
+     */
+    protected long settle(int channel, Balance balance) {
+        int size = balance.positions.size();
+        long[] planned = planExtraction(balance, balance.consumed);
+        long remaining = balance.consumed;
+
+        // Storages that provide less than planned are compensated by the other storages in a second pass.
+        for (int pass = 0; pass < 2 && remaining > 0; pass++) {
+            for (int i = 0; i < size && remaining > 0; i++) {
+                long amount = pass == 0 ? planned[i] : remaining;
+                if (amount > 0) {
+                    remaining -= extract(channel, balance.positions.get(i), Math.min(amount, remaining));
+                }
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Determine how much should be extracted from each storage of a balance,
+     * by lowering the fullest storages to a common fill ratio.
+     * @param balance A balance.
+     * @param amount The amount to extract.
+     * @return The amount to extract per storage.
+     */
+    protected long[] planExtraction(Balance balance, long amount) {
+        int size = balance.positions.size();
+        long[] planned = new long[size];
+        double[] fills = new double[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            long stored = balance.storedAmounts.getLong(i);
+            long capacity = Math.max(stored, balance.capacities.getLong(i));
+            fills[i] = capacity == 0 ? 0 : (double) stored / capacity;
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(fills[b], fills[a]));
+
+        // Find the fill ratio to which the fullest storages must be lowered.
+        double storedSum = 0;
+        double capacitySum = 0;
+        double level = 0;
+        int count = 0;
+        while (count < size) {
+            int i = order[count++];
+            storedSum += balance.storedAmounts.getLong(i);
+            capacitySum += Math.max(balance.storedAmounts.getLong(i), balance.capacities.getLong(i));
+            level = capacitySum == 0 ? 0 : Math.max(0, (storedSum - amount) / capacitySum);
+            if (count == size || level >= fills[order[count]]) {
+                break;
+            }
+        }
+
+        for (int j = 0; j < count; j++) {
+            int i = order[j];
+            long stored = balance.storedAmounts.getLong(i);
+            long capacity = Math.max(stored, balance.capacities.getLong(i));
+            planned[i] = Math.max(0, Math.min(stored, stored - (long) Math.ceil(level * capacity)));
+        }
+        return planned;
+    }
+
+    /**
+     * @param channel A channel id.
+     * @return The positions of the storages in the given channel.
+     */
+    protected Iterable<PartPos> getPositions(int channel) {
+        return this.network.getPositions(channel);
+    }
+
+    /**
+     * @param pos A position.
+     * @return If the storage at the given position is loaded and not being used by another operation.
+     */
+    protected boolean isPositionAvailable(PartPos pos) {
+        return pos.getPos().isLoaded() && !this.network.isPositionDisabled(pos);
+    }
+
+    /**
+     * @return The maximum amount of energy that can be transferred in one operation.
+     */
+    protected long getRateLimit() {
+        return this.network.getRateLimit();
+    }
+
+    /**
+     * Add the stored energy and capacity of the storage at the given position to the given balance.
+     * @param balance A balance.
+     * @param pos The position of an available storage.
+     */
+    protected void addStorage(Balance balance, PartPos pos) {
+        this.network.disablePosition(pos);
+        IIngredientComponentStorage<Integer, Boolean> storage = this.network.getPositionedStorage(pos);
+        long stored = storage.extract(Integer.MAX_VALUE, true);
+        long capacity = storage.getMaxQuantity();
+        this.network.enablePosition(pos);
+        balance.addStorage(pos, stored, capacity);
+    }
+
+    /**
+     * Extract energy from the storage at the given position.
+     * @param channel The channel of the storage.
+     * @param pos The position of the storage.
+     * @param amount The amount to extract.
+     * @return The extracted amount.
+     */
+    protected long extract(int channel, PartPos pos, long amount) {
+        if (!isPositionAvailable(pos)) {
+            return 0;
+        }
+        // Limit rate
+        amount = Math.min(amount, getRateLimit());
+        this.network.disablePosition(pos);
+        IIngredientComponentStorage<Integer, Boolean> storage = this.network.getPositionedStorage(pos);
+        int extracted = storage.extract(amount, false);
+        this.network.enablePosition(pos);
+        if (extracted > 0) {
+            this.network.applyStorageChange(pos, IIngredientComponentStorageObservable.Change.DELETION,
+                    !storage.iterator().hasNext(), extracted);
+            this.network.scheduleObservationForced(channel, pos);
+        }
+        return extracted;
+    }
+
+    /**
+     * Get the balance of the given channel for the current tick.
+     * @param channel A channel id.
+     * @return The balance.
+     */
+    public Balance getBalance(int channel) {
+        Balance balance = this.balances.get(channel);
+        if (balance == null) {
+            balance = new Balance();
+            for (PartPos pos : getPositions(channel)) {
+                // Skip if the position is not loaded, or if it is being used by another operation
+                if (isPositionAvailable(pos)) {
+                    addStorage(balance, pos);
+                }
+            }
+            // Energy that is still owed from previous ticks is not available anymore,
+            // and will be extracted together with the energy that is consumed in this tick.
+            long debt = this.debts.remove(channel);
+            balance.debt = debt;
+            balance.consumed = debt;
+            balance.available = Math.max(0, balance.stored - debt);
+            if (GeneralConfig.energyLoadShedding) {
+                planShedding(balance, channel);
+            }
+            this.balances.put(channel, balance);
+        }
+        return balance;
+    }
+
+    /**
+     * Determine the priority at which the energy of the given balance runs out.
+     * @param balance A balance.
+     * @param channel The channel of the balance.
+     */
+    protected void planShedding(Balance balance, int channel) {
+        Int2LongSortedMap demands = this.channelDemands.get(channel);
+        int multiplier = GeneralConfig.energyConsumptionMultiplier;
+        if (demands == null || multiplier == 0) {
+            return;
+        }
+        long budget = balance.available * DEMAND_SCALE;
+        for (Int2LongMap.Entry entry : demands.int2LongEntrySet()) {
+            long demand = entry.getLongValue() * multiplier;
+            if (demand > budget) {
+                balance.shedding = true;
+                balance.cutoffPriority = entry.getIntKey();
+                balance.fairShare = (double) budget / demand;
+                return;
+            }
+            budget -= demand;
+        }
+    }
+
+    /**
+     * Reserve the given amount of energy in the given channel for the current tick.
+     * @param channel A channel id.
+     * @param amount An amount of energy.
+     * @return If the energy was available, otherwise nothing will be reserved.
+     */
+    public boolean reserve(int channel, int amount) {
+        // A single transfer can never exceed the rate limit
+        if (amount > getRateLimit()) {
+            return false;
+        }
+        Balance balance = getBalance(channel);
+        if (balance.available < amount) {
+            return false;
+        }
+        balance.available -= amount;
+        return true;
+    }
+
+    /**
+     * Register energy that was consumed in the current tick.
+     * It will be extracted from the storages in {@link #settle()}.
+     * @param channel A channel id.
+     * @param amount An amount of energy that was reserved before.
+     */
+    public void consume(int channel, int amount) {
+        getBalance(channel).consumed += amount;
+    }
+
+    /**
+     * Admit the given consumer for the current tick if its priority allows it,
+     * and if the given amount of energy can be reserved.
+     * @param element A consumer for which the consumption rate has been set.
+     * @param amount An amount of energy.
+     * @return If the consumer was admitted, otherwise it is shed.
+     */
+    public boolean admit(IEnergyConsumingNetworkElement element, int amount) {
+        Consumer consumer = this.consumers.get(element);
+        if (consumer != null) {
+            Balance balance = getBalance(consumer.channel);
+            if (balance.shedding) {
+                if (consumer.priority < balance.cutoffPriority) {
+                    return shed(element);
+                }
+                if (consumer.priority == balance.cutoffPriority) {
+                    // Consumers at the cutoff priority accumulate their share until it covers an update.
+                    consumer.credit = Math.min(amount, consumer.credit + (long) Math.ceil(amount * balance.fairShare));
+                    if (consumer.credit < amount || !reserve(consumer.channel, amount)) {
+                        return shed(element);
+                    }
+                    consumer.credit -= amount;
+                    return true;
+                }
+            }
+        }
+        return reserve(element.getChannel(), amount) || shed(element);
+    }
+
+    protected boolean shed(INetworkElement element) {
+        this.lastSecondShedUpdates.put(element, this.lastSecondShedUpdates.getInt(element) + 1);
+        return false;
+    }
+
+    /**
+     * Register or update the consumption rate of an element.
+     * @param element An element.
+     * @param consumptionRate The consumption rate of the element, without multiplier.
+     */
+    public void setConsumptionRate(IEnergyConsumingNetworkElement element, int consumptionRate) {
+        Consumer consumer = this.consumers.get(element);
+        if (consumer == null) {
+            consumer = new Consumer();
+            this.consumers.put(element, consumer);
+        } else if (consumer.rate == consumptionRate && consumer.channel == element.getChannel()
+                && consumer.priority == element.getPriority()
+                && consumer.interval == Math.max(1, element.getUpdateInterval())) {
+            return;
+        } else {
+            removeDemand(consumer);
+        }
+        consumer.rate = consumptionRate;
+        consumer.channel = element.getChannel();
+        consumer.priority = element.getPriority();
+        consumer.interval = Math.max(1, element.getUpdateInterval());
+        addDemand(consumer);
+    }
+
+    /**
+     * Forget the consumption rate of an element.
+     * @param element An element.
+     */
+    public void removeConsumptionRate(INetworkElement element) {
+        Consumer consumer = this.consumers.remove(element);
+        if (consumer != null) {
+            removeDemand(consumer);
+        }
+        this.lastSecondShedUpdates.removeInt(element);
+    }
+
+    protected void addDemand(Consumer consumer) {
+        this.totalConsumptionRate += consumer.rate;
+        Int2LongSortedMap demands = this.channelDemands.get(consumer.channel);
+        if (demands == null) {
+            // Highest priorities first
+            demands = new Int2LongRBTreeMap(IntComparators.OPPOSITE_COMPARATOR);
+            this.channelDemands.put(consumer.channel, demands);
+        }
+        demands.put(consumer.priority, demands.get(consumer.priority) + consumer.getDemand());
+    }
+
+    protected void removeDemand(Consumer consumer) {
+        this.totalConsumptionRate -= consumer.rate;
+        Int2LongSortedMap demands = this.channelDemands.get(consumer.channel);
+        long demand = demands.get(consumer.priority) - consumer.getDemand();
+        if (demand <= 0) {
+            demands.remove(consumer.priority);
+            if (demands.isEmpty()) {
+                this.channelDemands.remove(consumer.channel);
+            }
+        } else {
+            demands.put(consumer.priority, demand);
+        }
+    }
+
+    /**
+     * @param channel A channel id.
+     * @return The consumed energy that could not be extracted when settling,
+     *         which will be taken into the next balance of the given channel.
+     */
+    public long getDebt(int channel) {
+        return this.debts.get(channel);
+    }
+
+    /**
+     * @return The sum of the consumption rates of all elements, without multiplier.
+     */
+    public long getTotalConsumptionRate() {
+        return totalConsumptionRate;
+    }
+
+    /**
+     * @param element An element.
+     * @return The number of updates of the given element that were shed in the last second.
+     */
+    public int getLastSecondShedUpdates(INetworkElement element) {
+        return this.lastSecondShedUpdates.getInt(element);
+    }
+
+    /**
+     * @return The number of updates of all elements that were shed in the last second.
+     */
+    public int getLastSecondShedUpdates() {
+        int sum = 0;
+        for (int count : this.lastSecondShedUpdates.values()) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    public void resetLastSecondShedUpdates() {
+        if (!this.lastSecondShedUpdates.isEmpty()) {
+            this.lastSecondShedUpdates.clear();
+        }
+    }
+
+    /**
+     * The registered state of a consumer.
+     */
+    protected static class Consumer {
+
+        private int rate;
+        private int channel;
+        private int priority;
+        private int interval;
+        private long credit;
+
+        /**
+         * @return The expected energy demand per tick, scaled by {@link #DEMAND_SCALE}, without multiplier.
+         */
+        public long getDemand() {
+            return rate * DEMAND_SCALE / interval;
+        }
+    }
+
+    /**
+     * The energy of a channel within a tick.
+     */
+    public static class Balance {
+
+        private long stored = 0;
+        private long capacity = 0;
+        private long available = 0;
+        private long consumed = 0;
+        private long debt = 0;
+        private final List<PartPos> positions = Lists.newArrayList();
+        private final LongList storedAmounts = new LongArrayList();
+        private final LongList capacities = new LongArrayList();
+        private boolean shedding = false;
+        private int cutoffPriority = Integer.MIN_VALUE;
+        private double fairShare = 1;
+
+        protected void addStorage(PartPos pos, long stored, long capacity) {
+            this.positions.add(pos);
+            this.storedAmounts.add(stored);
+            this.capacities.add(capacity);
+            this.stored += stored;
+            this.capacity += capacity;
+        }
+
+        /**
+         * @return The energy that was stored at the start of the tick.
+         */
+        public long getStored() {
+            return stored;
+        }
+
+        /**
+         * @return The maximum energy that can be stored.
+         */
+        public long getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * @return The energy that has not been reserved yet in this tick.
+         */
+        public long getAvailable() {
+            return available;
+        }
+
+        /**
+         * @return The energy that was consumed in this tick or is still owed from previous ticks,
+         *         and has not been extracted yet.
+         */
+        public long getConsumed() {
+            return consumed;
+        }
+
+        /**
+         * @return The energy that was still owed from previous ticks at the start of this tick.
+         */
+        public long getDebt() {
+            return debt;
+        }
+
+        /**
+         * @return If the expected demand exceeds the stored energy in this tick.
+         */
+        public boolean isShedding() {
+            return shedding;
+        }
+
+        /**
+         * @return The priority below which consumers are shed in this tick.
+         */
+        public int getCutoffPriority() {
+            return cutoffPriority;
+        }
+    }
+
+}
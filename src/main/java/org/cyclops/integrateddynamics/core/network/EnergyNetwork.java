@@ -4,10 +4,12 @@ import lombok.Getter;
 import lombok.Setter;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.api.PartStateException;
 import org.cyclops.integrateddynamics.api.network.IEnergyConsumingNetworkElement;
 import org.cyclops.integrateddynamics.api.network.IEnergyNetwork;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.cyclops.integrateddynamics.core.network.diagnostics.NetworkDiagnostics;
 
 /**
  * A network that can hold energy.
@@ -19,18 +21,52 @@ public class EnergyNetwork extends PositionedAddonsNetworkIngredients<Integer, B
     @Getter
     @Setter
     private INetwork network;
+    @Getter
+    private final EnergyLedger ledger;
 
     public EnergyNetwork(IngredientComponent<Integer, Boolean> component) {
         super(component);
+        this.ledger = new EnergyLedger(this);
+    }
+
+    @Override
+    public void update() {
+        super.update();
+        // The energy in the storages may have changed since the previous tick.
+        this.ledger.settle();
+        this.ledger.reset();
+        if (!NetworkDiagnostics.getInstance().isBeingDiagnozed()) {
+            this.ledger.resetLastSecondShedUpdates();
+        }
+    }
+
+    @Override
+    public boolean addNetworkElement(INetworkElement element, boolean networkPreinit) {
+        if(element instanceof IEnergyConsumingNetworkElement) {
+            try {
+                this.ledger.setConsumptionRate((IEnergyConsumingNetworkElement) element,
+                        ((IEnergyConsumingNetworkElement) element).getConsumptionRate());
+            } catch (PartStateException e) {
+                // The rate will be registered once the element updates.
+            }
+        }
+        return super.addNetworkElement(element, networkPreinit);
+    }
+
+    @Override
+    public void removeNetworkElementPost(INetworkElement element) {
+        super.removeNetworkElementPost(element);
+        this.ledger.removeConsumptionRate(element);
     }
 
     @Override
     public boolean canUpdate(INetworkElement element) {
         if(!(element instanceof IEnergyConsumingNetworkElement)) return true;
+        int rate = ((IEnergyConsumingNetworkElement) element).getConsumptionRate();
+        this.ledger.setConsumptionRate((IEnergyConsumingNetworkElement) element, rate);
         int multiplier = GeneralConfig.energyConsumptionMultiplier;
         if(multiplier == 0) return true;
-        int consumptionRate = ((IEnergyConsumingNetworkElement) element).getConsumptionRate() * multiplier;
-        return getChannel(element.getChannel()).extract(consumptionRate, true) == consumptionRate;
+        return this.ledger.admit((IEnergyConsumingNetworkElement) element, rate * multiplier);
     }
 
     @Override
@@ -46,21 +82,32 @@ public class EnergyNetwork extends PositionedAddonsNetworkIngredients<Integer, B
             int multiplier = GeneralConfig.energyConsumptionMultiplier;
             if (multiplier > 0) {
                 int consumptionRate = ((IEnergyConsumingNetworkElement) element).getConsumptionRate() * multiplier;
-                getChannel(element.getChannel()).extract(consumptionRate, false);
+                // The energy is extracted together with that of all other consumers in the next tick.
+                this.ledger.consume(element.getChannel(), consumptionRate);
             }
             ((IEnergyConsumingNetworkElement) element).postUpdate(getNetwork(), true);
         }
     }
 
+    @Override
+    public void kill() {
+        // Don't lose the energy that was consumed in the last tick.
+        this.ledger.settle();
+        this.ledger.reset();
+        super.kill();
+    }
+
+    @Override
+    public void resetLastSecondDurationsIndex() {
+        super.resetLastSecondDurationsIndex();
+        this.ledger.resetLastSecondShedUpdates();
+    }
+
     @Override
     public int getConsumptionRate() {
         int multiplier = GeneralConfig.energyConsumptionMultiplier;
         if(multiplier == 0) return 0;
-        int consumption = 0;
-        for(INetworkElement element : getNetwork().getElements()) {
-            consumption += ((IEnergyConsumingNetworkElement) element).getConsumptionRate() * multiplier;
-        }
-        return consumption;
+        return (int) Math.min(Integer.MAX_VALUE, this.ledger.getTotalConsumptionRate() * multiplier);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package org.cyclops.integrateddynamics.core.network;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.commons.lang3.tuple.Pair;
 import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
@@ -8,15 +9,20 @@ import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponen
 import org.cyclops.cyclopscore.datastructure.Wrapper;
 import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
 import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageBatched;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
 import org.cyclops.integrateddynamics.api.network.IPartPosIteratorHandler;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Supplier;
+import java.util.NavigableSet;
+import java.util.TreeMap;
 
 /**
  * An abstract {@link IIngredientComponentStorage} that wraps over a {@link IPositionedAddonsNetworkIngredients}.
@@ -24,26 +30,26 @@ import java.util.function.Supplier;
  * @param <T> The instance type.
  * @param <M> The matching condition parameter.
  */
-public abstract class IngredientChannelAdapter<T, M> implements IIngredientComponentStorage<T, M> {
+public abstract class IngredientChannelAdapter<T, M> implements IIngredientComponentStorageBatched<T, M> {
 
     private final IPositionedAddonsNetworkIngredients<T, M> network;
     private final int channel;
 
-    private boolean limitsEnabled;
+    private final IIngredientComponentStorageBatched<T, M> unlimited;
 
     public IngredientChannelAdapter(PositionedAddonsNetworkIngredients<T, M> network, int channel) {
         this.network = network;
         this.channel = channel;
 
-        this.limitsEnabled = true;
+        this.unlimited = new IngredientChannelUnlimited<>(this);
     }
 
-    public void enableLimits() {
-        this.limitsEnabled = true;
-    }
-
-    public void disableLimits() {
-        this.limitsEnabled = false;
+    /**
+     * As channels are shared by all callers, the limits can not be disabled on the channel itself.
+     * @return A view of this channel that is not bound by the rate limit of the network.
+     */
+    public IIngredientComponentStorageBatched<T, M> withoutLimits() {
+        return unlimited;
     }
 
     public IPositionedAddonsNetworkIngredients<T, M> getNetwork() {
@@ -59,46 +65,53 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
         return network.getComponent();
     }
 
-    protected abstract Iterator<PartPos> getNonFullPositions();
-    protected abstract Iterator<PartPos> getAllPositions();
-    protected abstract Iterator<PartPos> getNonEmptyPositions();
-    protected abstract Iterator<PartPos> getMatchingPositions(@Nonnull T prototype, M matchFlags);
+    protected abstract NavigableSet<PrioritizedPartPos> getNonFullPositions();
+    protected abstract NavigableSet<PrioritizedPartPos> getAllPositions();
+    protected abstract NavigableSet<PrioritizedPartPos> getNonEmptyPositions();
+    protected abstract NavigableSet<PrioritizedPartPos> getMatchingPositions(@Nonnull T prototype, M matchFlags);
 
     @Override
     public long getMaxQuantity() {
-        long sum = 0;
-        Iterator<PartPos> it = getAllPositions();
-        while (it.hasNext()) {
-            PartPos pos = it.next();
-            // Skip if the position is not loaded
-            if (!pos.getPos().isLoaded()) {
-                continue;
-            }
-            sum = Math.addExact(sum, this.network.getPositionedStorage(pos).getMaxQuantity());
-        }
-        return sum;
+        return this.network.getChannelMaxQuantity(this.channel);
     }
 
-    protected Pair<IPartPosIteratorHandler, Iterator<PartPos>> getPartPosIteratorData(Supplier<Iterator<PartPos>> iteratorSupplier, int channel) {
+    protected Pair<IPartPosIteratorHandler, Iterator<PartPos>> getPartPosIteratorData(NavigableSet<PrioritizedPartPos> positions,
+                                                                                     int channel) {
         IPartPosIteratorHandler handler = network.getPartPosIteratorHandler();
         if (handler == null) {
             handler = PartPosIteratorHandlerDummy.INSTANCE;
         } else {
             handler = handler.clone();
         }
-        return Pair.of(handler, handler.handleIterator(iteratorSupplier, channel));
+        return Pair.of(handler, handler.handleIterator(positions, channel));
     }
 
     protected void savePartPosIteratorHandler(IPartPosIteratorHandler partPosIteratorHandler) {
         network.setPartPosIteratorHandler(partPosIteratorHandler);
     }
 
-    protected void markStoragePositionChanged(int channel, PartPos targetPos) {
+    /**
+     * Apply a change to the storage at the given position to the index, and make sure it is observed soon.
+     * @param channel The channel of this adapter.
+     * @param targetPos The position of the changed storage.
+     * @param changeType If the instance was inserted or extracted.
+     * @param instance The inserted or extracted instance.
+     */
+    protected void markStoragePositionChanged(int channel, PartPos targetPos,
+                                              IIngredientComponentStorageObservable.Change changeType, T instance) {
+        // An extraction can only remove the position from the index if nothing is left in the storage.
+        boolean completeChange = changeType == IIngredientComponentStorageObservable.Change.DELETION
+                && !this.network.getPositionedStorage(targetPos).iterator().hasNext();
+        this.network.applyStorageChange(targetPos, changeType, completeChange, instance);
         this.network.scheduleObservationForced(channel, targetPos);
     }
 
     @Override
     public T insert(@Nonnull T ingredient, boolean simulate) {
+        return insert(ingredient, simulate, true);
+    }
+
+    protected T insert(@Nonnull T ingredient, boolean simulate, boolean limitsEnabled) {
         IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
 
         // Quickly return if the to-be-inserted ingredient was already empty
@@ -109,7 +122,7 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
         // Limit rate
         long skippedQuantity = 0;
         T ingredientOriginal = ingredient;
-        if (this.limitsEnabled) {
+        if (limitsEnabled) {
             long limit = network.getRateLimit();
             long currentQuantity = matcher.getQuantity(ingredient);
             if (currentQuantity > limit) {
@@ -120,7 +133,7 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
 
         // Try inserting the ingredient at all positions that are not full,
         // until the ingredient becomes completely empty.
-        Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(this::getNonFullPositions, channel);
+        Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(getNonFullPositions(), channel);
         Iterator<PartPos> it = partPosIteratorData.getRight();
         while (it.hasNext()) {
             PartPos pos = it.next();
@@ -129,12 +142,14 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
                 continue;
             }
             this.network.disablePosition(pos);
+            T ingredientBefore = ingredient;
             long quantityBefore = matcher.getQuantity(ingredient);
             ingredient = this.network.getPositionedStorage(pos).insert(ingredient, simulate);
             long quantityAfter = matcher.getQuantity(ingredient);
             this.network.enablePosition(pos);
             if (!simulate && quantityBefore != quantityAfter) {
-                markStoragePositionChanged(channel, pos);
+                markStoragePositionChanged(channel, pos, IIngredientComponentStorageObservable.Change.ADDITION,
+                        matcher.withQuantity(ingredientBefore, quantityBefore - quantityAfter));
             }
             if (matcher.isEmpty(ingredient)) {
                 break;
@@ -156,16 +171,20 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
 
     @Override
     public T extract(long maxQuantity, boolean simulate) {
+        return extract(maxQuantity, simulate, true);
+    }
+
+    protected T extract(long maxQuantity, boolean simulate, boolean limitsEnabled) {
         IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
 
         // Limit rate
-        if (this.limitsEnabled) {
+        if (limitsEnabled) {
             maxQuantity = (int) Math.min(maxQuantity, network.getRateLimit());
         }
 
         // Try extracting from all non-empty positions
         // until one succeeds.
-        Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(this::getNonEmptyPositions, channel);
+        Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(getNonEmptyPositions(), channel);
         Iterator<PartPos> it = partPosIteratorData.getRight();
         while (it.hasNext()) {
             PartPos pos = it.next();
@@ -178,7 +197,7 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
             this.network.enablePosition(pos);
             if (!matcher.isEmpty(extracted)) {
                 if (!simulate) {
-                    markStoragePositionChanged(channel, pos);
+                    markStoragePositionChanged(channel, pos, IIngredientComponentStorageObservable.Change.DELETION, extracted);
                     savePartPosIteratorHandler(partPosIteratorData.getLeft());
                 }
                 return extracted;
@@ -197,11 +216,15 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
 
     @Override
     public T extract(@Nonnull T prototype, M matchFlags, boolean simulate) {
+        return extract(prototype, matchFlags, simulate, true);
+    }
+
+    protected T extract(@Nonnull T prototype, M matchFlags, boolean simulate, boolean limitsEnabled) {
         IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
         boolean checkQuantity = matcher.hasCondition(matchFlags, getComponent().getPrimaryQuantifier().getMatchCondition());
 
         // Limit rate
-        if (this.limitsEnabled) {
+        if (limitsEnabled) {
             long limit = network.getRateLimit();
             if (matcher.getQuantity(prototype) > limit) {
                 // Fail immediately if we require more than the limit
@@ -229,7 +252,7 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
 
         // Try extracting from all positions that match with the given conditions
         // until one succeeds.
-        Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(() -> this.getMatchingPositions(prototypeFinal, finalMatchFlags), channel);
+        Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(getMatchingPositions(prototypeFinal, finalMatchFlags), channel);
         Iterator<PartPos> it = partPosIteratorData.getRight();
         while (it.hasNext()) {
             PartPos pos = it.next();
@@ -293,6 +316,224 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
         return finalizeExtraction(maxInstance, matchFlags, maxValue, simulate);
     }
 
+    @Override
+    public List<T> insertAll(List<T> ingredients, boolean simulate) {
+        return insertAll(ingredients, simulate, true);
+    }
+
+    protected List<T> insertAll(List<T> ingredients, boolean simulate, boolean limitsEnabled) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        int count = ingredients.size();
+        List<T> remaining = Lists.newArrayList(ingredients);
+        long[] skippedQuantities = new long[count];
+        int pending = 0;
+        for (int i = 0; i < count; i++) {
+            T ingredient = remaining.get(i);
+            if (!matcher.isEmpty(ingredient)) {
+                // Limit rate
+                if (limitsEnabled) {
+                    long limit = network.getRateLimit();
+                    long currentQuantity = matcher.getQuantity(ingredient);
+                    if (currentQuantity > limit) {
+                        remaining.set(i, matcher.withQuantity(ingredient, limit));
+                        skippedQuantities[i] = currentQuantity - limit;
+                    }
+                }
+                pending++;
+            }
+        }
+
+        // Visit each position that is not full only once, and insert all remaining ingredients in it,
+        // until all ingredients become completely empty.
+        if (pending > 0) {
+            Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(getNonFullPositions(), channel);
+            Iterator<PartPos> it = partPosIteratorData.getRight();
+            while (pending > 0 && it.hasNext()) {
+                PartPos pos = it.next();
+                // Skip if the position is not loaded
+                if (!pos.getPos().isLoaded()) {
+                    continue;
+                }
+                IIngredientComponentStorage<T, M> storage = this.network.getPositionedStorage(pos);
+                List<T> inserted = null;
+                this.network.disablePosition(pos);
+                for (int i = 0; i < count; i++) {
+                    T ingredient = remaining.get(i);
+                    if (!matcher.isEmpty(ingredient)) {
+                        T ingredientRemaining = storage.insert(ingredient, simulate);
+                        long quantityInserted = matcher.getQuantity(ingredient) - matcher.getQuantity(ingredientRemaining);
+                        if (quantityInserted != 0) {
+                            if (!simulate) {
+                                if (inserted == null) {
+                                    inserted = Lists.newArrayList();
+                                }
+                                inserted.add(matcher.withQuantity(ingredient, quantityInserted));
+                            }
+                            remaining.set(i, ingredientRemaining);
+                            if (matcher.isEmpty(ingredientRemaining)) {
+                                pending--;
+                            }
+                        }
+                    }
+                }
+                this.network.enablePosition(pos);
+                if (inserted != null) {
+                    for (T instance : inserted) {
+                        markStoragePositionChanged(channel, pos, IIngredientComponentStorageObservable.Change.ADDITION, instance);
+                    }
+                }
+            }
+
+            if (!simulate) {
+                savePartPosIteratorHandler(partPosIteratorData.getLeft());
+            }
+        }
+
+        // Re-add skipped quantities to response if applicable
+        for (int i = 0; i < count; i++) {
+            if (skippedQuantities[i] > 0) {
+                remaining.set(i, matcher.withQuantity(ingredients.get(i),
+                        skippedQuantities[i] + matcher.getQuantity(remaining.get(i))));
+            }
+        }
+
+        return remaining;
+    }
+
+    @Override
+    public List<T> extractAll(List<T> prototypes, M matchFlags, boolean simulate) {
+        return extractAll(prototypes, matchFlags, simulate, true);
+    }
+
+    protected List<T> extractAll(List<T> prototypes, M matchFlags, boolean simulate, boolean limitsEnabled) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        boolean checkQuantity = matcher.hasCondition(matchFlags, getComponent().getPrimaryQuantifier().getMatchCondition());
+
+        // Modify our match condition that will be used to test each separate interface
+        M finalMatchFlags = checkQuantity
+                ? matcher.withoutCondition(matchFlags, getComponent().getPrimaryQuantifier().getMatchCondition())
+                : matchFlags;
+
+        // Plan which positions may provide which prototypes, so that each position is only visited once.
+        // Positions are sorted by priority, like the positions of a single extraction.
+        List<ExtractionRequest<T, M>> requests = Lists.newArrayListWithExpectedSize(prototypes.size());
+        TreeMap<PrioritizedPartPos, List<ExtractionRequest<T, M>>> positionRequests = Maps.newTreeMap();
+        Map<PartPos, List<ExtractionRequest<T, M>>> positionRequestsUnsorted = Maps.newHashMap();
+        int pending = 0;
+        for (T prototype : prototypes) {
+            // Limit rate
+            if (limitsEnabled) {
+                long limit = network.getRateLimit();
+                if (matcher.getQuantity(prototype) > limit) {
+                    // Fail immediately if we require more than the limit,
+                    // otherwise, we reduce our requested quantity
+                    prototype = checkQuantity ? null : matcher.withQuantity(prototype, limit);
+                }
+            }
+
+            ExtractionRequest<T, M> request = new ExtractionRequest<>(getComponent(), prototype);
+            requests.add(request);
+            if (prototype != null) {
+                pending++;
+                for (PrioritizedPartPos prioritizedPos : getMatchingPositions(prototype, finalMatchFlags)) {
+                    PartPos pos = prioritizedPos.getPartPos();
+                    List<ExtractionRequest<T, M>> requestsAtPos = positionRequestsUnsorted.get(pos);
+                    if (requestsAtPos == null) {
+                        requestsAtPos = Lists.newArrayList();
+                        positionRequestsUnsorted.put(pos, requestsAtPos);
+                        positionRequests.put(prioritizedPos, requestsAtPos);
+                    }
+                    requestsAtPos.add(request);
+                }
+            }
+        }
+
+        // Do simulated extractions from all planned positions until all requests are satisfied.
+        Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(positionRequests.navigableKeySet(), channel);
+        Iterator<PartPos> it = partPosIteratorData.getRight();
+        while (pending > 0 && it.hasNext()) {
+            PartPos pos = it.next();
+            // Skip if the position is not loaded
+            if (!pos.getPos().isLoaded()) {
+                continue;
+            }
+            IIngredientComponentStorage<T, M> storage = this.network.getPositionedStorage(pos);
+            this.network.disablePosition(pos);
+            pending -= simulateExtractions(getComponent(), pos, storage, positionRequestsUnsorted.get(pos), finalMatchFlags);
+            this.network.enablePosition(pos);
+        }
+
+        // Save the iterator state before extracting
+        if (!simulate) {
+            savePartPosIteratorHandler(partPosIteratorData.getLeft());
+        }
+
+        List<T> extracted = Lists.newArrayListWithExpectedSize(requests.size());
+        for (ExtractionRequest<T, M> request : requests) {
+            extracted.add(request.finalizeExtraction(this, checkQuantity, finalMatchFlags, simulate));
+        }
+        return extracted;
+    }
+
+    /**
+     * Do simulated extractions for all unsatisfied requests from the storage at the given position.
+     *
+     * Requests may overlap, such as two requests for the same prototype,
+     * so the quantities that earlier requests have planned to take from this position
+     * are not available anymore for later requests.
+     *
+     * @param component The ingredient component.
+     * @param pos The position of the storage.
+     * @param storage The storage.
+     * @param requests The requests that may be provided by the storage, in order.
+     * @param matchFlags The match flags without the quantity condition.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The number of requests that became satisfied.
+     */
+    protected static <T, M> int simulateExtractions(IngredientComponent<T, M> component, PartPos pos,
+                                                   IIngredientComponentStorage<T, M> storage,
+                                                   List<ExtractionRequest<T, M>> requests, M matchFlags) {
+        IIngredientMatcher<T, M> matcher = component.getMatcher();
+        IIngredientMapMutable<T, M, Wrapper<Long>> plannedQuantities = null;
+        int satisfied = 0;
+        for (ExtractionRequest<T, M> request : requests) {
+            if (!request.isSatisfied()) {
+                long requestedQuantity = matcher.getQuantity(request.getPrototype());
+                T extractedSimulated = storage.extract(request.getPrototype(), matchFlags, true);
+                if (plannedQuantities != null && !matcher.isEmpty(extractedSimulated)) {
+                    Wrapper<Long> planned = plannedQuantities.get(matcher.withQuantity(extractedSimulated, 1));
+                    if (planned != null) {
+                        // Ask for the planned quantity on top, and only keep what remains after the planned extractions.
+                        extractedSimulated = storage.extract(matcher.withQuantity(request.getPrototype(),
+                                requestedQuantity + planned.get()), matchFlags, true);
+                        planned = plannedQuantities.get(matcher.withQuantity(extractedSimulated, 1));
+                        long available = matcher.getQuantity(extractedSimulated) - (planned != null ? planned.get() : 0);
+                        extractedSimulated = matcher.withQuantity(extractedSimulated,
+                                Math.max(0, Math.min(available, requestedQuantity)));
+                    }
+                }
+                if (!matcher.isEmpty(extractedSimulated)) {
+                    long plannedQuantity = request.addSimulated(pos, extractedSimulated);
+                    if (plannedQuantities == null) {
+                        plannedQuantities = new IngredientHashMap<>(component);
+                    }
+                    T storagePrototype = matcher.withQuantity(extractedSimulated, 1);
+                    Wrapper<Long> planned = plannedQuantities.get(storagePrototype);
+                    if (planned == null) {
+                        plannedQuantities.put(storagePrototype, new Wrapper<>(plannedQuantity));
+                    } else {
+                        planned.set(planned.get() + plannedQuantity);
+                    }
+                    if (request.isSatisfied()) {
+                        satisfied++;
+                    }
+                }
+            }
+        }
+        return satisfied;
+    }
+
     /**
      * Check if the given instance can be extracted.
      *
@@ -322,7 +563,9 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
                 this.network.disablePosition(pos);
                 T extracted = this.network.getPositionedStorage(pos).extract(instancePrototype, matchFlags, false);
                 this.network.enablePosition(pos);
-                markStoragePositionChanged(channel, pos);
+                if (!matcher.isEmpty(extracted)) {
+                    markStoragePositionChanged(channel, pos, IIngredientComponentStorageObservable.Change.DELETION, extracted);
+                }
                 long thisExtractedAmount = matcher.getQuantity(extracted);
                 toExtract -= thisExtractedAmount;
             }
@@ -341,4 +584,108 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
         this.network.scheduleObservation();
     }
 
+    /**
+     * The state of extracting a single prototype in {@link #extractAll(List, Object, boolean)}.
+     */
+    protected static class ExtractionRequest<T, M> {
+
+        private final IngredientComponent<T, M> component;
+        private final T prototype;
+        private final IIngredientMapMutable<T, M, Pair<Wrapper<Long>, List<PartPos>>> validInstancesCollapsed;
+        private T satisfiedInstance;
+
+        public ExtractionRequest(IngredientComponent<T, M> component, @Nullable T prototype) {
+            this.component = component;
+            this.prototype = prototype;
+            this.validInstancesCollapsed = new IngredientHashMap<>(component);
+            this.satisfiedInstance = null;
+        }
+
+        public T getPrototype() {
+            return prototype;
+        }
+
+        public boolean isSatisfied() {
+            return prototype == null || satisfiedInstance != null;
+        }
+
+        /**
+         * Add a simulated extraction from the given position.
+         * @param pos A position.
+         * @param extractedSimulated The simulated extraction.
+         * @return The quantity that is planned to be extracted from the given position.
+         */
+        public long addSimulated(PartPos pos, T extractedSimulated) {
+            IIngredientMatcher<T, M> matcher = component.getMatcher();
+            T storagePrototype = matcher.withQuantity(extractedSimulated, 1);
+
+            // Get existing value from temporary mapping
+            Pair<Wrapper<Long>, List<PartPos>> existingValue = validInstancesCollapsed.get(storagePrototype);
+            if (existingValue == null) {
+                existingValue = Pair.of(new Wrapper<>(0L), Lists.newLinkedList());
+                validInstancesCollapsed.put(storagePrototype, existingValue);
+            }
+
+            // Update the counter and pos-list for our prototype
+            long oldCount = existingValue.getLeft().get();
+            long newCount = oldCount + matcher.getQuantity(extractedSimulated);
+            existingValue.getLeft().set(newCount);
+            existingValue.getRight().add(pos);
+
+            long requiredQuantity = matcher.getQuantity(prototype);
+            if (newCount >= requiredQuantity) {
+                existingValue.getLeft().set(requiredQuantity);
+                satisfiedInstance = storagePrototype;
+                return requiredQuantity - oldCount;
+            }
+            return matcher.getQuantity(extractedSimulated);
+        }
+
+        /**
+         * @return The instance of which the required quantity was reached, or null if not satisfied.
+         */
+        @Nullable
+        public T getSatisfiedInstance() {
+            return satisfiedInstance;
+        }
+
+        /**
+         * @param instance An instance.
+         * @return The quantity of the given instance that was found so far.
+         */
+        public long getFoundQuantity(T instance) {
+            Pair<Wrapper<Long>, List<PartPos>> value = validInstancesCollapsed.get(component.getMatcher().withQuantity(instance, 1));
+            return value != null ? value.getLeft().get() : 0;
+        }
+
+        public T finalizeExtraction(IngredientChannelAdapter<T, M> channel, boolean checkQuantity, M matchFlags,
+                                    boolean simulate) {
+            IIngredientMatcher<T, M> matcher = component.getMatcher();
+            if (prototype == null) {
+                return matcher.getEmptyInstance();
+            }
+            if (satisfiedInstance != null) {
+                return channel.finalizeExtraction(satisfiedInstance, matchFlags,
+                        validInstancesCollapsed.get(satisfiedInstance), simulate);
+            }
+
+            // Fail if we required an exact quantity
+            if (checkQuantity) {
+                return matcher.getEmptyInstance();
+            }
+
+            // Extract for the instance that had the most matches if we didn't require an exact quantity
+            Pair<Wrapper<Long>, List<PartPos>> maxValue = Pair.of(new Wrapper<>(0L), Lists.newArrayList());
+            T maxInstance = matcher.getEmptyInstance();
+            for (Map.Entry<T, Pair<Wrapper<Long>, List<PartPos>>> entry : validInstancesCollapsed) {
+                if (entry.getValue().getLeft().get() > maxValue.getLeft().get()) {
+                    maxInstance = entry.getKey();
+                    maxValue = entry.getValue();
+                }
+            }
+            return channel.finalizeExtraction(maxInstance, matchFlags, maxValue, simulate);
+        }
+
+    }
+
 }
@@ -1,10 +1,12 @@
 package org.cyclops.integrateddynamics.core.network;
 
 import org.cyclops.integrateddynamics.api.ingredient.IIngredientPositionsIndex;
-import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Iterator;
+import java.util.NavigableSet;
 
 /**
  * An ingredient channel that exploits the network's index.
@@ -17,43 +19,74 @@ public class IngredientChannelIndexed<T, M> extends IngredientChannelAdapter<T,
     private final IIngredientPositionsIndex<T, M> index;
 
     public IngredientChannelIndexed(PositionedAddonsNetworkIngredients<T, M> network, int channel,
-                                    IIngredientPositionsIndex<T, M> index) {
+                                    @Nullable IIngredientPositionsIndex<T, M> index) {
         super(network, channel);
         this.index = index;
     }
 
+    /**
+     * Create a channel that always uses the current index of the channel in the network,
+     * so that no index has to be looked up or created when the channel is created.
+     * @param network The network.
+     * @param channel The channel id.
+     */
+    public IngredientChannelIndexed(PositionedAddonsNetworkIngredients<T, M> network, int channel) {
+        this(network, channel, null);
+    }
+
+    protected IIngredientPositionsIndex<T, M> getIndex() {
+        return this.index != null ? this.index : getNetwork().getChannelIndex(getChannel());
+    }
+
+    /**
+     * Get the summed quantity of all instances in this channel that match with the given instance.
+     * @param prototype An instance to match, its quantity is ignored for matching.
+     * @param matchFlags Instance match conditions.
+     * @return The indexed quantity.
+     */
+    public long getQuantity(@Nonnull T prototype, M matchFlags) {
+        return getIndex().getQuantity(prototype, matchFlags);
+    }
+
+    /**
+     * @return The summed quantity of all instances in this channel.
+     */
+    public long getTotalQuantity() {
+        return getIndex().getTotalQuantity();
+    }
+
     @Override
-    protected Iterator<PartPos> getNonFullPositions() {
-        return this.getNetwork().getPositions(getChannel()).iterator();
+    protected NavigableSet<PrioritizedPartPos> getNonFullPositions() {
+        return this.getNetwork().getPrioritizedPositions(getChannel());
     }
 
     @Override
-    protected Iterator<PartPos> getAllPositions() {
-        return this.getNetwork().getPositions(getChannel()).iterator();
+    protected NavigableSet<PrioritizedPartPos> getAllPositions() {
+        return this.getNetwork().getPrioritizedPositions(getChannel());
     }
 
     @Override
-    protected Iterator<PartPos> getNonEmptyPositions() {
-        return this.index.getNonEmptyPositions();
+    protected NavigableSet<PrioritizedPartPos> getNonEmptyPositions() {
+        return getIndex().getNonEmptyPrioritizedPositions();
     }
 
     @Override
-    protected Iterator<PartPos> getMatchingPositions(@Nonnull T prototype, M matchFlags) {
-        return this.index.getPositions(prototype, matchFlags);
+    protected NavigableSet<PrioritizedPartPos> getMatchingPositions(@Nonnull T prototype, M matchFlags) {
+        return getIndex().getPrioritizedPositions(prototype, matchFlags);
     }
 
     @Override
     public Iterator<T> iterator() {
-        return this.index.iterator();
+        return getIndex().iterator();
     }
 
     @Override
     public Iterator<T> iterator(@Nonnull T prototype, M matchFlags) {
-        return this.index.iterator(prototype, matchFlags);
+        return getIndex().iterator(prototype, matchFlags);
     }
 
     @Override
     protected boolean canExtract(T extractedSimulated) {
-        return index.getQuantity(extractedSimulated) >= getComponent().getMatcher().getQuantity(extractedSimulated);
+        return getIndex().getQuantity(extractedSimulated) >= getComponent().getMatcher().getQuantity(extractedSimulated);
     }
 }
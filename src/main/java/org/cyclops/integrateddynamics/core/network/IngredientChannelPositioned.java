@@ -2,9 +2,11 @@ package org.cyclops.integrateddynamics.core.network;
 
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
 import javax.annotation.Nonnull;
 import java.util.Iterator;
+import java.util.NavigableSet;
 
 /**
  * An ingredient channel that naively iterates over all positions in the network.
@@ -19,22 +21,22 @@ public class IngredientChannelPositioned<T, M> extends IngredientChannelAdapter<
     }
 
     @Override
-    protected Iterator<PartPos> getNonFullPositions() {
+    protected NavigableSet<PrioritizedPartPos> getNonFullPositions() {
         return getAllPositions();
     }
 
     @Override
-    protected Iterator<PartPos> getAllPositions() {
-        return getNetwork().getPositions(getChannel()).iterator();
+    protected NavigableSet<PrioritizedPartPos> getAllPositions() {
+        return getNetwork().getPrioritizedPositions(getChannel());
     }
 
     @Override
-    protected Iterator<PartPos> getNonEmptyPositions() {
+    protected NavigableSet<PrioritizedPartPos> getNonEmptyPositions() {
         return getAllPositions();
     }
 
     @Override
-    protected Iterator<PartPos> getMatchingPositions(@Nonnull T prototype, M matchFlags) {
+    protected NavigableSet<PrioritizedPartPos> getMatchingPositions(@Nonnull T prototype, M matchFlags) {
         return getAllPositions();
     }
 
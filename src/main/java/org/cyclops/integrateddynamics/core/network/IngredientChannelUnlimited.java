@@ -0,0 +1,68 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageBatched;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A view over an ingredient channel that is not bound by the rate limit of the network.
+ *
+ * @param <T> The instance type.
+ * @param <M> The matching condition parameter.
+ */
+public class IngredientChannelUnlimited<T, M> implements IIngredientComponentStorageBatched<T, M> {
+
+    private final IngredientChannelAdapter<T, M> channel;
+
+    public IngredientChannelUnlimited(IngredientChannelAdapter<T, M> channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public IngredientComponent<T, M> getComponent() {
+        return channel.getComponent();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return channel.iterator();
+    }
+
+    @Override
+    public Iterator<T> iterator(@Nonnull T prototype, M matchCondition) {
+        return channel.iterator(prototype, matchCondition);
+    }
+
+    @Override
+    public long getMaxQuantity() {
+        return channel.getMaxQuantity();
+    }
+
+    @Override
+    public T insert(@Nonnull T ingredient, boolean simulate) {
+        return channel.insert(ingredient, simulate, false);
+    }
+
+    @Override
+    public T extract(@Nonnull T prototype, M matchCondition, boolean simulate) {
+        return channel.extract(prototype, matchCondition, simulate, false);
+    }
+
+    @Override
+    public T extract(long maxQuantity, boolean simulate) {
+        return channel.extract(maxQuantity, simulate, false);
+    }
+
+    @Override
+    public List<T> insertAll(List<T> ingredients, boolean simulate) {
+        return channel.insertAll(ingredients, simulate, false);
+    }
+
+    @Override
+    public List<T> extractAll(List<T> prototypes, M matchFlags, boolean simulate) {
+        return channel.extractAll(prototypes, matchFlags, simulate, false);
+    }
+}
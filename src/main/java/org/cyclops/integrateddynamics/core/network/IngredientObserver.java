@@ -3,19 +3,45 @@ package org.cyclops.integrateddynamics.core.network;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
 import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.ints.IntSets;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.common.FMLCommonHandler;
+import org.apache.logging.log4j.Level;
 import org.cyclops.commoncapabilities.api.capability.inventorystate.IInventoryState;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientSerializer;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorageSlotted;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.cyclopscore.helper.MinecraftHelpers;
 import org.cyclops.cyclopscore.helper.TileHelpers;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollection;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
 import org.cyclops.cyclopscore.ingredient.collection.diff.IngredientCollectionDiff;
 import org.cyclops.cyclopscore.ingredient.collection.diff.IngredientCollectionDiffManager;
 import org.cyclops.integrateddynamics.Capabilities;
 import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.IntegratedDynamics;
 import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageSignaling;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageSlotSignaling;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.api.part.PartTarget;
@@ -23,34 +49,58 @@ import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 import org.cyclops.integrateddynamics.core.network.diagnostics.NetworkDiagnostics;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
 
 /**
  * Instances of this class are able to watch ingredient positions and emit diffs.
  *
+ * The observation state is only modified by the observation job, which may run on a worker thread.
+ * Changes from the main thread to this state are queued, and are applied at the start of the next job.
+ *
  * @author rubensworks
  */
 public class IngredientObserver<T, M> {
 
-    private static final ExecutorService WORKER_POOL = Executors.newFixedThreadPool(GeneralConfig.ingredientNetworkObserverThreads);
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+    private static final ExecutorService WORKER_POOL = new ForkJoinPool(GeneralConfig.ingredientNetworkObserverThreads,
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
 
     private final IPositionedAddonsNetworkIngredients<T, M> network;
 
     private final Set<IIngredientComponentStorageObservable.IIndexChangeObserver<T, M>> changeObservers;
-    private final Int2ObjectMap<Map<PartPos, Integer>> observeTargetTickIntervals;
-    private final Int2ObjectMap<Map<PartPos, Integer>> observeTargetTicks;
+    private final Int2ObjectMap<Int2IntMap> observeTargetTickIntervals;
+    private final Int2ObjectMap<Int2IntMap> observeTargetTicks;
     private final Int2ObjectMap<Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>>> channeledDiffManagers;
+    private final Int2ObjectMap<Map<PrioritizedPartPos, IngredientSlotDiffManager<T, M>>> channeledSlotDiffManagers;
 
     private final Int2ObjectMap<List<PrioritizedPartPos>> lastRemoved;
-    private final Map<PartPos, Integer> lastInventoryStates;
+    private final Int2IntMap lastInventoryStates;
+    private final Object2IntMap<PartPos> positionIds;
+    private final IntArrayFIFOQueue freePositionIds;
+    private final Int2ObjectMap<PositionsSnapshot> positionsSnapshots;
+    private volatile int positionsVersion;
+    private final Map<PartPos, SignalingStorage> signalingStorages;
+    private final Set<PartPos> dirtyPositions;
+    private final Map<PartPos, IntSet> dirtySlots;
+    private final Int2ObjectMap<Map<PrioritizedPartPos, UnobservedChanges<T, M>>> unobservedChanges;
+
+    private final Queue<Runnable> pendingChanges;
+    private boolean observedPositionsChanged;
+    private volatile Int2ObjectMap<Set<PrioritizedPartPos>> observedPositions;
 
-    private CountDownLatch lastObserverBarrier;
+    private volatile CountDownLatch lastObserverBarrier;
+    private volatile boolean remainingWork;
+    private Int2ObjectMap<Map<PrioritizedPartPos, PersistedPosition<T>>> persistedPositions;
 
     public IngredientObserver(IPositionedAddonsNetworkIngredients<T, M> network) {
         this.network = network;
@@ -58,29 +108,268 @@ public class IngredientObserver<T, M> {
         this.observeTargetTickIntervals = new Int2ObjectOpenHashMap<>();
         this.observeTargetTicks = new Int2ObjectOpenHashMap<>();
         this.channeledDiffManagers = new Int2ObjectOpenHashMap<>();
+        this.channeledSlotDiffManagers = new Int2ObjectOpenHashMap<>();
         this.lastRemoved = new Int2ObjectOpenHashMap<>();
-        this.lastInventoryStates = Maps.newHashMap();
+        this.lastInventoryStates = newPositionMap();
+        this.positionIds = new Object2IntOpenHashMap<>();
+        this.positionIds.defaultReturnValue(NO_VALUE);
+        this.freePositionIds = new IntArrayFIFOQueue();
+        this.positionsSnapshots = new Int2ObjectOpenHashMap<>();
+        this.positionsVersion = 0;
+        this.signalingStorages = Maps.newConcurrentMap();
+        this.dirtyPositions = Sets.newConcurrentHashSet();
+        this.dirtySlots = Maps.newConcurrentMap();
+        this.unobservedChanges = new Int2ObjectOpenHashMap<>();
+        this.pendingChanges = Queues.newConcurrentLinkedQueue();
+        this.observedPositionsChanged = false;
+        this.observedPositions = new Int2ObjectOpenHashMap<>();
 
         this.lastObserverBarrier = null;
+        this.remainingWork = false;
+        this.persistedPositions = null;
     }
 
     public IPositionedAddonsNetworkIngredients<T, M> getNetwork() {
         return network;
     }
 
+    /**
+     * This may only be called from the observation job.
+     * @param channel A channel.
+     * @return The positions that were removed since the last observation of the channel.
+     */
     @Nullable
     public List<PrioritizedPartPos> getLastRemoved(int channel) {
         return lastRemoved.get(channel);
     }
 
+    /**
+     * Queue a change to the observation state, which will be applied at the start of the next observation job.
+     * @param change A change.
+     */
+    protected void queueChange(Runnable change) {
+        this.pendingChanges.add(change);
+    }
+
+    protected void applyPendingChanges() {
+        Runnable change;
+        while ((change = this.pendingChanges.poll()) != null) {
+            change.run();
+        }
+    }
+
+    public void onPositionAdded(int channel, PrioritizedPartPos pos) {
+        this.positionsVersion++;
+        queueChange(() -> {
+            // If our position was added to the lastRemoved list without it being processed yet,
+            // remove it from the list before that processing is going to start.
+            List<PrioritizedPartPos> positions = this.lastRemoved.get(channel);
+            if (positions != null) {
+                positions.remove(pos);
+            }
+        });
+    }
+
     public void onPositionRemoved(int channel, PrioritizedPartPos pos) {
+        this.positionsVersion++;
+        unregisterSignalingStorage(pos.getPartPos());
+        queueChange(() -> {
+            addLastRemoved(channel, pos);
+            // Positions are also observed in the channels they are merged into,
+            // such as wildcard positions in all channels.
+            IntSet observedChannels = new IntOpenHashSet();
+            for (Int2ObjectMap.Entry<Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>>> entry : this.channeledDiffManagers.int2ObjectEntrySet()) {
+                if (entry.getValue().containsKey(pos)) {
+                    observedChannels.add(entry.getIntKey());
+                }
+            }
+            for (Int2ObjectMap.Entry<Map<PrioritizedPartPos, IngredientSlotDiffManager<T, M>>> entry : this.channeledSlotDiffManagers.int2ObjectEntrySet()) {
+                if (entry.getValue().containsKey(pos)) {
+                    observedChannels.add(entry.getIntKey());
+                }
+            }
+            for (int observedChannel : observedChannels) {
+                if (observedChannel != channel) {
+                    addLastRemoved(observedChannel, pos);
+                }
+            }
+            int positionId = getPositionIdIfPresent(pos.getPartPos());
+            if (positionId != NO_VALUE) {
+                this.lastInventoryStates.remove(positionId);
+            }
+        });
+    }
+
+    protected void addLastRemoved(int channel, PrioritizedPartPos pos) {
         List<PrioritizedPartPos> positions = this.lastRemoved.get(channel);
         if (positions == null) {
             positions = Lists.newLinkedList();
             this.lastRemoved.put(channel, positions);
         }
         positions.add(pos);
-        this.lastInventoryStates.remove(pos.getPartPos());
+    }
+
+    /**
+     * Forget all observation state of the given channel, as it will not be observed anymore.
+     * @param channel A channel.
+     */
+    public void onChannelRemoved(int channel) {
+        queueChange(() -> {
+            this.channeledDiffManagers.remove(channel);
+            this.channeledSlotDiffManagers.remove(channel);
+            this.observeTargetTicks.remove(channel);
+            this.observeTargetTickIntervals.remove(channel);
+            this.unobservedChanges.remove(channel);
+            this.lastRemoved.remove(channel);
+            this.observedPositionsChanged = true;
+            synchronized (this) {
+                this.positionsSnapshots.remove(channel);
+            }
+        });
+    }
+
+    protected static Int2IntMap newPositionMap() {
+        Int2IntMap map = new Int2IntOpenHashMap();
+        map.defaultReturnValue(NO_VALUE);
+        return map;
+    }
+
+    /**
+     * Get the interned identifier of the given position, which is used to key all per-position state.
+     * @param pos A position.
+     * @return The identifier.
+     */
+    protected synchronized int getPositionId(PartPos pos) {
+        int id = this.positionIds.getInt(pos);
+        if (id == NO_VALUE) {
+            id = this.freePositionIds.isEmpty() ? this.positionIds.size() : this.freePositionIds.dequeueInt();
+            this.positionIds.put(pos, id);
+        }
+        return id;
+    }
+
+    protected synchronized int getPositionIdIfPresent(PartPos pos) {
+        return this.positionIds.getInt(pos);
+    }
+
+    /**
+     * Forget all per-position state of the given position, if it is not present in the network anymore.
+     * @param pos A position.
+     */
+    protected synchronized void releasePositionId(PartPos pos) {
+        if (getNetwork().getPrioritizedPosition(pos) != null) {
+            return;
+        }
+        int id = this.positionIds.removeInt(pos);
+        if (id != NO_VALUE) {
+            for (Int2IntMap channelTicks : this.observeTargetTicks.values()) {
+                channelTicks.remove(id);
+            }
+            for (Int2IntMap channelIntervals : this.observeTargetTickIntervals.values()) {
+                channelIntervals.remove(id);
+            }
+            this.lastInventoryStates.remove(id);
+            this.freePositionIds.enqueue(id);
+        }
+    }
+
+    /**
+     * Indicate that the storage at the given position has changed,
+     * so that it will be observed in the next observation, even if it is not polled.
+     * @param pos A position.
+     */
+    public void markDirty(PartPos pos) {
+        this.dirtyPositions.add(pos);
+        getNetwork().scheduleObservation();
+    }
+
+    /**
+     * Indicate that the given slot of the storage at the given position has changed.
+     * @param pos A position.
+     * @param slot A slot id.
+     */
+    public void markSlotDirty(PartPos pos, int slot) {
+        this.dirtySlots.computeIfAbsent(pos, p -> IntSets.synchronize(new IntOpenHashSet())).add(slot);
+        markDirty(pos);
+    }
+
+    /**
+     * Take the slots that have changed since the last call for the given position.
+     * @param pos A position.
+     * @return The changed slots, or null if all slots must be inspected.
+     */
+    @Nullable
+    protected IntSet drainDirtySlots(PartPos pos) {
+        SignalingStorage signalingStorage = this.signalingStorages.get(pos);
+        if (signalingStorage == null || signalingStorage.slotListener == null) {
+            return null;
+        }
+        IntSet slots = this.dirtySlots.remove(pos);
+        if (signalingStorage.fullRescan) {
+            signalingStorage.fullRescan = false;
+            return null;
+        }
+        if (slots == null) {
+            return IntSets.EMPTY_SET;
+        }
+        synchronized (slots) {
+            return new IntOpenHashSet(slots);
+        }
+    }
+
+    /**
+     * @param pos A position.
+     * @return If the storage at the given position signals which of its slots have changed.
+     */
+    protected boolean isSlotSignaling(PartPos pos) {
+        SignalingStorage signalingStorage = this.signalingStorages.get(pos);
+        return signalingStorage != null && signalingStorage.slotListener != null;
+    }
+
+    /**
+     * Start listening to changes of the storage at the given position, if it can signal its changes.
+     * @param pos A position.
+     */
+    protected void registerSignalingStorage(PartPos pos) {
+        IIngredientComponentStorage<T, M> storage = getNetwork().getPositionedStorageUnsafe(pos);
+        if (storage instanceof IIngredientComponentStorageSignaling) {
+            SignalingStorage signalingStorage;
+            if (GeneralConfig.ingredientNetworkObserverSlotDiffing
+                    && storage instanceof IIngredientComponentStorageSlotSignaling
+                    && storage instanceof IIngredientComponentStorageSlotted) {
+                // Changes that are not bound to a slot require all slots to be inspected again.
+                signalingStorage = new SignalingStorage((IIngredientComponentStorageSignaling) storage, () -> {
+                    SignalingStorage current = this.signalingStorages.get(pos);
+                    if (current != null) {
+                        current.fullRescan = true;
+                    }
+                    markDirty(pos);
+                }, slot -> markSlotDirty(pos, slot));
+                ((IIngredientComponentStorageSlotSignaling) storage).addSlotChangeListener(signalingStorage.slotListener);
+            } else {
+                signalingStorage = new SignalingStorage((IIngredientComponentStorageSignaling) storage,
+                        () -> markDirty(pos), null);
+            }
+            signalingStorage.storage.addChangeListener(signalingStorage.listener);
+            this.signalingStorages.put(pos, signalingStorage);
+        }
+    }
+
+    /**
+     * Stop listening to changes of the storage at the given position.
+     * The position will be polled again.
+     * @param pos A position.
+     */
+    protected void unregisterSignalingStorage(PartPos pos) {
+        SignalingStorage signalingStorage = this.signalingStorages.remove(pos);
+        if (signalingStorage != null) {
+            signalingStorage.storage.removeChangeListener(signalingStorage.listener);
+            if (signalingStorage.slotListener != null) {
+                ((IIngredientComponentStorageSlotSignaling) signalingStorage.storage)
+                        .removeSlotChangeListener(signalingStorage.slotListener);
+            }
+            this.dirtySlots.remove(pos);
+        }
     }
 
     /**
@@ -119,6 +408,52 @@ public class IngredientObserver<T, M> {
         }
     }
 
+    /**
+     * Emit a change that the network itself has made to the storage at a position, without observing it.
+     *
+     * The change is remembered until the position is observed again,
+     * so that this observation only emits the differences that were not emitted yet.
+     * This must be called from the thread that updates the network.
+     *
+     * @param event A change event.
+     */
+    public void emitStorageChange(IIngredientComponentStorageObservable.StorageChangeEvent<T, M> event) {
+        queueChange(() -> {
+            Map<PrioritizedPartPos, UnobservedChanges<T, M>> channelChanges = this.unobservedChanges.get(event.getChannel());
+            if (channelChanges == null) {
+                channelChanges = Maps.newHashMap();
+                this.unobservedChanges.put(event.getChannel(), channelChanges);
+            }
+            UnobservedChanges<T, M> changes = channelChanges.get(event.getPos());
+            if (changes == null) {
+                changes = new UnobservedChanges<>(network.getComponent());
+                channelChanges.put(event.getPos(), changes);
+            }
+            changes.add(event.getChangeType(), event.getInstances());
+        });
+        for (IIngredientComponentStorageObservable.IIndexChangeObserver<T, M> observer : getObserversCopy()) {
+            observer.onChange(event);
+        }
+    }
+
+    protected boolean hasUnobservedChanges(int channel, PrioritizedPartPos partPos) {
+        Map<PrioritizedPartPos, UnobservedChanges<T, M>> channelChanges = this.unobservedChanges.get(channel);
+        return channelChanges != null && channelChanges.containsKey(partPos);
+    }
+
+    @Nullable
+    protected UnobservedChanges<T, M> takeUnobservedChanges(int channel, PrioritizedPartPos partPos) {
+        Map<PrioritizedPartPos, UnobservedChanges<T, M>> channelChanges = this.unobservedChanges.get(channel);
+        if (channelChanges == null) {
+            return null;
+        }
+        UnobservedChanges<T, M> changes = channelChanges.remove(partPos);
+        if (channelChanges.isEmpty()) {
+            this.unobservedChanges.remove(channel);
+        }
+        return changes;
+    }
+
     protected synchronized List<IIngredientComponentStorageObservable.IIndexChangeObserver<T, M>> getObserversCopy() {
         return Lists.newArrayList(this.changeObservers);
     }
@@ -141,51 +476,159 @@ public class IngredientObserver<T, M> {
         return uniqueChannels.toIntArray();
     }
 
-    protected void observe() {
+    /**
+     * Start observing all positions that are due.
+     * @return If the observation was started,
+     *         otherwise the job of a previous observation is still running, and this should be retried later.
+     */
+    protected boolean observe() {
         if (!this.changeObservers.isEmpty()) {
             if (GeneralConfig.ingredientNetworkObserverEnableMultithreading) {
-                // If we still have an uncompleted job from the previous tick, wait for it to finish first!
-                if (this.lastObserverBarrier != null) {
-                    try {
-                        this.lastObserverBarrier.await(1, TimeUnit.SECONDS);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
+                // If we still have an uncompleted job from a previous tick, don't wait for it, but retry later.
+                CountDownLatch lastObserverBarrier = this.lastObserverBarrier;
+                if (lastObserverBarrier != null && lastObserverBarrier.getCount() > 0) {
+                    return false;
                 }
 
                 // Schedule the observation job
-                this.lastObserverBarrier = new CountDownLatch(1);
+                CountDownLatch observerBarrier = new CountDownLatch(1);
+                this.lastObserverBarrier = observerBarrier;
+                Set<PartPos> dirtyPositions = drainDirtyPositions();
                 WORKER_POOL.execute(() -> {
-                    for (int channel : getChannels()) {
-                        observe(channel);
+                    try {
+                        observeChannels(dirtyPositions);
+                    } finally {
+                        observerBarrier.countDown();
                     }
-                    CountDownLatch lastObserverBarrier = this.lastObserverBarrier;
-                    this.lastObserverBarrier = null;
-                    lastObserverBarrier.countDown();
                 });
             } else {
-                for (int channel : getChannels()) {
-                    observe(channel);
+                observeChannels(drainDirtyPositions());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return If the last observation was not able to observe all due positions before its deadline.
+     */
+    public boolean hasRemainingWork() {
+        return remainingWork;
+    }
+
+    /**
+     * Observe all channels until the deadline of this job is reached.
+     * Each channel gets an equal share of the remaining time,
+     * so that one large channel can not starve the others.
+     * @param dirtyPositions The positions that have signalled a change since the last observation.
+     */
+    protected void observeChannels(Set<PartPos> dirtyPositions) {
+        applyPendingChanges();
+        this.remainingWork = false;
+        int[] channels = getChannels();
+        long budget = GeneralConfig.ingredientNetworkObserverJobBudgetNs;
+        long deadline = budget > 0 ? System.nanoTime() + budget : Long.MAX_VALUE;
+        for (int i = 0; i < channels.length; i++) {
+            long channelDeadline = deadline;
+            if (deadline != Long.MAX_VALUE) {
+                long now = System.nanoTime();
+                channelDeadline = now + Math.max(0, deadline - now) / (channels.length - i);
+            }
+            observe(channels[i], dirtyPositions, channelDeadline);
+        }
+        publishObservedPositions();
+    }
+
+    /**
+     * Publish the positions that are currently observed, if they have changed,
+     * so that they can be read from other threads without waiting for the observation job.
+     */
+    protected void publishObservedPositions() {
+        if (this.observedPositionsChanged) {
+            this.observedPositionsChanged = false;
+            Int2ObjectMap<Set<PrioritizedPartPos>> observedPositions = new Int2ObjectOpenHashMap<>();
+            IntSet channels = new IntOpenHashSet(this.channeledDiffManagers.keySet());
+            channels.addAll(this.channeledSlotDiffManagers.keySet());
+            for (int channel : channels) {
+                Set<PrioritizedPartPos> positions = Sets.newHashSet();
+                Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>> diffManagers = this.channeledDiffManagers.get(channel);
+                if (diffManagers != null) {
+                    positions.addAll(diffManagers.keySet());
+                }
+                Map<PrioritizedPartPos, IngredientSlotDiffManager<T, M>> slotDiffManagers = this.channeledSlotDiffManagers.get(channel);
+                if (slotDiffManagers != null) {
+                    positions.addAll(slotDiffManagers.keySet());
+                }
+                if (!positions.isEmpty()) {
+                    observedPositions.put(channel, positions);
                 }
             }
+            this.observedPositions = observedPositions;
+        }
+    }
+
+    protected Set<PartPos> drainDirtyPositions() {
+        if (this.dirtyPositions.isEmpty()) {
+            return Collections.emptySet();
         }
+        Set<PartPos> dirtyPositions = Sets.newHashSet();
+        Iterator<PartPos> it = this.dirtyPositions.iterator();
+        while (it.hasNext()) {
+            dirtyPositions.add(it.next());
+            it.remove();
+        }
+        return dirtyPositions;
     }
 
     protected synchronized Set<PrioritizedPartPos> getPositionsCopy(int channel) {
         return Sets.newHashSet(getNetwork().getPrioritizedPositions(channel));
     }
 
-    protected void observe(int channel) {
+    /**
+     * Get the positions of the given channel, together with their identifiers.
+     * The snapshot is only recreated after positions have been added or removed.
+     * @param channel A channel.
+     * @return A snapshot of the positions.
+     */
+    protected synchronized PositionsSnapshot getPositionsSnapshot(int channel) {
+        int version = this.positionsVersion;
+        PositionsSnapshot snapshot = this.positionsSnapshots.get(channel);
+        if (snapshot == null || snapshot.version != version) {
+            Collection<PrioritizedPartPos> positions = getNetwork().getPrioritizedPositions(channel);
+            PrioritizedPartPos[] positionsArray = positions.toArray(new PrioritizedPartPos[0]);
+            int[] ids = new int[positionsArray.length];
+            for (int i = 0; i < positionsArray.length; i++) {
+                ids[i] = getPositionId(positionsArray[i].getPartPos());
+            }
+            // Approximately continue where the previous snapshot was left.
+            int cursor = snapshot == null || positionsArray.length == 0 ? 0 : Math.min(snapshot.cursor, positionsArray.length - 1);
+            snapshot = new PositionsSnapshot(version, positionsArray, ids, cursor);
+            this.positionsSnapshots.put(channel, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Observe all positions in the given channel that are due.
+     *
+     * If the deadline is reached, the remaining positions will be observed first in the next observation.
+     * At least one position is always observed, so that each channel makes progress.
+     *
+     * @param channel A channel.
+     * @param dirtyPositions The positions that have signalled a change since the last observation.
+     * @param deadline The {@link System#nanoTime()} at which observing positions should stop.
+     */
+    protected void observe(int channel, Set<PartPos> dirtyPositions, long deadline) {
         int currentTick = getCurrentTick();
+        boolean eventDriven = GeneralConfig.ingredientNetworkObserverEventDriven;
 
         // Prepare ticking collections
-        Map<PartPos, Integer> channelTargetTicks = observeTargetTicks.get(channel);
+        Int2IntMap channelTargetTicks = observeTargetTicks.get(channel);
         if (channelTargetTicks == null) {
-            channelTargetTicks = Maps.newHashMap();
+            channelTargetTicks = newPositionMap();
         }
-        Map<PartPos, Integer> channelIntervals = this.observeTargetTickIntervals.get(channel);
+        Int2IntMap channelIntervals = this.observeTargetTickIntervals.get(channel);
         if (channelIntervals == null) {
-            channelIntervals = Maps.newHashMap();
+            channelIntervals = newPositionMap();
         }
 
         // Calculate diff of all positions
@@ -194,6 +637,11 @@ public class IngredientObserver<T, M> {
             diffManagers = Maps.newHashMap();
             this.channeledDiffManagers.put(channel, diffManagers);
         }
+        Map<PrioritizedPartPos, IngredientSlotDiffManager<T, M>> slotDiffManagers = this.channeledSlotDiffManagers.get(channel);
+        if (slotDiffManagers == null) {
+            slotDiffManagers = Maps.newHashMap();
+            this.channeledSlotDiffManagers.put(channel, slotDiffManagers);
+        }
 
         // Check if we should diagnoze the observer
         boolean isBeingDiagnozed = NetworkDiagnostics.getInstance().isBeingDiagnozed();
@@ -204,63 +652,115 @@ public class IngredientObserver<T, M> {
         }
 
         // Emit diffs for all current positions
-        Set<PrioritizedPartPos> positions = getPositionsCopy(channel);
-        for (PrioritizedPartPos partPos : positions) {
+        PositionsSnapshot positions = getPositionsSnapshot(channel);
+        int positionsCount = positions.positions.length;
+        int start = positions.cursor;
+        for (int n = 0; n < positionsCount; n++) {
+            int i = (start + n) % positionsCount;
+            if (n > 0 && deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+                // Continue at this position in the next observation.
+                // Signals of positions that were not reached are kept for that observation.
+                positions.cursor = i;
+                this.remainingWork = true;
+                for (int m = n; m < positionsCount; m++) {
+                    PartPos remainingPos = positions.positions[(start + m) % positionsCount].getPartPos();
+                    if (dirtyPositions.contains(remainingPos)) {
+                        this.dirtyPositions.add(remainingPos);
+                    }
+                }
+                break;
+            }
+            PrioritizedPartPos partPos = positions.positions[i];
+            int positionId = positions.ids[i];
             // Get current time if diagnostics are enabled
             long startTime = 0;
             if (isBeingDiagnozed) {
                 startTime = System.nanoTime();
             }
 
-            // Check if we should observe this position in this tick
-            int lastTick = channelTargetTicks.getOrDefault(partPos.getPartPos(), currentTick);
-            if (lastTick <= currentTick) {
+            // Check if we should observe this position in this tick.
+            // Storages that signal their changes are only observed after a change,
+            // other storages are polled at their tick interval.
+            boolean shouldObserve;
+            if (this.signalingStorages.containsKey(partPos.getPartPos())) {
+                if (!eventDriven || !partPos.getPartPos().getPos().isLoaded()) {
+                    // The storage may be replaced when its chunk is reloaded, so start polling it again.
+                    unregisterSignalingStorage(partPos.getPartPos());
+                    shouldObserve = true;
+                } else {
+                    shouldObserve = dirtyPositions.contains(partPos.getPartPos());
+                }
+            } else {
+                int lastTick = channelTargetTicks.get(positionId);
+                if (lastTick == NO_VALUE) {
+                    lastTick = currentTick;
+                }
+                shouldObserve = lastTick <= currentTick;
+            }
+            if (shouldObserve) {
                 // If an inventory state is exposed, check if it has changed since the last observation call.
                 boolean skipPosition = false;
 
                 // Skip position forcefully if it is not loaded
                 if (!partPos.getPartPos().getPos().isLoaded()) {
                     skipPosition = true;
+                    getNetwork().setPositionMaxQuantity(partPos.getPartPos(), 0);
                 }
 
                 if (!skipPosition) {
                     IInventoryState inventoryState = TileHelpers.getCapability(partPos.getPartPos().getPos(),
                             partPos.getPartPos().getSide(), Capabilities.INVENTORY_STATE);
                     if (inventoryState != null) {
-                        Integer lastState = this.lastInventoryStates.get(partPos.getPartPos());
+                        boolean hasLastState = this.lastInventoryStates.containsKey(positionId);
                         int newState = inventoryState.getHash();
-                        if (lastState != null && lastState == newState) {
+                        if (hasLastState && this.lastInventoryStates.get(positionId) == newState
+                                && !hasUnobservedChanges(channel, partPos)) {
                             // Skip this position if it hasn't not changed
                             skipPosition = true;
                         } else {
-                            this.lastInventoryStates.put(partPos.getPartPos(), newState);
+                            this.lastInventoryStates.put(positionId, newState);
                         }
                     }
                 }
 
                 if (!skipPosition) {
-                    IngredientCollectionDiffManager<T, M> diffManager = diffManagers.get(partPos);
-                    if (diffManager == null) {
-                        diffManager = new IngredientCollectionDiffManager<>(network.getComponent());
-                        diffManagers.put(partPos, diffManager);
-                    }
+                    IIngredientComponentStorage<T, M> storage = getNetwork().getPositionedStorage(partPos.getPartPos());
+                    boolean hasChanges;
+                    if (GeneralConfig.ingredientNetworkObserverSlotDiffing && storage instanceof IIngredientComponentStorageSlotted
+                            && isSlotSignaling(partPos.getPartPos())) {
+                        hasChanges = observeSlotted(channel, partPos, (IIngredientComponentStorageSlotted<T, M>) storage,
+                                diffManagers, slotDiffManagers);
+                    } else {
+                        // Without slot signals, all slots would have to be inspected anyways,
+                        // so the full contents are compared instead of keeping a copy of each slot.
+                        // The storage may also have stopped signaling its slots, or slot diffing may have been disabled.
+                        IngredientSlotDiffManager<T, M> slotDiffManager = slotDiffManagers.remove(partPos);
+                        IngredientCollectionDiffManager<T, M> diffManager = diffManagers.get(partPos);
+                        if (diffManager == null) {
+                            diffManager = new IngredientCollectionDiffManager<>(network.getComponent());
+                            diffManagers.put(partPos, diffManager);
+                            this.observedPositionsChanged = true;
+                            if (slotDiffManager != null) {
+                                // Continue from the last known contents.
+                                diffManager.onChange(slotDiffManager.onClear().getDeletions().iterator());
+                            }
+                        }
 
-                    // Emit event of diff
-                    IngredientCollectionDiff<T, M> diff = diffManager.onChange(getNetwork().getRawInstances(partPos.getPartPos()));
-                    boolean hasChanges = false;
-                    if (diff.hasAdditions()) {
-                        hasChanges = true;
-                        this.emitEvent(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
-                                IIngredientComponentStorageObservable.Change.ADDITION, false, diff.getAdditions()));
+                        // Emit event of diff
+                        getNetwork().setPositionMaxQuantity(partPos.getPartPos(), storage.getMaxQuantity());
+                        IngredientCollectionDiff<T, M> diff = diffManager.onChange(getNetwork().getRawInstances(partPos.getPartPos()));
+                        hasChanges = emitDiff(channel, partPos, diff.hasAdditions() ? diff.getAdditions() : null,
+                                diff.hasDeletions() ? diff.getDeletions() : null, diff.isCompletelyEmpty());
                     }
-                    if (diff.hasDeletions()) {
-                        hasChanges = true;
-                        this.emitEvent(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
-                                IIngredientComponentStorageObservable.Change.DELETION, diff.isCompletelyEmpty(), diff.getDeletions()));
+                    if (eventDriven && !this.signalingStorages.containsKey(partPos.getPartPos())) {
+                        registerSignalingStorage(partPos.getPartPos());
                     }
 
                     // Update the next tick value
-                    int tickInterval = channelIntervals.getOrDefault(partPos.getPartPos(), GeneralConfig.ingredientNetworkObserverFrequencyMax);
+                    int tickInterval = channelIntervals.get(positionId);
+                    if (tickInterval == NO_VALUE) {
+                        tickInterval = GeneralConfig.ingredientNetworkObserverFrequencyMax;
+                    }
                     // Decrease the frequency when changes were detected
                     // Increase the frequency when no changes were detected
                     // This will make it so that quickly changing storages will be observed
@@ -281,16 +781,16 @@ public class IngredientObserver<T, M> {
                     // definitely also cause this part to tick in next tick.
                     // This makes these cases slightly faster, as no map updates are needed.
                     if (tickInterval != 1) {
-                        channelTargetTicks.put(partPos.getPartPos(), currentTick + tickInterval);
+                        channelTargetTicks.put(positionId, currentTick + tickInterval);
 
                     }
                     // Only update when the interval has changed.
                     // In most cases, this will remain the same.
                     if (tickIntervalChanged) {
                         if (tickInterval != GeneralConfig.ingredientNetworkObserverFrequencyMax) {
-                            channelIntervals.put(partPos.getPartPos(), tickInterval);
+                            channelIntervals.put(positionId, tickInterval);
                         } else {
-                            channelIntervals.remove(partPos.getPartPos());
+                            channelIntervals.remove(positionId);
                         }
                     }
                 }
@@ -311,17 +811,30 @@ public class IngredientObserver<T, M> {
         // Emit deletions for all removed positions
         List<PrioritizedPartPos> lastRemovedPositions = this.lastRemoved.get(channel);
         if (lastRemovedPositions != null) {
+            this.observedPositionsChanged = true;
+            Set<PrioritizedPartPos> currentPositions = Sets.newHashSet(positions.positions);
             for (PrioritizedPartPos partPos : lastRemovedPositions) {
-                IngredientCollectionDiffManager<T, M> diffManager = diffManagers.get(partPos);
+                if (currentPositions.contains(partPos)) {
+                    // The position was added again in a channel into which it is merged, so it is still observed.
+                    continue;
+                }
+                IngredientSlotDiffManager<T, M> slotDiffManager = slotDiffManagers.remove(partPos);
+                if (slotDiffManager != null) {
+                    IngredientSlotDiffManager.Diff<T, M> diff = slotDiffManager.onClear();
+                    emitDiff(channel, partPos, null, diff.hasDeletions() ? diff.getDeletions() : null, true);
+                }
+                IngredientCollectionDiffManager<T, M> diffManager = diffManagers.remove(partPos);
                 if (diffManager != null) {
                     // Emit event of diff with *empty* iterator
                     IngredientCollectionDiff<T, M> diff = diffManager.onChange(Iterators.forArray());
                     // No additions are possible
-                    if (diff.hasDeletions()) {
-                        this.emitEvent(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
-                                IIngredientComponentStorageObservable.Change.DELETION, diff.isCompletelyEmpty(), diff.getDeletions()));
-                    }
+                    emitDiff(channel, partPos, null, diff.hasDeletions() ? diff.getDeletions() : null, diff.isCompletelyEmpty());
+                }
+                if (hasUnobservedChanges(channel, partPos)) {
+                    // Revert the changes of the network that were never observed.
+                    emitDiff(channel, partPos, null, null, true);
                 }
+                releasePositionId(partPos.getPartPos());
             }
             this.lastRemoved.remove(channel);
         }
@@ -335,13 +848,324 @@ public class IngredientObserver<T, M> {
         }
     }
 
+    /**
+     * Observe a slotted storage by only comparing the slots that may have changed.
+     * This may only be used for storages that signal their slot changes.
+     * @param channel A channel.
+     * @param partPos A position.
+     * @param storage The slotted storage at the position.
+     * @param diffManagers The collection diff managers of the channel.
+     * @param slotDiffManagers The slot diff managers of the channel.
+     * @return If changes were detected.
+     */
+    protected boolean observeSlotted(int channel, PrioritizedPartPos partPos, IIngredientComponentStorageSlotted<T, M> storage,
+                                     Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>> diffManagers,
+                                     Map<PrioritizedPartPos, IngredientSlotDiffManager<T, M>> slotDiffManagers) {
+        IntSet changedSlots = drainDirtySlots(partPos.getPartPos());
+        if (changedSlots == null) {
+            // The capacity is only updated when all slots are inspected, which includes changes in the number of slots.
+            getNetwork().setPositionMaxQuantity(partPos.getPartPos(), storage.getMaxQuantity());
+        }
+        IngredientSlotDiffManager<T, M> slotDiffManager = slotDiffManagers.get(partPos);
+        if (slotDiffManager == null) {
+            slotDiffManager = new IngredientSlotDiffManager<>(network.getComponent());
+            slotDiffManagers.put(partPos, slotDiffManager);
+            this.observedPositionsChanged = true;
+        }
+        IngredientSlotDiffManager.Diff<T, M> slotDiff = slotDiffManager.onChange(storage, changedSlots);
+
+        // If the contents were known by a collection diff manager, for example after restoring a persisted index,
+        // the first slot snapshot does not represent the actual changes, so diff one last time against the collection.
+        IngredientCollectionDiffManager<T, M> diffManager = diffManagers.remove(partPos);
+        if (diffManager != null) {
+            IngredientCollectionDiff<T, M> diff = diffManager.onChange(getNetwork().getRawInstances(partPos.getPartPos()));
+            return emitDiff(channel, partPos, diff.hasAdditions() ? diff.getAdditions() : null,
+                    diff.hasDeletions() ? diff.getDeletions() : null, diff.isCompletelyEmpty());
+        }
+        return emitDiff(channel, partPos, slotDiff.hasAdditions() ? slotDiff.getAdditions() : null,
+                slotDiff.hasDeletions() ? slotDiff.getDeletions() : null, slotDiff.isCompletelyEmpty());
+    }
+
+    /**
+     * Emit the events for the given changes.
+     * Changes that were already emitted via {@link #emitStorageChange(IIngredientComponentStorageObservable.StorageChangeEvent)}
+     * are not emitted again.
+     * @param channel A channel.
+     * @param partPos A position.
+     * @param additions The added instances, or null if there are none.
+     * @param deletions The deleted instances, or null if there are none.
+     * @param completelyEmpty If the storage is completely empty after the changes.
+     * @return If there were changes.
+     */
+    protected boolean emitDiff(int channel, PrioritizedPartPos partPos, @Nullable IIngredientCollection<T, M> additions,
+                               @Nullable IIngredientCollection<T, M> deletions, boolean completelyEmpty) {
+        UnobservedChanges<T, M> unobservedChanges = takeUnobservedChanges(channel, partPos);
+        if (unobservedChanges != null) {
+            IngredientCollectionPrototypeMap<T, M> remainingAdditions = unobservedChanges.deletions;
+            IngredientCollectionPrototypeMap<T, M> remainingDeletions = unobservedChanges.additions;
+            if (additions != null) {
+                for (T instance : additions) {
+                    remainingAdditions.add(instance);
+                }
+            }
+            if (deletions != null) {
+                for (T instance : deletions) {
+                    remainingDeletions.add(instance);
+                }
+            }
+            UnobservedChanges.cancelCommon(network.getComponent().getMatcher(), remainingAdditions, remainingDeletions);
+            additions = remainingAdditions.isEmpty() ? null : remainingAdditions;
+            deletions = remainingDeletions.isEmpty() ? null : remainingDeletions;
+        }
+        if (additions != null) {
+            this.emitEvent(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
+                    IIngredientComponentStorageObservable.Change.ADDITION, false, additions));
+        }
+        if (deletions != null) {
+            this.emitEvent(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
+                    IIngredientComponentStorageObservable.Change.DELETION, completelyEmpty, deletions));
+        }
+        return additions != null || deletions != null;
+    }
+
+    /**
+     * Write the current contents and inventory state hashes of all loaded observed positions,
+     * so that the index can be restored after loading without having to re-observe all positions.
+     * The observed positions are taken from the last completed observation,
+     * so this does not wait for a running observation job.
+     * @return An NBT tag.
+     */
+    public NBTTagCompound writeToNBT() {
+        IIngredientSerializer<T, M> serializer = network.getComponent().getSerializer();
+        NBTTagList channelsTag = new NBTTagList();
+        for (Int2ObjectMap.Entry<Set<PrioritizedPartPos>> entry : this.observedPositions.int2ObjectEntrySet()) {
+            int channel = entry.getIntKey();
+            NBTTagList positionsTag = new NBTTagList();
+            for (PrioritizedPartPos prioritizedPos : entry.getValue()) {
+                PartPos partPos = prioritizedPos.getPartPos();
+                if (partPos.getPos().isLoaded()) {
+                    NBTTagCompound positionTag = new NBTTagCompound();
+                    positionTag.setInteger("dimension", partPos.getPos().getDimensionId());
+                    positionTag.setLong("pos", partPos.getPos().getBlockPos().toLong());
+                    if (partPos.getSide() != null) {
+                        positionTag.setInteger("side", partPos.getSide().ordinal());
+                    }
+                    positionTag.setInteger("priority", prioritizedPos.getPriority());
+                    IInventoryState inventoryState = TileHelpers.getCapability(partPos.getPos(), partPos.getSide(),
+                            Capabilities.INVENTORY_STATE);
+                    if (inventoryState != null) {
+                        positionTag.setInteger("hash", inventoryState.getHash());
+                    }
+                    NBTTagList instancesTag = new NBTTagList();
+                    getNetwork().getRawInstances(partPos)
+                            .forEachRemaining(instance -> instancesTag.appendTag(serializer.serializeInstance(instance)));
+                    positionTag.setTag("instances", instancesTag);
+                    positionsTag.appendTag(positionTag);
+                }
+            }
+            NBTTagCompound channelTag = new NBTTagCompound();
+            channelTag.setInteger("channel", channel);
+            channelTag.setTag("positions", positionsTag);
+            channelsTag.appendTag(channelTag);
+        }
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setTag("channels", channelsTag);
+        return tag;
+    }
+
+    /**
+     * Read the persisted positions from the given tag.
+     * These will be restored in {@link #restorePersistedPositions()}.
+     * @param tag An NBT tag.
+     */
+    public void readFromNBT(NBTTagCompound tag) {
+        IIngredientSerializer<T, M> serializer = network.getComponent().getSerializer();
+        Int2ObjectMap<Map<PrioritizedPartPos, PersistedPosition<T>>> persistedPositions = new Int2ObjectOpenHashMap<>();
+        NBTTagList channelsTag = tag.getTagList("channels", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal());
+        for (int i = 0; i < channelsTag.tagCount(); i++) {
+            NBTTagCompound channelTag = channelsTag.getCompoundTagAt(i);
+            Map<PrioritizedPartPos, PersistedPosition<T>> positions = Maps.newHashMap();
+            NBTTagList positionsTag = channelTag.getTagList("positions", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal());
+            for (int j = 0; j < positionsTag.tagCount(); j++) {
+                NBTTagCompound positionTag = positionsTag.getCompoundTagAt(j);
+                EnumFacing side = positionTag.hasKey("side", Constants.NBT.TAG_INT)
+                        ? EnumFacing.VALUES[positionTag.getInteger("side")] : null;
+                PartPos partPos = PartPos.of(DimPos.of(positionTag.getInteger("dimension"),
+                        BlockPos.fromLong(positionTag.getLong("pos"))), side);
+                Integer hash = positionTag.hasKey("hash", Constants.NBT.TAG_INT) ? positionTag.getInteger("hash") : null;
+                List<T> instances = Lists.newArrayList();
+                NBTTagList instancesTag = positionTag.hasKey("instances", Constants.NBT.TAG_LIST)
+                        ? (NBTTagList) positionTag.getTag("instances") : new NBTTagList();
+                try {
+                    for (int k = 0; k < instancesTag.tagCount(); k++) {
+                        instances.add(serializer.deserializeInstance(instancesTag.get(k)));
+                    }
+                    positions.put(PrioritizedPartPos.of(partPos, positionTag.getInteger("priority")),
+                            new PersistedPosition<>(hash, instances));
+                } catch (IllegalArgumentException e) {
+                    // The position will simply be observed again.
+                    IntegratedDynamics.clog(Level.WARN, String.format("Could not restore the index at %s: %s",
+                            partPos, e.getMessage()));
+                }
+            }
+            persistedPositions.put(channelTag.getInteger("channel"), positions);
+        }
+        this.persistedPositions = persistedPositions;
+    }
+
+    /**
+     * Restore the index for all persisted positions that are present in the network.
+     * This should be called once all positions have been added to the network after loading.
+     *
+     * The inventory state hash of each position is remembered,
+     * so that the next observation can skip the position if it has not changed since saving.
+     * For storages without inventory state, the next observation will only emit the actual differences.
+     */
+    public void restorePersistedPositions() {
+        Int2ObjectMap<Map<PrioritizedPartPos, PersistedPosition<T>>> persistedPositions = this.persistedPositions;
+        if (persistedPositions == null) {
+            return;
+        }
+        this.persistedPositions = null;
+        for (Int2ObjectMap.Entry<Map<PrioritizedPartPos, PersistedPosition<T>>> entry : persistedPositions.int2ObjectEntrySet()) {
+            int channel = entry.getIntKey();
+            Set<PrioritizedPartPos> positions = getPositionsCopy(channel);
+            queueChange(() -> restorePersistedPositions(channel, positions, entry.getValue()));
+        }
+        // The restored positions are applied by the next observation job.
+        getNetwork().scheduleObservation();
+    }
+
+    protected void restorePersistedPositions(int channel, Set<PrioritizedPartPos> positions,
+                                             Map<PrioritizedPartPos, PersistedPosition<T>> persistedPositions) {
+        Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>> diffManagers = this.channeledDiffManagers.get(channel);
+        if (diffManagers == null) {
+            diffManagers = Maps.newHashMap();
+            this.channeledDiffManagers.put(channel, diffManagers);
+        }
+        for (Map.Entry<PrioritizedPartPos, PersistedPosition<T>> persistedEntry : persistedPositions.entrySet()) {
+            PrioritizedPartPos partPos = persistedEntry.getKey();
+            // Positions that were removed from the network in the meantime are ignored.
+            if (positions.contains(partPos) && !diffManagers.containsKey(partPos)) {
+                PersistedPosition<T> persistedPosition = persistedEntry.getValue();
+                IngredientCollectionDiffManager<T, M> diffManager = new IngredientCollectionDiffManager<>(network.getComponent());
+                diffManagers.put(partPos, diffManager);
+                this.observedPositionsChanged = true;
+                if (persistedPosition.hash != null) {
+                    this.lastInventoryStates.put(getPositionId(partPos.getPartPos()), persistedPosition.hash.intValue());
+                }
+                IngredientCollectionDiff<T, M> diff = diffManager.onChange(persistedPosition.instances.iterator());
+                emitDiff(channel, partPos, diff.hasAdditions() ? diff.getAdditions() : null, null, false);
+            }
+        }
+    }
+
     public void resetTickInterval(int channel, PartPos targetPos) {
-        Map<PartPos, Integer> channelTicks = this.observeTargetTicks.get(channel);
-        if (channelTicks == null) {
-            channelTicks = Maps.newHashMap();
-            this.observeTargetTicks.put(channel, channelTicks);
+        int targetTick = getCurrentTick() + GeneralConfig.ingredientNetworkObserverFrequencyForced;
+        queueChange(() -> {
+            Int2IntMap channelTicks = this.observeTargetTicks.get(channel);
+            if (channelTicks == null) {
+                channelTicks = newPositionMap();
+                this.observeTargetTicks.put(channel, channelTicks);
+            }
+            channelTicks.put(getPositionId(targetPos), targetTick);
+        });
+        // Signaling storages are not polled, so make sure that changes made by the network are observed.
+        if (this.signalingStorages.containsKey(targetPos)) {
+            this.dirtyPositions.add(targetPos);
+        }
+    }
+
+    protected static class PositionsSnapshot {
+
+        private final int version;
+        private final PrioritizedPartPos[] positions;
+        private final int[] ids;
+        private int cursor;
+
+        public PositionsSnapshot(int version, PrioritizedPartPos[] positions, int[] ids, int cursor) {
+            this.version = version;
+            this.positions = positions;
+            this.ids = ids;
+            this.cursor = cursor;
+        }
+
+    }
+
+    protected static class SignalingStorage {
+
+        private final IIngredientComponentStorageSignaling storage;
+        private final Runnable listener;
+        @Nullable
+        private final IntConsumer slotListener;
+        private volatile boolean fullRescan;
+
+        public SignalingStorage(IIngredientComponentStorageSignaling storage, Runnable listener,
+                                @Nullable IntConsumer slotListener) {
+            this.storage = storage;
+            this.listener = listener;
+            this.slotListener = slotListener;
+            this.fullRescan = false;
+        }
+
+    }
+
+    /**
+     * The changes that the network has made to a storage since it was last observed.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     */
+    protected static class UnobservedChanges<T, M> {
+
+        private final IngredientCollectionPrototypeMap<T, M> additions;
+        private final IngredientCollectionPrototypeMap<T, M> deletions;
+
+        public UnobservedChanges(IngredientComponent<T, M> component) {
+            this.additions = new IngredientCollectionPrototypeMap<>(component, false);
+            this.deletions = new IngredientCollectionPrototypeMap<>(component, false);
         }
-        channelTicks.put(targetPos, getCurrentTick() + GeneralConfig.ingredientNetworkObserverFrequencyForced);
+
+        public void add(IIngredientComponentStorageObservable.Change changeType, IIngredientCollection<T, M> instances) {
+            IngredientCollectionPrototypeMap<T, M> target = changeType == IIngredientComponentStorageObservable.Change.ADDITION
+                    ? this.additions : this.deletions;
+            for (T instance : instances) {
+                target.add(instance);
+            }
+        }
+
+        /**
+         * Remove the quantities that are present in both collections from both collections.
+         * @param matcher The matcher of the component.
+         * @param additions Added instances.
+         * @param deletions Removed instances.
+         * @param <T> The instance type.
+         * @param <M> The matching condition parameter.
+         */
+        public static <T, M> void cancelCommon(IIngredientMatcher<T, M> matcher,
+                                               IngredientCollectionPrototypeMap<T, M> additions,
+                                               IngredientCollectionPrototypeMap<T, M> deletions) {
+            for (T instance : Lists.newArrayList(deletions)) {
+                long common = Math.min(additions.getQuantity(instance), matcher.getQuantity(instance));
+                if (common > 0) {
+                    T commonInstance = matcher.withQuantity(instance, common);
+                    additions.remove(commonInstance);
+                    deletions.remove(commonInstance);
+                }
+            }
+        }
+
+    }
+
+    protected static class PersistedPosition<T> {
+
+        private final Integer hash;
+        private final List<T> instances;
+
+        public PersistedPosition(@Nullable Integer hash, List<T> instances) {
+            this.hash = hash;
+            this.instances = instances;
+        }
+
     }
 
 }
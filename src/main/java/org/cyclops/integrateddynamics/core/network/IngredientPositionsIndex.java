@@ -1,18 +1,22 @@
 package org.cyclops.integrateddynamics.core.network;
 
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
-import org.cyclops.cyclopscore.datastructure.DistinctIterator;
 import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
 import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionMutableWrapper;
 import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
 import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
 import org.cyclops.integrateddynamics.api.ingredient.IIngredientPositionsIndex;
-import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientPositionsIndexMutable;
 import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.TreeSet;
 
 /**
@@ -22,13 +26,35 @@ import java.util.TreeSet;
  * @author rubensworks
  */
 public class IngredientPositionsIndex<T, M> extends IngredientCollectionMutableWrapper<T, M, IngredientCollectionPrototypeMap<T, M>>
-        implements IIngredientPositionsIndex<T, M> {
+        implements IIngredientPositionsIndexMutable<T, M> {
 
     private final IIngredientMapMutable<T, M, TreeSet<PrioritizedPartPos>> positionsMap;
+    private final TreeSet<PrioritizedPartPos> nonEmptyPositions;
+    private final Object2IntMap<PrioritizedPartPos> positionPrototypes;
+    private long totalQuantity;
 
     public IngredientPositionsIndex(IngredientComponent<T, M> component) {
         super(new IngredientCollectionPrototypeMap<>(component, false));
         this.positionsMap = new IngredientHashMap<>(component);
+        this.nonEmptyPositions = Sets.newTreeSet();
+        this.positionPrototypes = new Object2IntOpenHashMap<>();
+        this.totalQuantity = 0;
+    }
+
+    @Override
+    public boolean add(T instance) {
+        long quantityBefore = getQuantity(instance);
+        boolean changed = super.add(instance);
+        this.totalQuantity += getQuantity(instance) - quantityBefore;
+        return changed;
+    }
+
+    @Override
+    public boolean remove(T instance) {
+        long quantityBefore = getQuantity(instance);
+        boolean changed = super.remove(instance);
+        this.totalQuantity -= quantityBefore - getQuantity(instance);
+        return changed;
     }
 
     protected T getPrototype(T instance) {
@@ -36,17 +62,28 @@ public class IngredientPositionsIndex<T, M> extends IngredientCollectionMutableW
     }
 
     @Override
-    public Iterator<PartPos> getNonEmptyPositions() {
-        return getPositions(getComponent().getMatcher().getEmptyInstance(), getComponent().getMatcher().getAnyMatchCondition());
+    public NavigableSet<PrioritizedPartPos> getNonEmptyPrioritizedPositions() {
+        return Collections.unmodifiableNavigableSet(this.nonEmptyPositions);
     }
 
     @Override
-    public Iterator<PartPos> getPositions(T instance, M matchFlags) {
-        return new DistinctIterator<>(this.positionsMap.getAll(getPrototype(instance), matchFlags)
-                .stream()
-                .flatMap(Collection::stream)
-                .map(PrioritizedPartPos::getPartPos)
-                .iterator());
+    public NavigableSet<PrioritizedPartPos> getPrioritizedPositions(T instance, M matchFlags) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        M quantityCondition = getComponent().getPrimaryQuantifier().getMatchCondition();
+        M condition = matcher.withoutCondition(matchFlags, quantityCondition);
+        if (Objects.equals(condition, matcher.withoutCondition(matcher.getAnyMatchCondition(), quantityCondition))) {
+            return getNonEmptyPrioritizedPositions();
+        }
+        if (Objects.equals(condition, matcher.withoutCondition(matcher.getExactMatchCondition(), quantityCondition))) {
+            TreeSet<PrioritizedPartPos> set = this.positionsMap.get(getPrototype(instance));
+            return set == null ? Collections.emptyNavigableSet() : Collections.unmodifiableNavigableSet(set);
+        }
+        // Only the positions of the matching prototypes are merged, not all positions of the index.
+        TreeSet<PrioritizedPartPos> positions = Sets.newTreeSet();
+        for (TreeSet<PrioritizedPartPos> set : this.positionsMap.getAll(getPrototype(instance), condition)) {
+            positions.addAll(set);
+        }
+        return positions;
     }
 
     @Override
@@ -57,15 +94,27 @@ public class IngredientPositionsIndex<T, M> extends IngredientCollectionMutableW
             set = Sets.newTreeSet();
             this.positionsMap.put(prototype, set);
         }
-        set.add(pos);
+        if (set.add(pos)) {
+            int prototypes = this.positionPrototypes.getInt(pos);
+            this.positionPrototypes.put(pos, prototypes + 1);
+            if (prototypes == 0) {
+                this.nonEmptyPositions.add(pos);
+            }
+        }
     }
 
     @Override
     public void removePosition(T instance, PrioritizedPartPos pos) {
         T prototype = getPrototype(instance);
         TreeSet<PrioritizedPartPos> set = this.positionsMap.get(prototype);
-        if (set != null) {
-            set.remove(pos);
+        if (set != null && set.remove(pos)) {
+            int prototypes = this.positionPrototypes.getInt(pos) - 1;
+            if (prototypes <= 0) {
+                this.positionPrototypes.removeInt(pos);
+                this.nonEmptyPositions.remove(pos);
+            } else {
+                this.positionPrototypes.put(pos, prototypes);
+            }
             if (set.isEmpty()) {
                 this.positionsMap.remove(prototype);
             }
@@ -77,4 +126,43 @@ public class IngredientPositionsIndex<T, M> extends IngredientCollectionMutableW
         return getInnerCollection().getQuantity(instance);
     }
 
+    @Override
+    public long getQuantity(T instance, M matchCondition) {
+        return getQuantity(this, instance, matchCondition);
+    }
+
+    @Override
+    public long getTotalQuantity() {
+        return this.totalQuantity;
+    }
+
+    /**
+     * Get the summed quantity of all instances in the given index that match with the given instance.
+     * Conditions that match any instance or exactly one prototype are answered without iteration.
+     * @param index An index.
+     * @param instance An instance to match.
+     * @param matchCondition Instance match conditions.
+     * @param <T> An instance type.
+     * @param <M> The matching condition parameter.
+     * @return The summed quantity.
+     */
+    public static <T, M> long getQuantity(IIngredientPositionsIndex<T, M> index, T instance, M matchCondition) {
+        IngredientComponent<T, M> component = index.getComponent();
+        IIngredientMatcher<T, M> matcher = component.getMatcher();
+        M quantityCondition = component.getPrimaryQuantifier().getMatchCondition();
+        M condition = matcher.withoutCondition(matchCondition, quantityCondition);
+        if (Objects.equals(condition, matcher.withoutCondition(matcher.getAnyMatchCondition(), quantityCondition))) {
+            return index.getTotalQuantity();
+        }
+        if (Objects.equals(condition, matcher.withoutCondition(matcher.getExactMatchCondition(), quantityCondition))) {
+            return index.getQuantity(instance);
+        }
+        long quantity = 0;
+        Iterator<T> it = index.iterator(instance, condition);
+        while (it.hasNext()) {
+            quantity += matcher.getQuantity(it.next());
+        }
+        return quantity;
+    }
+
 }
@@ -0,0 +1,226 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientPositionsIndex;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * A read-only view over the indexes of all channels.
+ *
+ * Instances that are present in multiple channels are merged,
+ * so that each instance is only returned once, with the quantities of all channels summed.
+ * Match conditions are applied to the instances of each channel separately.
+ *
+ * The index of the wildcard channel itself is never part of this view.
+ *
+ * @param <T> An instance type.
+ * @param <M> The matching condition parameter.
+ * @author rubensworks
+ */
+public class IngredientPositionsIndexComposite<T, M> implements IIngredientPositionsIndex<T, M> {
+
+    private final IngredientComponent<T, M> component;
+    private final Int2ObjectMap<? extends IIngredientPositionsIndex<T, M>> indexes;
+
+    public IngredientPositionsIndexComposite(IngredientComponent<T, M> component,
+                                             Int2ObjectMap<? extends IIngredientPositionsIndex<T, M>> indexes) {
+        this.component = component;
+        this.indexes = indexes;
+    }
+
+    protected List<IIngredientPositionsIndex<T, M>> getIndexes() {
+        List<IIngredientPositionsIndex<T, M>> list = Lists.newArrayListWithExpectedSize(indexes.size());
+        for (Int2ObjectMap.Entry<? extends IIngredientPositionsIndex<T, M>> entry : indexes.int2ObjectEntrySet()) {
+            if (entry.getIntKey() != IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+                list.add(entry.getValue());
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return If this view contains at least one index.
+     */
+    public boolean hasIndexes() {
+        for (int channel : indexes.keySet()) {
+            if (channel != IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Merge the instances of the given indexes.
+     * @param indexes The indexes.
+     * @param iteratorGetter The iterator to merge for each index.
+     * @return An iterator over the merged instances.
+     */
+    protected Iterator<T> merge(List<IIngredientPositionsIndex<T, M>> indexes,
+                                Function<IIngredientPositionsIndex<T, M>, Iterator<T>> iteratorGetter) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        return new AbstractIterator<T>() {
+            private int indexId = 0;
+            private Iterator<T> it = indexes.isEmpty() ? null : iteratorGetter.apply(indexes.get(0));
+
+            @Override
+            protected T computeNext() {
+                while (it != null) {
+                    while (it.hasNext()) {
+                        T instance = it.next();
+                        // Skip instances that were already returned by one of the previous indexes.
+                        boolean seen = false;
+                        for (int i = 0; i < indexId && !seen; i++) {
+                            seen = indexes.get(i).getQuantity(instance) > 0;
+                        }
+                        if (!seen) {
+                            long quantity = matcher.getQuantity(instance);
+                            for (int i = indexId + 1; i < indexes.size(); i++) {
+                                quantity += indexes.get(i).getQuantity(instance);
+                            }
+                            return matcher.withQuantity(instance, quantity);
+                        }
+                    }
+                    indexId++;
+                    it = indexId < indexes.size() ? iteratorGetter.apply(indexes.get(indexId)) : null;
+                }
+                return endOfData();
+            }
+        };
+    }
+
+    /**
+     * Merge the sorted positions of the given indexes.
+     * @param indexes The indexes.
+     * @param positionsGetter The positions to merge for each index.
+     * @return The merged sorted positions.
+     */
+    protected NavigableSet<PrioritizedPartPos> union(List<IIngredientPositionsIndex<T, M>> indexes,
+                                                     Function<IIngredientPositionsIndex<T, M>, NavigableSet<PrioritizedPartPos>> positionsGetter) {
+        if (indexes.size() == 1) {
+            return positionsGetter.apply(indexes.get(0));
+        }
+        TreeSet<PrioritizedPartPos> positions = Sets.newTreeSet();
+        for (IIngredientPositionsIndex<T, M> index : indexes) {
+            positions.addAll(positionsGetter.apply(index));
+        }
+        return positions;
+    }
+
+    @Override
+    public NavigableSet<PrioritizedPartPos> getNonEmptyPrioritizedPositions() {
+        return union(getIndexes(), IIngredientPositionsIndex::getNonEmptyPrioritizedPositions);
+    }
+
+    @Override
+    public NavigableSet<PrioritizedPartPos> getPrioritizedPositions(T instance, M matchFlags) {
+        return union(getIndexes(), index -> index.getPrioritizedPositions(instance, matchFlags));
+    }
+
+    @Override
+    public long getQuantity(T instance) {
+        long quantity = 0;
+        for (IIngredientPositionsIndex<T, M> index : getIndexes()) {
+            quantity += index.getQuantity(instance);
+        }
+        return quantity;
+    }
+
+    @Override
+    public long getQuantity(T instance, M matchCondition) {
+        List<IIngredientPositionsIndex<T, M>> indexes = getIndexes();
+        if (indexes.size() == 1) {
+            return indexes.get(0).getQuantity(instance, matchCondition);
+        }
+        // Quantities are summed, so no merging of instances is needed.
+        long quantity = 0;
+        for (IIngredientPositionsIndex<T, M> index : indexes) {
+            quantity += index.getQuantity(instance, matchCondition);
+        }
+        return quantity;
+    }
+
+    @Override
+    public long getTotalQuantity() {
+        long quantity = 0;
+        for (IIngredientPositionsIndex<T, M> index : getIndexes()) {
+            quantity += index.getTotalQuantity();
+        }
+        return quantity;
+    }
+
+    @Override
+    public boolean contains(T instance) {
+        List<IIngredientPositionsIndex<T, M>> indexes = getIndexes();
+        if (indexes.size() == 1) {
+            return indexes.get(0).contains(instance);
+        }
+        // Instances are merged per prototype, so the merged quantity must match exactly.
+        long quantity = getComponent().getMatcher().getQuantity(instance);
+        return quantity > 0 && getQuantity(instance) == quantity;
+    }
+
+    @Override
+    public boolean contains(T instance, M matchCondition) {
+        for (IIngredientPositionsIndex<T, M> index : getIndexes()) {
+            if (index.contains(instance, matchCondition)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int count(T instance, M matchCondition) {
+        List<IIngredientPositionsIndex<T, M>> indexes = getIndexes();
+        if (indexes.size() == 1) {
+            return indexes.get(0).count(instance, matchCondition);
+        }
+        return Iterators.size(iterator(instance, matchCondition));
+    }
+
+    @Override
+    public IngredientComponent<T, M> getComponent() {
+        return this.component;
+    }
+
+    @Override
+    public int size() {
+        List<IIngredientPositionsIndex<T, M>> indexes = getIndexes();
+        if (indexes.size() == 1) {
+            return indexes.get(0).size();
+        }
+        return Iterators.size(iterator());
+    }
+
+    @Override
+    public Iterator<T> iterator(T instance, M matchCondition) {
+        List<IIngredientPositionsIndex<T, M>> indexes = getIndexes();
+        if (indexes.size() == 1) {
+            return indexes.get(0).iterator(instance, matchCondition);
+        }
+        return merge(indexes, index -> index.iterator(instance, matchCondition));
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        List<IIngredientPositionsIndex<T, M>> indexes = getIndexes();
+        if (indexes.size() == 1) {
+            return indexes.get(0).iterator();
+        }
+        return merge(indexes, IIngredientPositionsIndex::iterator);
+    }
+}
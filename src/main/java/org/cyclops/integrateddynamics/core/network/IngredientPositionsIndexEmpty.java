@@ -3,10 +3,11 @@ package org.cyclops.integrateddynamics.core.network;
 import com.google.common.collect.Iterators;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.integrateddynamics.api.ingredient.IIngredientPositionsIndex;
-import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.NavigableSet;
 
 /**
  * An empty ingredients positions index.
@@ -23,27 +24,27 @@ public class IngredientPositionsIndexEmpty<T, M> implements IIngredientPositions
     }
 
     @Override
-    public Iterator<PartPos> getNonEmptyPositions() {
-        return Iterators.forArray();
+    public NavigableSet<PrioritizedPartPos> getNonEmptyPrioritizedPositions() {
+        return Collections.emptyNavigableSet();
     }
 
     @Override
-    public Iterator<PartPos> getPositions(T instance, M matchFlags) {
-        return Iterators.forArray();
+    public NavigableSet<PrioritizedPartPos> getPrioritizedPositions(T instance, M matchFlags) {
+        return Collections.emptyNavigableSet();
     }
 
     @Override
-    public void addPosition(T instance, PrioritizedPartPos pos) {
-
+    public long getQuantity(T instance) {
+        return 0;
     }
 
     @Override
-    public void removePosition(T instance, PrioritizedPartPos pos) {
-
+    public long getQuantity(T instance, M matchCondition) {
+        return 0;
     }
 
     @Override
-    public long getQuantity(T instance) {
+    public long getTotalQuantity() {
         return 0;
     }
 
@@ -0,0 +1,154 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorageSlotted;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollection;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Calculates the differences of a slotted storage between consecutive observations,
+ * by remembering the contents of each slot.
+ *
+ * If the slots that have changed are known, only those slots are inspected,
+ * so that the cost of an observation depends on the number of changes, and not on the size of the storage.
+ *
+ * @param <T> The instance type.
+ * @param <M> The matching condition parameter.
+ * @author rubensworks
+ */
+public class IngredientSlotDiffManager<T, M> {
+
+    private final IngredientComponent<T, M> component;
+    private final List<T> slots = Lists.newArrayList();
+    private int nonEmptySlots = 0;
+    private boolean initialized = false;
+
+    public IngredientSlotDiffManager(IngredientComponent<T, M> component) {
+        this.component = component;
+    }
+
+    /**
+     * @return If the contents of all slots are known.
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * Calculate the differences of the given storage since the previous call.
+     * @param storage A slotted storage.
+     * @param changedSlots The slots that may have changed,
+     *                     or null if unknown, in which case all slots will be inspected.
+     * @return The differences.
+     */
+    public Diff<T, M> onChange(IIngredientComponentStorageSlotted<T, M> storage, @Nullable IntCollection changedSlots) {
+        IIngredientMatcher<T, M> matcher = component.getMatcher();
+        Diff<T, M> diff = new Diff<>(component);
+        int slotCount = storage.getSlots();
+
+        // Inspect all slots if the slot count has changed, or if we don't know anything yet.
+        if (changedSlots == null || !initialized || slotCount != slots.size()) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                updateSlot(matcher, diff, slot, storage.getSlotContents(slot));
+            }
+            // Remove all slots that do not exist anymore.
+            for (int slot = slots.size() - 1; slot >= slotCount; slot--) {
+                updateSlot(matcher, diff, slot, matcher.getEmptyInstance());
+                slots.remove(slot);
+            }
+            initialized = true;
+        } else {
+            for (int slot : changedSlots) {
+                if (slot >= 0 && slot < slotCount) {
+                    updateSlot(matcher, diff, slot, storage.getSlotContents(slot));
+                }
+            }
+        }
+
+        diff.completelyEmpty = nonEmptySlots == 0;
+        return diff;
+    }
+
+    /**
+     * Calculate the differences when the storage has become unavailable.
+     * @return The differences, which only consist of deletions.
+     */
+    public Diff<T, M> onClear() {
+        IIngredientMatcher<T, M> matcher = component.getMatcher();
+        Diff<T, M> diff = new Diff<>(component);
+        for (int slot = 0; slot < slots.size(); slot++) {
+            updateSlot(matcher, diff, slot, matcher.getEmptyInstance());
+        }
+        slots.clear();
+        initialized = false;
+        diff.completelyEmpty = true;
+        return diff;
+    }
+
+    protected void updateSlot(IIngredientMatcher<T, M> matcher, Diff<T, M> diff, int slot, T newInstance) {
+        while (slots.size() <= slot) {
+            slots.add(matcher.getEmptyInstance());
+        }
+        T oldInstance = slots.get(slot);
+        if (!matcher.matchesExactly(oldInstance, newInstance)) {
+            if (!matcher.isEmpty(oldInstance)) {
+                diff.deletions.add(oldInstance);
+                nonEmptySlots--;
+            }
+            if (!matcher.isEmpty(newInstance)) {
+                diff.additions.add(newInstance);
+                nonEmptySlots++;
+            }
+            // Store a copy of the instance, as storages may return mutable instances.
+            slots.set(slot, matcher.withQuantity(newInstance, matcher.getQuantity(newInstance)));
+        }
+    }
+
+    /**
+     * The differences between two observations.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     */
+    public static class Diff<T, M> {
+
+        private final IngredientCollectionPrototypeMap<T, M> additions;
+        private final IngredientCollectionPrototypeMap<T, M> deletions;
+        private boolean completelyEmpty;
+
+        public Diff(IngredientComponent<T, M> component) {
+            this.additions = new IngredientCollectionPrototypeMap<>(component, false);
+            this.deletions = new IngredientCollectionPrototypeMap<>(component, false);
+        }
+
+        public boolean hasAdditions() {
+            return !additions.isEmpty();
+        }
+
+        public boolean hasDeletions() {
+            return !deletions.isEmpty();
+        }
+
+        public IIngredientCollection<T, M> getAdditions() {
+            return additions;
+        }
+
+        public IIngredientCollection<T, M> getDeletions() {
+            return deletions;
+        }
+
+        /**
+         * @return If the storage is completely empty after the changes.
+         */
+        public boolean isCompletelyEmpty() {
+            return completelyEmpty;
+        }
+
+    }
+
+}
@@ -3,16 +3,23 @@ package org.cyclops.integrateddynamics.core.network;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.CapabilityDispatcher;
+import net.minecraftforge.common.util.Constants;
 import org.apache.logging.log4j.Level;
 import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.cyclopscore.helper.TileHelpers;
+import org.cyclops.integrateddynamics.GeneralConfig;
 import org.cyclops.integrateddynamics.IntegratedDynamics;
 import org.cyclops.integrateddynamics.api.PartStateException;
 import org.cyclops.integrateddynamics.api.network.AttachCapabilitiesEventNetwork;
@@ -23,12 +30,14 @@ import org.cyclops.integrateddynamics.api.network.INetworkCarrier;
 import org.cyclops.integrateddynamics.api.network.INetworkElement;
 import org.cyclops.integrateddynamics.api.network.INetworkElementProvider;
 import org.cyclops.integrateddynamics.api.network.INetworkEventListener;
+import org.cyclops.integrateddynamics.api.network.IPositionedNetworkElement;
 import org.cyclops.integrateddynamics.api.network.event.INetworkEvent;
 import org.cyclops.integrateddynamics.api.network.event.INetworkEventBus;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
 import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
 import org.cyclops.integrateddynamics.capability.network.NetworkCarrierConfig;
 import org.cyclops.integrateddynamics.capability.networkelementprovider.NetworkElementProviderConfig;
+import org.cyclops.integrateddynamics.capability.path.PathElementLazy;
 import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
 import org.cyclops.integrateddynamics.core.network.diagnostics.NetworkDiagnostics;
 import org.cyclops.integrateddynamics.core.network.event.NetworkElementAddEvent;
@@ -42,7 +51,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 /**
@@ -56,9 +64,12 @@ public class Network implements INetwork {
 
     private final INetworkEventBus eventBus = new NetworkEventBus();
     private final TreeSet<INetworkElement> elements = Sets.newTreeSet();
-    private TreeSet<INetworkElement> updateableElements = null;
-    private TreeMap<INetworkElement, Integer> updateableElementsTicks = null;
+    private NetworkElementUpdateScheduler updateableElements = null;
     private TreeSet<INetworkElement> invalidatedElements = Sets.newTreeSet();
+    private final NetworkDormantElements dormantElements = new NetworkDormantElements();
+    // Path elements read from NBT in unloaded chunks, of which the network elements have not been derived yet.
+    private final Int2ObjectMap<Long2ObjectMap<List<ISidedPathElement>>> underivedPathElements = new Int2ObjectOpenHashMap<>();
+    private final List<ISidedPathElement> derivablePathElements = Lists.newArrayList();
     private Map<INetworkElement, Long> lastSecondDurations = Maps.newHashMap();
 
     private final CapabilityDispatcher capabilityDispatcher;
@@ -69,6 +80,10 @@ public class Network implements INetwork {
     private volatile boolean killed = false;
 
     private boolean crashed = false;
+    private boolean isBeingDiagnozed = false;
+    private int lastSecondDeferredUpdates = 0;
+    // If all updateable elements are thread-safe, lazily determined after each change of elements.
+    private Boolean threadSafeElements = null;
 
     /**
      * Initiate a full network from the given start position.
@@ -81,6 +96,17 @@ public class Network implements INetwork {
         return network;
     }
 
+    /**
+     * Initiate a full network for the given cluster of path elements.
+     * @param cluster The cluster of path elements that make up the network.
+     * @return The newly formed network.
+     */
+    public static Network initiateNetworkSetup(Cluster cluster) {
+        Network network = new Network(cluster);
+        NetworkWorldStorage.getInstance(IntegratedDynamics._instance).addNewNetwork(network);
+        return network;
+    }
+
     /**
      * Check if two networks are equal.
      * @param networkA A network.
@@ -113,6 +139,7 @@ public class Network implements INetwork {
         this.baseCluster = pathElements;
         this.capabilityDispatcher = gatherCapabilities();
         onConstruct();
+        indexPathElements();
         deriveNetworkElements(baseCluster);
     }
 
@@ -134,33 +161,81 @@ public class Network implements INetwork {
 
     }
 
+    private void indexPathElements() {
+        for (ISidedPathElement sidedPathElement : baseCluster) {
+            NetworkPositionIndex.getInstance().put(sidedPathElement.getPathElement().getPosition(), this);
+        }
+    }
+
     private void deriveNetworkElements(Cluster pathElements) {
         if(!killIfEmpty()) {
             for (ISidedPathElement sidedPathElement : pathElements) {
-                World world = sidedPathElement.getPathElement().getPosition().getWorld();
-                BlockPos pos = sidedPathElement.getPathElement().getPosition().getBlockPos();
-                EnumFacing side = sidedPathElement.getSide();
-                INetworkCarrier networkCarrier = TileHelpers.getCapability(
-                        world, pos, side, NetworkCarrierConfig.CAPABILITY);
-                if (networkCarrier != null) {
-                    // Correctly remove any previously saved network in this carrier
-                    // and set the new network to this.
-                    INetwork network = networkCarrier.getNetwork();
-                    if (network != null) {
-                        network.removePathElement(sidedPathElement.getPathElement(), side);
-                    }
-                    networkCarrier.setNetwork(null);
-                    networkCarrier.setNetwork(this);
-                }
-                INetworkElementProvider networkElementProvider = TileHelpers.getCapability(
-                        world, pos, side, NetworkElementProviderConfig.CAPABILITY);
-                if (networkElementProvider != null) {
-                    for(INetworkElement element : networkElementProvider.createNetworkElements(world, pos)) {
-                        addNetworkElement(element, true);
+                deriveNetworkElements(sidedPathElement, true);
+            }
+            onNetworkChanged();
+        }
+    }
+
+    private void deriveNetworkElements(ISidedPathElement sidedPathElement, boolean networkPreinit) {
+        deriveNetworkElements(sidedPathElement, networkPreinit, false);
+    }
+
+    private void deriveNetworkElements(ISidedPathElement sidedPathElement, boolean networkPreinit, boolean silent) {
+        World world = sidedPathElement.getPathElement().getPosition().getWorld();
+        BlockPos pos = sidedPathElement.getPathElement().getPosition().getBlockPos();
+        EnumFacing side = sidedPathElement.getSide();
+        INetworkCarrier networkCarrier = TileHelpers.getCapability(
+                world, pos, side, NetworkCarrierConfig.CAPABILITY);
+        if (networkCarrier != null) {
+            // Correctly remove any previously saved network in this carrier
+            // and set the new network to this.
+            INetwork network = networkCarrier.getNetwork();
+            if (network != null && network != this) {
+                network.removePathElement(sidedPathElement.getPathElement(), side);
+            }
+            networkCarrier.setNetwork(null);
+            networkCarrier.setNetwork(this);
+        }
+        INetworkElementProvider networkElementProvider = TileHelpers.getCapability(
+                world, pos, side, NetworkElementProviderConfig.CAPABILITY);
+        if (networkElementProvider != null) {
+            for(INetworkElement element : networkElementProvider.createNetworkElements(world, pos)) {
+                if (addNetworkElement(element, networkPreinit) && !networkPreinit) {
+                    // The network is already alive, so the element has to be notified directly.
+                    if (!silent) {
+                        element.afterNetworkAlive(this);
                     }
+                    element.afterNetworkReAlive(this);
                 }
             }
+        }
+    }
+
+    /**
+     * Add a single path element to this initialized network.
+     * The path element will be removed from its previous network, if any,
+     * and all of its network elements will be added to this network.
+     * @param sidedPathElement The sided path element to add.
+     * @return If the path element was not yet present in this network.
+     */
+    public synchronized boolean addPathElement(ISidedPathElement sidedPathElement) {
+        if (baseCluster.add(sidedPathElement)) {
+            NetworkPositionIndex.getInstance().put(sidedPathElement.getPathElement().getPosition(), this);
+            deriveNetworkElements(sidedPathElement, false);
             onNetworkChanged();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Move all path elements of the given network into this initialized network.
+     * The given network will be empty afterwards, and will be killed in its next update.
+     * @param network The network to absorb.
+     */
+    public synchronized void absorbNetwork(Network network) {
+        for (ISidedPathElement sidedPathElement : Lists.newArrayList(network.baseCluster)) {
+            addPathElement(sidedPathElement);
         }
     }
 
@@ -194,6 +269,16 @@ public class Network implements INetwork {
         if (this.capabilityDispatcher != null) {
             tag.setTag("ForgeCaps", this.capabilityDispatcher.serializeNBT());
         }
+        if (GeneralConfig.ingredientNetworkPersistIndex) {
+            NBTTagCompound indexesTag = new NBTTagCompound();
+            for (IFullNetworkListener fullNetworkListener : this.fullNetworkListeners) {
+                if (fullNetworkListener instanceof PositionedAddonsNetworkIngredients) {
+                    PositionedAddonsNetworkIngredients<?, ?> networkIngredients = (PositionedAddonsNetworkIngredients<?, ?>) fullNetworkListener;
+                    indexesTag.setTag(networkIngredients.getComponent().getName().toString(), networkIngredients.writeIndexToNBT());
+                }
+            }
+            tag.setTag("ingredientIndexes", indexesTag);
+        }
         return tag;
     }
 
@@ -207,12 +292,124 @@ public class Network implements INetwork {
 
     public void fromNBTEffective(NBTTagCompound tag) {
         this.baseCluster.fromNBT(tag.getCompoundTag("baseCluster"));
+        indexPathElements();
         this.crashed = tag.getBoolean("crashed");
         if (this.capabilityDispatcher != null && tag.hasKey("ForgeCaps")) {
             this.capabilityDispatcher.deserializeNBT(tag.getCompoundTag("ForgeCaps"));
         }
-        deriveNetworkElements(baseCluster);
+        deriveLoadedNetworkElements();
         initialize(true);
+        // Restore the ingredient indexes if they were saved, they will be validated against the actual storages lazily.
+        NBTTagCompound indexesTag = tag.getCompoundTag("ingredientIndexes");
+        for (IFullNetworkListener fullNetworkListener : this.fullNetworkListeners) {
+            if (fullNetworkListener instanceof PositionedAddonsNetworkIngredients) {
+                PositionedAddonsNetworkIngredients<?, ?> networkIngredients = (PositionedAddonsNetworkIngredients<?, ?>) fullNetworkListener;
+                String key = networkIngredients.getComponent().getName().toString();
+                if (indexesTag.hasKey(key, Constants.NBT.TAG_COMPOUND)) {
+                    networkIngredients.readIndexFromNBT(indexesTag.getCompoundTag(key));
+                }
+            }
+        }
+    }
+
+    /**
+     * Derive the network elements of all path elements that were read from NBT.
+     * Path elements in unloaded chunks are only derived once their chunk is loaded,
+     * and path elements that can not be resolved anymore are removed.
+     */
+    private void deriveLoadedNetworkElements() {
+        if(!killIfEmpty()) {
+            List<ISidedPathElement> ghosts = Lists.newArrayList();
+            for (ISidedPathElement sidedPathElement : baseCluster) {
+                if (!sidedPathElement.getPathElement().getPosition().isLoaded()) {
+                    addUnderivedPathElement(sidedPathElement);
+                } else if (!deriveResolvedNetworkElements(sidedPathElement, true)) {
+                    ghosts.add(sidedPathElement);
+                }
+            }
+            for (ISidedPathElement ghost : ghosts) {
+                removeGhostPathElement(ghost);
+            }
+            onNetworkChanged();
+        }
+    }
+
+    /**
+     * Derive the network elements of all path elements of which the chunk has been loaded since the last update.
+     */
+    private void deriveWokenNetworkElements() {
+        List<ISidedPathElement> pathElements = Lists.newArrayList(derivablePathElements);
+        derivablePathElements.clear();
+        for (ISidedPathElement sidedPathElement : pathElements) {
+            if (!sidedPathElement.getPathElement().getPosition().isLoaded()) {
+                addUnderivedPathElement(sidedPathElement);
+            } else if (!deriveResolvedNetworkElements(sidedPathElement, false)) {
+                removeGhostPathElement(sidedPathElement);
+            }
+        }
+        onNetworkChanged();
+    }
+
+    /**
+     * Derive the network elements of the given path element if it can be resolved.
+     * @param sidedPathElement A sided path element in a loaded chunk.
+     * @param networkPreinit If the network is still being initialized.
+     * @return If the path element could be resolved.
+     */
+    private boolean deriveResolvedNetworkElements(ISidedPathElement sidedPathElement, boolean networkPreinit) {
+        IPathElement pathElement = sidedPathElement.getPathElement();
+        // Lazy elements keep what they resolve here while their chunk is loaded, so later path lookups reuse it.
+        if (pathElement instanceof PathElementLazy && ((PathElementLazy) pathElement).resolve() == null) {
+            return false;
+        }
+        // Elements that were read from NBT have been alive before, so they are only notified of the re-alive.
+        deriveNetworkElements(sidedPathElement, networkPreinit, true);
+        return true;
+    }
+
+    private void removeGhostPathElement(ISidedPathElement sidedPathElement) {
+        DimPos position = sidedPathElement.getPathElement().getPosition();
+        IntegratedDynamics.clog(Level.WARN, String.format("Could not find a valid path element " +
+                "at position %s in world %s, removing it from its network.", position.getBlockPos(), position.getDimensionId()));
+        baseCluster.remove(sidedPathElement);
+        NetworkPositionIndex.getInstance().remove(position, this);
+    }
+
+    private void addUnderivedPathElement(ISidedPathElement sidedPathElement) {
+        DimPos position = sidedPathElement.getPathElement().getPosition();
+        Long2ObjectMap<List<ISidedPathElement>> chunks = underivedPathElements.get(position.getDimensionId());
+        if (chunks == null) {
+            chunks = new Long2ObjectOpenHashMap<>();
+            underivedPathElements.put(position.getDimensionId(), chunks);
+        }
+        long chunkKey = ChunkPos.asLong(position.getBlockPos().getX() >> 4, position.getBlockPos().getZ() >> 4);
+        List<ISidedPathElement> pathElements = chunks.get(chunkKey);
+        if (pathElements == null) {
+            pathElements = Lists.newArrayList();
+            chunks.put(chunkKey, pathElements);
+        }
+        pathElements.add(sidedPathElement);
+    }
+
+    private boolean removeUnderivedPathElement(DimPos position) {
+        if (derivablePathElements.removeIf(sidedPathElement -> sidedPathElement.getPathElement().getPosition().equals(position))) {
+            return true;
+        }
+        Long2ObjectMap<List<ISidedPathElement>> chunks = underivedPathElements.get(position.getDimensionId());
+        if (chunks != null) {
+            long chunkKey = ChunkPos.asLong(position.getBlockPos().getX() >> 4, position.getBlockPos().getZ() >> 4);
+            List<ISidedPathElement> pathElements = chunks.get(chunkKey);
+            if (pathElements != null && pathElements.removeIf(sidedPathElement -> sidedPathElement.getPathElement().getPosition().equals(position))) {
+                if (pathElements.isEmpty()) {
+                    chunks.remove(chunkKey);
+                    if (chunks.isEmpty()) {
+                        underivedPathElements.remove(position.getDimensionId());
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -251,8 +448,7 @@ public class Network implements INetwork {
     @Override
     public void addNetworkElementUpdateable(INetworkElement element) {
         if(element.isUpdate()) {
-            updateableElements.add(element);
-            updateableElementsTicks.put(element, 0);
+            updateableElements.add(getPresentElement(element), 1);
         }
     }
 
@@ -268,22 +464,24 @@ public class Network implements INetwork {
 
     @Override
     public synchronized void setPriorityAndChannel(INetworkElement element, int priority, int channel) {
+        INetworkElement presentElement = getPresentElement(element);
         elements.remove(element);
-        Integer oldTickValue = null;
+        int remainingTicks = -1;
+        boolean dormant = dormantElements.remove(element);
         if (element.isUpdate()) {
-            updateableElements.remove(element);
-            oldTickValue = updateableElementsTicks.remove(element);
+            remainingTicks = updateableElements.getRemainingTicks(presentElement);
+            updateableElements.remove(presentElement);
         }
 
         //noinspection deprecation
         element.setPriorityAndChannel(this, priority, channel);
 
         elements.add(element);
-        if (element.isUpdate()) {
-            updateableElements.add(element);
-            if (oldTickValue != null) {
-                updateableElementsTicks.put(element, oldTickValue);
-            }
+        if (element.isUpdate() && remainingTicks >= 0) {
+            updateableElements.add(element, remainingTicks);
+        }
+        if (dormant) {
+            dormantElements.add((IPositionedNetworkElement) element);
         }
     }
 
@@ -301,8 +499,8 @@ public class Network implements INetwork {
         }
         element.beforeNetworkKill(this);
         element.onNetworkRemoval(this);
-        elements.remove(element);
         removeNetworkElementUpdateable(element);
+        elements.remove(element);
         invalidatedElements.remove(element); // The element may be invalidated (like in an unloaded chunk) when it is being removed.
         getEventBus().post(new NetworkElementRemoveEvent.Post(this, element));
         onNetworkChanged();
@@ -310,8 +508,8 @@ public class Network implements INetwork {
 
     @Override
     public synchronized void removeNetworkElementUpdateable(INetworkElement element) {
-        updateableElements.remove(element);
-        updateableElementsTicks.remove(element);
+        updateableElements.remove(getPresentElement(element));
+        dormantElements.remove(element);
     }
 
     /**
@@ -319,8 +517,7 @@ public class Network implements INetwork {
      * @param silent If the element should not be notified for the network becoming alive.
      */
     protected void initialize(boolean silent) {
-        updateableElements = Sets.newTreeSet();
-        updateableElementsTicks = Maps.newTreeMap();
+        updateableElements = new NetworkElementUpdateScheduler();
         for(INetworkElement element : elements) {
             addNetworkElementUpdateable(element);
             if(!silent) {
@@ -338,6 +535,9 @@ public class Network implements INetwork {
         for(INetworkElement element : elements) {
             element.beforeNetworkKill(this);
         }
+        for (ISidedPathElement sidedPathElement : baseCluster) {
+            NetworkPositionIndex.getInstance().remove(sidedPathElement.getPathElement().getPosition(), this);
+        }
         killed = true;
     }
 
@@ -377,61 +577,112 @@ public class Network implements INetwork {
 
     @Override
     public final synchronized void update() {
+        if (updateNetwork()) {
+            updateElements();
+        }
+    }
+
+    @Override
+    public synchronized boolean updateNetwork() {
         if (this.toRead != null) {
             this.fromNBTEffective(this.toRead);
             this.toRead = null;
         }
+        if (!derivablePathElements.isEmpty()) {
+            deriveWokenNetworkElements();
+        }
 
         this.changed = false;
         if(killIfEmpty() || killed) {
             NetworkWorldStorage.getInstance(IntegratedDynamics._instance).removeInvalidatedNetwork(this);
-        } else {
-            onUpdate();
+            return false;
+        }
+
+        // Listeners keep running while the elements are dormant,
+        // as positions in loaded chunks still depend on them, such as for indexing ingredients.
+        onUpdate();
+        if (isDormant()) {
+            return false;
+        }
+        isBeingDiagnozed = NetworkDiagnostics.getInstance().isBeingDiagnozed();
+        if (!isBeingDiagnozed && !lastSecondDurations.isEmpty()) {
+            // Make sure we aren't using any unnecessary memory.
+            lastSecondDurations.clear();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void updateElements() {
+        updateableElements.tick(this::updateElement, NetworkTickScheduler.getInstance().getNetworkBudget());
+        if (isBeingDiagnozed) {
+            lastSecondDeferredUpdates += updateableElements.getDeferredCount();
+        }
+    }
 
-            // Update updateable network elements
-            boolean isBeingDiagnozed = NetworkDiagnostics.getInstance().isBeingDiagnozed();
-            if (!isBeingDiagnozed && !lastSecondDurations.isEmpty()) {
-                // Make sure we aren't using any unnecessary memory.
-                lastSecondDurations.clear();
+    @Override
+    public synchronized boolean canUpdateElementsConcurrently() {
+        if (threadSafeElements == null) {
+            threadSafeElements = true;
+            for (INetworkElement element : elements) {
+                if (element.isUpdate() && !element.isUpdateThreadSafe()) {
+                    threadSafeElements = false;
+                    break;
+                }
             }
-            for (INetworkElement element : updateableElements) {
-                try {
-                    if (isValid(element)) {
-                        long startTime = 0;
-                        if (isBeingDiagnozed) {
-                            startTime = System.nanoTime();
-                        }
-                        int lastElementTick = updateableElementsTicks.getOrDefault(element, 0);
-                        if (canUpdate(element)) {
-                            if (lastElementTick <= 0) {
-                                updateableElementsTicks.put(element, element.getUpdateInterval() - 1);
-                                element.update(this);
-                                postUpdate(element);
-                            } else {
-                                updateableElementsTicks.put(element, lastElementTick - 1);
-                            }
-                        } else {
-                            onSkipUpdate(element);
-                            updateableElementsTicks.put(element, lastElementTick - 1);
-                        }
-                        if (isBeingDiagnozed) {
-                            long duration = System.nanoTime() - startTime;
-                            Long lastDuration = lastSecondDurations.get(element);
-                            if (lastDuration != null) {
-                                duration = duration + lastDuration;
-                            }
-                            lastSecondDurations.put(element, duration);
-                        }
+        }
+        return threadSafeElements;
+    }
+
+    @Override
+    public void runOnMainThread(Runnable task) {
+        NetworkTickScheduler.getInstance().runOnMainThread(this, task);
+    }
+
+    /**
+     * Update the given element if it is valid and can update.
+     * @param element A network element that is due in this tick.
+     * @return The number of ticks after which the element should be visited again.
+     */
+    protected int updateElement(INetworkElement element) {
+        int ticks = 1;
+        try {
+            if (!isValid(element)) {
+                if (element instanceof IPositionedNetworkElement
+                        && !((IPositionedNetworkElement) element).getPosition().isLoaded()) {
+                    // Stop updating the element until its chunk is loaded again.
+                    dormantElements.add((IPositionedNetworkElement) element);
+                    ticks = -1;
+                }
+            } else {
+                long startTime = 0;
+                if (isBeingDiagnozed) {
+                    startTime = System.nanoTime();
+                }
+                if (canUpdate(element)) {
+                    ticks = element.getUpdateInterval();
+                    element.update(this);
+                    postUpdate(element);
+                } else {
+                    onSkipUpdate(element);
+                }
+                if (isBeingDiagnozed) {
+                    long duration = System.nanoTime() - startTime;
+                    Long lastDuration = lastSecondDurations.get(element);
+                    if (lastDuration != null) {
+                        duration = duration + lastDuration;
                     }
-                } catch (PartStateException e) {
-                    IntegratedDynamics.clog(Level.WARN, "Attempted to tick a part that was not properly unloaded. " +
-                            "Report this to the Integrated Dynamics issue tracker with details on what you did " +
-                            "leading up to this stacktrace. The part was forcefully unloaded");
-                    e.printStackTrace();
-                    element.invalidate(this);
+                    lastSecondDurations.put(element, duration);
                 }
             }
+        } catch (PartStateException e) {
+            IntegratedDynamics.clog(Level.WARN, "Attempted to tick a part that was not properly unloaded. " +
+                    "Report this to the Integrated Dynamics issue tracker with details on what you did " +
+                    "leading up to this stacktrace. The part was forcefully unloaded");
+            e.printStackTrace();
+            element.invalidate(this);
         }
+        return ticks;
     }
 
     protected void onUpdate() {
@@ -449,6 +700,12 @@ public class Network implements INetwork {
         }
         if(baseCluster.remove(SidedPathElement.of(pathElement, null))) {
             DimPos position = pathElement.getPosition();
+            NetworkPositionIndex.getInstance().remove(position, this);
+            if (removeUnderivedPathElement(position)) {
+                // The network elements of this path element were never added.
+                onNetworkChanged();
+                return true;
+            }
             INetworkElementProvider networkElementProvider = (INetworkElementProvider) TileHelpers.getCapability(
                     position, side, NetworkElementProviderConfig.CAPABILITY);
             if (networkElementProvider != null) {
@@ -505,6 +762,7 @@ public class Network implements INetwork {
 
     protected void onNetworkChanged() {
         this.changed = true;
+        this.threadSafeElements = null;
     }
 
     @Override
@@ -526,6 +784,15 @@ public class Network implements INetwork {
     @Override
     public void resetLastSecondDurations() {
         lastSecondDurations.clear();
+        lastSecondDeferredUpdates = 0;
+    }
+
+    /**
+     * @return The number of element updates that were deferred to a next tick due to the tick budget,
+     *         summed over all ticks since the last reset of the durations.
+     */
+    public int getLastSecondDeferredUpdates() {
+        return lastSecondDeferredUpdates;
     }
 
     @Override
@@ -562,6 +829,66 @@ public class Network implements INetwork {
             fullNetworkListener.revalidateElement(element);
         }
         invalidatedElements.remove(element);
+        if (dormantElements.remove(element)) {
+            wakeElement(element);
+        }
+    }
+
+    /**
+     * Wake up all dormant network elements in the given chunk.
+     * This should be called when the chunk has been loaded.
+     * The elements will be revalidated in the next update of this network,
+     * and path elements in this chunk that were read from NBT will have their network elements derived.
+     * @param dimension A dimension id.
+     * @param chunkX A chunk x coordinate.
+     * @param chunkZ A chunk z coordinate.
+     */
+    public synchronized void wakeChunk(int dimension, int chunkX, int chunkZ) {
+        for (INetworkElement element : dormantElements.removeChunk(dimension, chunkX, chunkZ)) {
+            wakeElement(element);
+        }
+        Long2ObjectMap<List<ISidedPathElement>> chunks = underivedPathElements.get(dimension);
+        if (chunks != null) {
+            List<ISidedPathElement> pathElements = chunks.remove(ChunkPos.asLong(chunkX, chunkZ));
+            if (pathElements != null) {
+                derivablePathElements.addAll(pathElements);
+                if (chunks.isEmpty()) {
+                    underivedPathElements.remove(dimension);
+                }
+            }
+        }
+    }
+
+    protected void wakeElement(INetworkElement element) {
+        INetworkElement presentElement = getPresentElement(element);
+        if (isInitialized() && elements.contains(presentElement) && presentElement.isUpdate()) {
+            updateableElements.add(presentElement, 1);
+        }
+    }
+
+    /**
+     * Network elements may be recreated by their providers, for example when they are removed.
+     * As the update scheduler identifies elements by instance, this finds the instance that is present in this network.
+     * @param element A network element.
+     * @return The equal element in this network, or the given element if there is none.
+     */
+    protected INetworkElement getPresentElement(INetworkElement element) {
+        INetworkElement presentElement = elements.ceiling(element);
+        return presentElement != null && presentElement.compareTo(element) == 0 ? presentElement : element;
+    }
+
+    /**
+     * @return If all updateable elements in this network are dormant, in which case no elements are updated.
+     */
+    public boolean isDormant() {
+        return dormantElements.size() > 0 && updateableElements.size() == 0;
+    }
+
+    /**
+     * @return The number of unloaded chunks in which this network has dormant elements.
+     */
+    public int getDormantChunkCount() {
+        return dormantElements.getChunkCount();
     }
 
     @Override
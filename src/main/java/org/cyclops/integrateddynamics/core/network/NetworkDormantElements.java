@@ -0,0 +1,141 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.cyclops.integrateddynamics.api.network.IPositionedNetworkElement;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The dormant network elements of a network, grouped per dimension and per chunk.
+ * Network elements become dormant when their chunk is unloaded,
+ * and will not be updated until their chunk is loaded again.
+ * @author rubensworks
+ */
+public class NetworkDormantElements {
+
+    private final Int2ObjectMap<Long2ObjectMap<List<INetworkElement>>> dimensions = new Int2ObjectOpenHashMap<>();
+    private int size = 0;
+
+    protected static long getChunkKey(BlockPos pos) {
+        return ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
+    /**
+     * Mark the given element as dormant.
+     * @param element A positioned network element.
+     * @return If the element was not dormant yet.
+     */
+    public boolean add(IPositionedNetworkElement element) {
+        DimPos pos = element.getPosition();
+        Long2ObjectMap<List<INetworkElement>> chunks = dimensions.get(pos.getDimensionId());
+        if (chunks == null) {
+            chunks = new Long2ObjectOpenHashMap<>();
+            dimensions.put(pos.getDimensionId(), chunks);
+        }
+        long chunkKey = getChunkKey(pos.getBlockPos());
+        List<INetworkElement> elements = chunks.get(chunkKey);
+        if (elements == null) {
+            elements = Lists.newArrayList();
+            chunks.put(chunkKey, elements);
+        }
+        if (indexOf(elements, element) < 0) {
+            elements.add(element);
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the given element from the dormant elements.
+     * @param element A network element.
+     * @return If the element was dormant.
+     */
+    public boolean remove(INetworkElement element) {
+        if (size == 0 || !(element instanceof IPositionedNetworkElement)) {
+            return false;
+        }
+        DimPos pos = ((IPositionedNetworkElement) element).getPosition();
+        Long2ObjectMap<List<INetworkElement>> chunks = dimensions.get(pos.getDimensionId());
+        if (chunks != null) {
+            long chunkKey = getChunkKey(pos.getBlockPos());
+            List<INetworkElement> elements = chunks.get(chunkKey);
+            int index = elements == null ? -1 : indexOf(elements, element);
+            if (index >= 0) {
+                elements.remove(index);
+                size--;
+                if (elements.isEmpty()) {
+                    chunks.remove(chunkKey);
+                    if (chunks.isEmpty()) {
+                        dimensions.remove(pos.getDimensionId());
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove all dormant elements in the given chunk.
+     * @param dimension A dimension id.
+     * @param chunkX A chunk x coordinate.
+     * @param chunkZ A chunk z coordinate.
+     * @return The elements that were dormant in the given chunk.
+     */
+    public List<INetworkElement> removeChunk(int dimension, int chunkX, int chunkZ) {
+        Long2ObjectMap<List<INetworkElement>> chunks = dimensions.get(dimension);
+        if (chunks != null) {
+            List<INetworkElement> elements = chunks.remove(ChunkPos.asLong(chunkX, chunkZ));
+            if (elements != null) {
+                size -= elements.size();
+                if (chunks.isEmpty()) {
+                    dimensions.remove(dimension);
+                }
+                return elements;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Chunks only contain a few elements, and the order of elements may change when their chunk is loaded,
+     * so elements are kept in a list instead of a sorted set.
+     */
+    protected static int indexOf(List<INetworkElement> elements, INetworkElement element) {
+        for (int i = 0; i < elements.size(); i++) {
+            if (elements.get(i).compareTo(element) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The number of dormant elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of chunks in which there are dormant elements.
+     */
+    public int getChunkCount() {
+        int count = 0;
+        for (Long2ObjectMap<List<INetworkElement>> chunks : dimensions.values()) {
+            count += chunks.size();
+        }
+        return count;
+    }
+
+}
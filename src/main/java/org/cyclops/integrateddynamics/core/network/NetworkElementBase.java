@@ -35,6 +35,11 @@ public abstract class NetworkElementBase implements INetworkElement {
 
     }
 
+    @Override
+    public boolean isUpdateThreadSafe() {
+        return false;
+    }
+
     @Override
     public void beforeNetworkKill(INetwork network) {
 
@@ -0,0 +1,233 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * A hashed timing wheel that schedules the updates of network elements.
+ *
+ * Each tick, only the elements that are due in that tick are visited, in their natural order.
+ * Elements are kept in intrusive linked lists per wheel slot,
+ * so that rescheduling a visited element does not require any lookups or allocations.
+ * Elements that are scheduled further away than the wheel size simply remain in their slot for multiple rotations.
+ *
+ * Elements are identified by instance, so that scheduling does not depend on their ordering,
+ * and all operations take constant time.
+ * Callers must therefore always pass the same instance for an element.
+ *
+ * A tick can be bounded by a time budget.
+ * Due elements that could not be visited within the budget are deferred,
+ * and will be visited first in the next tick, before any newly due elements.
+ *
+ * @author rubensworks
+ */
+public class NetworkElementUpdateScheduler {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final Comparator<Entry> ENTRY_COMPARATOR = (a, b) -> a.element.compareTo(b.element);
+
+    private final Entry[] wheel = new Entry[WHEEL_SIZE];
+    private final Reference2ObjectMap<INetworkElement, Entry> entries = new Reference2ObjectOpenHashMap<>();
+    private final List<Entry> dueEntries = Lists.newArrayList();
+    private final List<Entry> deferredEntries = Lists.newArrayList();
+    private long currentTick = 0;
+
+    /**
+     * Schedule the given element.
+     * If the element was already scheduled, its previous schedule is replaced.
+     * @param element The network element.
+     * @param ticks The number of ticks after which the element is due, will be at least one.
+     */
+    public void add(INetworkElement element, int ticks) {
+        remove(element);
+        Entry entry = new Entry(element);
+        entries.put(element, entry);
+        link(entry, currentTick + Math.max(1, ticks));
+    }
+
+    /**
+     * Unschedule the given element.
+     * @param element The network element.
+     * @return If the element was scheduled.
+     */
+    public boolean remove(INetworkElement element) {
+        Entry entry = entries.remove(element);
+        if (entry != null) {
+            entry.removed = true;
+            unlink(entry);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param element The network element.
+     * @return The number of ticks after which the element is due, or -1 if it is not scheduled.
+     */
+    public int getRemainingTicks(INetworkElement element) {
+        Entry entry = entries.get(element);
+        if (entry == null) {
+            return -1;
+        }
+        // Elements that are currently being visited are due again in the next tick by default.
+        return entry.linked ? (int) (entry.dueTick - currentTick) : 1;
+    }
+
+    /**
+     * @return The number of scheduled elements.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The number of due elements that were deferred to the next tick because the budget was exceeded.
+     */
+    public int getDeferredCount() {
+        return deferredEntries.size();
+    }
+
+    /**
+     * Advance to the next tick, and visit all elements that are due in that tick, in their natural order.
+     * Elements that are removed while visiting other elements will not be visited anymore.
+     * @param visitor A function that is called for each due element,
+     *                and returns the number of ticks after which the element should be visited again,
+     *                or a negative value if the element should be unscheduled.
+     */
+    public void tick(ToIntFunction<INetworkElement> visitor) {
+        tick(visitor, 0);
+    }
+
+    /**
+     * Advance to the next tick, and visit the elements that are due in that tick, in their natural order,
+     * until the given time budget is exceeded.
+     * Elements that were deferred in the previous tick are visited first.
+     * At least one element is always visited, so that progress is guaranteed.
+     * @param visitor A function that is called for each due element,
+     *                and returns the number of ticks after which the element should be visited again,
+     *                or a negative value if the element should be unscheduled.
+     * @param budgetNs The maximum number of nanoseconds to spend, or zero or less for no limit.
+     */
+    public void tick(ToIntFunction<INetworkElement> visitor, long budgetNs) {
+        long startTime = budgetNs > 0 ? System.nanoTime() : 0;
+        currentTick++;
+        int slot = (int) (currentTick & WHEEL_MASK);
+
+        // Collect all entries that are due in this tick, entries for later rotations remain in the slot.
+        Entry entry = wheel[slot];
+        while (entry != null) {
+            Entry next = entry.next;
+            if (entry.dueTick <= currentTick) {
+                unlink(entry);
+                dueEntries.add(entry);
+            }
+            entry = next;
+        }
+        dueEntries.sort(ENTRY_COMPARATOR);
+
+        // Deferred entries go first, so that they can not be starved by newly due entries.
+        if (!deferredEntries.isEmpty()) {
+            for (Entry deferredEntry : deferredEntries) {
+                deferredEntry.deferred = false;
+            }
+            deferredEntries.addAll(dueEntries);
+            dueEntries.clear();
+            dueEntries.addAll(deferredEntries);
+            deferredEntries.clear();
+        }
+        if (dueEntries.isEmpty()) {
+            return;
+        }
+
+        int visited = 0;
+        try {
+            for (Entry dueEntry : dueEntries) {
+                if (budgetNs > 0 && visited > 0 && System.nanoTime() - startTime > budgetNs) {
+                    break;
+                }
+                visited++;
+                if (!dueEntry.removed) {
+                    int ticks = visitor.applyAsInt(dueEntry.element);
+                    if (!dueEntry.removed && !dueEntry.linked) {
+                        if (ticks < 0) {
+                            entries.remove(dueEntry.element);
+                            dueEntry.removed = true;
+                        } else {
+                            link(dueEntry, currentTick + Math.max(1, ticks));
+                        }
+                    }
+                }
+            }
+            // Defer all entries that could not be visited within the budget.
+            for (int i = visited; i < dueEntries.size(); i++) {
+                Entry dueEntry = dueEntries.get(i);
+                if (!dueEntry.removed) {
+                    dueEntry.deferred = true;
+                    deferredEntries.add(dueEntry);
+                }
+            }
+        } finally {
+            // Make sure that no elements are lost if a visitor failed.
+            for (Entry dueEntry : dueEntries) {
+                if (!dueEntry.removed && !dueEntry.linked && !dueEntry.deferred) {
+                    link(dueEntry, currentTick + 1);
+                }
+            }
+            dueEntries.clear();
+        }
+    }
+
+    protected void link(Entry entry, long dueTick) {
+        int slot = (int) (dueTick & WHEEL_MASK);
+        entry.dueTick = dueTick;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = wheel[slot];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        wheel[slot] = entry;
+        entry.linked = true;
+    }
+
+    protected void unlink(Entry entry) {
+        if (entry.linked) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                wheel[entry.slot] = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.linked = false;
+        }
+    }
+
+    protected static class Entry {
+
+        private final INetworkElement element;
+        private long dueTick;
+        private int slot;
+        private Entry prev;
+        private Entry next;
+        private boolean linked;
+        private boolean removed;
+        private boolean deferred;
+
+        public Entry(INetworkElement element) {
+            this.element = element;
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.common.MinecraftForge;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.core.helper.NetworkHelpers;
+import org.cyclops.integrateddynamics.core.network.event.NetworkInitializedEvent;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A queue that collects topology changes, and (re)forms the affected networks in a single pass.
+ *
+ * When many cables are changed in a short time, for example when pasting a schematic,
+ * forming the network for each cable separately would be quadratic in the number of cables.
+ * Instead, all changes within {@link GeneralConfig#networkFormationWindow} ticks are coalesced,
+ * so that each affected network is formed only once.
+ *
+ * @author rubensworks
+ */
+public final class NetworkFormationQueue {
+
+    private static final NetworkFormationQueue _INSTANCE = new NetworkFormationQueue();
+
+    private final Map<PartPos, EntityLivingBase> pendingAdditions = Maps.newLinkedHashMap();
+    private final Set<PartPos> pendingSplits = Sets.newLinkedHashSet();
+    private int pendingTicks = 0;
+
+    private NetworkFormationQueue() {
+
+    }
+
+    public static NetworkFormationQueue getInstance() {
+        return _INSTANCE;
+    }
+
+    /**
+     * Schedule the path element at the given position to join the networks of its neighbours.
+     * A {@link NetworkInitializedEvent} will be emitted once this has happened.
+     * @param world The world.
+     * @param pos The position.
+     * @param side The side.
+     * @param placer The entity who placed the path element or null.
+     */
+    public synchronized void scheduleJoin(World world, BlockPos pos, @Nullable EnumFacing side,
+                                          @Nullable EntityLivingBase placer) {
+        PartPos partPos = PartPos.of(world, pos, side);
+        // Make sure we don't forget about the placer if this position was already scheduled.
+        if (placer != null || !pendingAdditions.containsKey(partPos)) {
+            pendingAdditions.put(partPos, placer);
+        }
+    }
+
+    /**
+     * Schedule the networks of the given positions to be split if they have become detached from each other.
+     * @param positions The positions of the path elements that were adjacent to a removed element or connection.
+     */
+    public synchronized void scheduleSplit(List<PartPos> positions) {
+        pendingSplits.addAll(positions);
+    }
+
+    /**
+     * @return If no changes are pending.
+     */
+    public synchronized boolean isEmpty() {
+        return pendingAdditions.isEmpty() && pendingSplits.isEmpty();
+    }
+
+    /**
+     * Form all networks affected by the pending changes,
+     * if the formation window has passed.
+     * This should be called at the end of each server tick.
+     */
+    public synchronized void process() {
+        if (isEmpty()) {
+            return;
+        }
+        if (pendingTicks++ < GeneralConfig.networkFormationWindow) {
+            return;
+        }
+        pendingTicks = 0;
+
+        // Handle removals first, so that additions are joined into the remaining networks.
+        if (!pendingSplits.isEmpty()) {
+            List<PartPos> heads = Lists.newArrayList();
+            for (PartPos head : pendingSplits) {
+                if (head.getPos().isLoaded()) {
+                    heads.add(head);
+                }
+            }
+            pendingSplits.clear();
+            NetworkHelpers.splitNetwork(heads);
+        }
+
+        // Join all added path elements.
+        // The first addition in a connected group of new path elements will form the network for the whole group,
+        // after which the other additions in this group are already part of that network.
+        if (!pendingAdditions.isEmpty()) {
+            Map<PartPos, EntityLivingBase> additions = Maps.newLinkedHashMap(pendingAdditions);
+            pendingAdditions.clear();
+            for (Map.Entry<PartPos, EntityLivingBase> addition : additions.entrySet()) {
+                PartPos partPos = addition.getKey();
+                if (partPos.getPos().isLoaded()) {
+                    World world = partPos.getPos().getWorld();
+                    BlockPos pos = partPos.getPos().getBlockPos();
+                    INetwork network = NetworkHelpers.joinNetwork(world, pos, partPos.getSide());
+                    // The path element may have been removed or replaced before the queue was processed.
+                    if (network != null) {
+                        MinecraftForge.EVENT_BUS.post(new NetworkInitializedEvent(network, world, pos, addition.getValue()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget all pending changes.
+     */
+    public synchronized void reset() {
+        pendingAdditions.clear();
+        pendingSplits.clear();
+        pendingTicks = 0;
+    }
+
+}
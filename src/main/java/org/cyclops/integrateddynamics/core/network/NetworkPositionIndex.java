@@ -0,0 +1,129 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A spatial index that maps the positions of path elements to the network that owns them.
+ * Positions are grouped per dimension and per chunk, so that chunk-level queries are cheap.
+ * This index is maintained by {@link Network} alongside its cluster of path elements.
+ * @author rubensworks
+ */
+public class NetworkPositionIndex {
+
+    private static final NetworkPositionIndex _INSTANCE = new NetworkPositionIndex();
+
+    private final Int2ObjectMap<Long2ObjectMap<Long2ObjectMap<INetwork>>> dimensions = new Int2ObjectOpenHashMap<>();
+
+    private NetworkPositionIndex() {
+
+    }
+
+    public static NetworkPositionIndex getInstance() {
+        return _INSTANCE;
+    }
+
+    protected static long getChunkKey(BlockPos pos) {
+        return ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
+    /**
+     * Set the network that owns the given position.
+     * @param pos A position.
+     * @param network The network.
+     */
+    public synchronized void put(DimPos pos, INetwork network) {
+        Long2ObjectMap<Long2ObjectMap<INetwork>> chunks = dimensions.get(pos.getDimensionId());
+        if (chunks == null) {
+            chunks = new Long2ObjectOpenHashMap<>();
+            dimensions.put(pos.getDimensionId(), chunks);
+        }
+        long chunkKey = getChunkKey(pos.getBlockPos());
+        Long2ObjectMap<INetwork> positions = chunks.get(chunkKey);
+        if (positions == null) {
+            positions = new Long2ObjectOpenHashMap<>();
+            chunks.put(chunkKey, positions);
+        }
+        positions.put(pos.getBlockPos().toLong(), network);
+    }
+
+    /**
+     * Remove the given position if it is owned by the given network.
+     * If the position has already been taken over by another network, nothing will happen.
+     * @param pos A position.
+     * @param network The network.
+     */
+    public synchronized void remove(DimPos pos, INetwork network) {
+        Long2ObjectMap<Long2ObjectMap<INetwork>> chunks = dimensions.get(pos.getDimensionId());
+        if (chunks != null) {
+            long chunkKey = getChunkKey(pos.getBlockPos());
+            Long2ObjectMap<INetwork> positions = chunks.get(chunkKey);
+            if (positions != null) {
+                long posKey = pos.getBlockPos().toLong();
+                if (positions.get(posKey) == network) {
+                    positions.remove(posKey);
+                    if (positions.isEmpty()) {
+                        chunks.remove(chunkKey);
+                        if (chunks.isEmpty()) {
+                            dimensions.remove(pos.getDimensionId());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param pos A position.
+     * @return The network that owns the given position, or null if none.
+     */
+    @Nullable
+    public synchronized INetwork getNetwork(DimPos pos) {
+        Long2ObjectMap<Long2ObjectMap<INetwork>> chunks = dimensions.get(pos.getDimensionId());
+        if (chunks != null) {
+            Long2ObjectMap<INetwork> positions = chunks.get(getChunkKey(pos.getBlockPos()));
+            if (positions != null) {
+                return positions.get(pos.getBlockPos().toLong());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param dimension A dimension id.
+     * @param chunkX A chunk x coordinate.
+     * @param chunkZ A chunk z coordinate.
+     * @return All networks that own at least one position in the given chunk.
+     */
+    public synchronized Set<INetwork> getNetworks(int dimension, int chunkX, int chunkZ) {
+        Long2ObjectMap<Long2ObjectMap<INetwork>> chunks = dimensions.get(dimension);
+        if (chunks != null) {
+            Long2ObjectMap<INetwork> positions = chunks.get(ChunkPos.asLong(chunkX, chunkZ));
+            if (positions != null) {
+                Set<INetwork> networks = Sets.newIdentityHashSet();
+                networks.addAll(positions.values());
+                return networks;
+            }
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * Remove all indexed positions.
+     */
+    public synchronized void reset() {
+        dimensions.clear();
+    }
+
+}
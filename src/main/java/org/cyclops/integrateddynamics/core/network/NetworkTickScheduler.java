@@ -0,0 +1,224 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Schedules the ticks of all networks.
+ *
+ * Each server tick consists of three phases:
+ * <ol>
+ *     <li>Main phase: the network-level part of each update ({@link INetwork#updateNetwork()}) runs on the server thread,
+ *     as it loads elements, kills networks and updates the network listeners.
+ *     The elements of networks that are not thread-safe are also updated in this phase.</li>
+ *     <li>Parallel phase: if multithreading is enabled, the elements of all networks that
+ *     {@link INetwork#canUpdateElementsConcurrently()} are updated concurrently on a worker pool,
+ *     while the server thread waits for them.</li>
+ *     <li>Sync phase: all tasks that were scheduled via {@link INetwork#runOnMainThread(Runnable)}
+ *     during the parallel phase are run on the server thread,
+ *     per network in the order the networks were ticked, and per network in the order they were scheduled.</li>
+ * </ol>
+ *
+ * The element updates of each network are bounded by {@link GeneralConfig#networkTickBudgetNs},
+ * and all networks together are bounded by {@link GeneralConfig#networkTickGlobalBudgetNs}.
+ * If a global budget is set, the order in which networks are ticked is rotated each tick,
+ * so that the same networks are not always the ones that run out of budget.
+ *
+ * @author rubensworks
+ */
+public final class NetworkTickScheduler {
+
+    private static final NetworkTickScheduler _INSTANCE = new NetworkTickScheduler();
+    private static final ExecutorService WORKER_POOL = new ForkJoinPool(GeneralConfig.networkTickThreads,
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+    // The deferred main thread tasks per network, only present during the parallel phase.
+    private final Map<INetwork, List<Runnable>> mainThreadTasks = Maps.newIdentityHashMap();
+    private volatile boolean parallelPhase = false;
+    private volatile long tickStartTime = 0;
+    private int rotation = 0;
+
+    private NetworkTickScheduler() {
+
+    }
+
+    public static NetworkTickScheduler getInstance() {
+        return _INSTANCE;
+    }
+
+    /**
+     * @return If network elements are currently being updated in parallel.
+     */
+    public boolean isParallelPhase() {
+        return parallelPhase;
+    }
+
+    /**
+     * Run the given task of the given network on the main server thread.
+     * If the network is being updated in the parallel phase, the task will be deferred until the sync phase.
+     * Otherwise, the task is run immediately.
+     * @param network The network that schedules the task.
+     * @param task The task to run.
+     */
+    public void runOnMainThread(INetwork network, Runnable task) {
+        if (parallelPhase) {
+            List<Runnable> tasks;
+            synchronized (mainThreadTasks) {
+                tasks = mainThreadTasks.get(network);
+            }
+            if (tasks != null) {
+                // Each list is only modified by the single thread that updates its network.
+                tasks.add(task);
+                return;
+            }
+        }
+        task.run();
+    }
+
+    /**
+     * @return The number of nanoseconds the network that is currently being updated can spend on its elements,
+     *         or zero if there is no limit.
+     */
+    public long getNetworkBudget() {
+        long budget = GeneralConfig.networkTickBudgetNs;
+        if (GeneralConfig.networkTickGlobalBudgetNs > 0) {
+            long remaining = GeneralConfig.networkTickGlobalBudgetNs - (System.nanoTime() - tickStartTime);
+            // Once the global budget has been exceeded, networks can only update a single element.
+            remaining = Math.max(1, remaining);
+            budget = budget > 0 ? Math.min(budget, remaining) : remaining;
+        }
+        return budget;
+    }
+
+    /**
+     * Tick the given networks.
+     * This must be called from the main server thread.
+     * @param networks The networks to tick.
+     */
+    public void tick(List<INetwork> networks) {
+        tickStartTime = System.nanoTime();
+        int size = networks.size();
+        int start = 0;
+        if (GeneralConfig.networkTickGlobalBudgetNs > 0 && size > 1) {
+            rotation = (rotation + 1) % size;
+            start = rotation;
+        }
+
+        // Main phase
+        boolean multithreading = GeneralConfig.networkTickEnableMultithreading && size > 1;
+        List<INetwork> parallelNetworks = Lists.newArrayList();
+        for (int i = 0; i < size; i++) {
+            INetwork network = networks.get((start + i) % size);
+            if (!network.isCrashed()) {
+                try {
+                    if (network.updateNetwork()) {
+                        if (multithreading && network.canUpdateElementsConcurrently()) {
+                            parallelNetworks.add(network);
+                        } else {
+                            network.updateElements();
+                        }
+                    }
+                } catch (Throwable e) {
+                    network.setCrashed(true);
+                    throw e;
+                }
+            }
+        }
+
+        if (parallelNetworks.size() == 1) {
+            updateElements(parallelNetworks.get(0));
+        } else if (!parallelNetworks.isEmpty()) {
+            updateElementsParallel(parallelNetworks);
+        }
+    }
+
+    protected void updateElements(INetwork network) {
+        try {
+            network.updateElements();
+        } catch (Throwable e) {
+            network.setCrashed(true);
+            throw e;
+        }
+    }
+
+    protected void updateElementsParallel(List<INetwork> networks) {
+        List<List<Runnable>> tasks = Lists.newArrayListWithCapacity(networks.size());
+        synchronized (mainThreadTasks) {
+            for (INetwork network : networks) {
+                List<Runnable> networkTasks = Lists.newArrayList();
+                tasks.add(networkTasks);
+                mainThreadTasks.put(network, networkTasks);
+            }
+        }
+
+        // Parallel phase
+        Throwable[] errors = new Throwable[networks.size()];
+        CountDownLatch barrier = new CountDownLatch(networks.size());
+        parallelPhase = true;
+        try {
+            for (int i = 0; i < networks.size(); i++) {
+                INetwork network = networks.get(i);
+                int index = i;
+                WORKER_POOL.execute(() -> {
+                    try {
+                        network.updateElements();
+                    } catch (Throwable e) {
+                        errors[index] = e;
+                    } finally {
+                        barrier.countDown();
+                    }
+                });
+            }
+            // Always wait for all workers, so that no element is still being updated after this phase.
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    barrier.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            parallelPhase = false;
+            synchronized (mainThreadTasks) {
+                mainThreadTasks.clear();
+            }
+        }
+
+        // Sync phase
+        Throwable error = null;
+        for (int i = 0; i < networks.size(); i++) {
+            if (errors[i] != null) {
+                networks.get(i).setCrashed(true);
+                if (error == null) {
+                    error = errors[i];
+                }
+            } else {
+                for (Runnable task : tasks.get(i)) {
+                    task.run();
+                }
+            }
+        }
+
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        } else if (error != null) {
+            throw new RuntimeException(error);
+        }
+    }
+
+}
@@ -1,100 +1,103 @@
 package org.cyclops.integrateddynamics.core.network;
 
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import org.cyclops.integrateddynamics.api.network.IPartPosIteratorHandler;
 import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
+import javax.annotation.Nullable;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
 import java.util.function.Supplier;
 
 /**
  * An {@link IPartPosIteratorHandler} that maintains the state of an iterator
  * and achieves round-robin iteration.
+ *
+ * The state is the last position that was iterated over,
+ * so that iteration can be resumed without skipping positions,
+ * and so that it stays valid when positions are added or removed.
  * @author rubensworks
  */
 public class PartPosIteratorHandlerRoundRobin implements IPartPosIteratorHandler {
 
-    private int offset;
+    private PrioritizedPartPos cursor;
 
-    public PartPosIteratorHandlerRoundRobin(int offset) {
-        this.offset = offset;
+    public PartPosIteratorHandlerRoundRobin(@Nullable PrioritizedPartPos cursor) {
+        this.cursor = cursor;
     }
 
     public PartPosIteratorHandlerRoundRobin() {
-        this(0);
+        this(null);
+    }
+
+    @Nullable
+    public PrioritizedPartPos getCursor() {
+        return cursor;
     }
 
     @Override
     public Iterator<PartPos> handleIterator(Supplier<Iterator<PartPos>> iteratorSupplier, int channel) {
         Iterator<PartPos> it = iteratorSupplier.get();
-
-        // Offset the iterator
-        int advanced = Iterators.advance(it, offset);
-        if (offset >= advanced && !it.hasNext()) {
-            // Restart the iterator if the offset reached the end.
-            offset = Math.max(0, offset - advanced);
-            it = iteratorSupplier.get();
+        if (cursor == null) {
+            return new CursorIterator(this, it, null);
         }
+        // Without an ordering, positions can only be found by identity,
+        // so only the positions up to the cursor are buffered to be iterated last.
+        List<PartPos> head = Lists.newArrayList();
+        while (it.hasNext()) {
+            PartPos pos = it.next();
+            head.add(pos);
+            if (pos.equals(cursor.getPartPos())) {
+                return new CursorIterator(this, Iterators.concat(it, head.iterator()), null);
+            }
+        }
+        return new CursorIterator(this, head.iterator(), null);
+    }
 
-        // Wrap the iterator in an iterator that will increase the offset of this handler for each `next` call.
-        // If the initial offset was >0, it will allow the iterator to be reset
-        // and iterate over the reset iterator `offset` times.
-        return new CountingIterator(this, it, offset, iteratorSupplier);
+    @Override
+    public Iterator<PartPos> handleIterator(NavigableSet<PrioritizedPartPos> positions, int channel) {
+        // Resume directly in the sorted positions.
+        return new CursorIterator(this, null, PositionedAddonsNetwork.getPrioritizedPositionsAfter(positions, cursor));
     }
 
     @Override
     public IPartPosIteratorHandler clone() {
-        return new PartPosIteratorHandlerRoundRobin(this.offset);
+        return new PartPosIteratorHandlerRoundRobin(this.cursor);
     }
 
-    public static class CountingIterator implements Iterator<PartPos> {
+    /**
+     * An iterator that moves the cursor of the handler for each `next` call.
+     */
+    public static class CursorIterator implements Iterator<PartPos> {
 
         private final PartPosIteratorHandlerRoundRobin handler;
-        private Iterator<PartPos> innerIt;
-        private final Supplier<Iterator<PartPos>> iteratorSupplier;
+        private final Iterator<PartPos> positions;
+        private final Iterator<PrioritizedPartPos> prioritizedPositions;
 
-        private boolean countdownAllowedRemaining;
-        private int allowedRemaining;
-
-        public CountingIterator(PartPosIteratorHandlerRoundRobin handler, Iterator<PartPos> innerIt,
-                                int initialOffset, Supplier<Iterator<PartPos>> iteratorSupplier) {
+        public CursorIterator(PartPosIteratorHandlerRoundRobin handler, @Nullable Iterator<PartPos> positions,
+                              @Nullable Iterator<PrioritizedPartPos> prioritizedPositions) {
             this.handler = handler;
-            this.innerIt = innerIt;
-            this.iteratorSupplier = iteratorSupplier;
-
-            this.countdownAllowedRemaining = false;
-            this.allowedRemaining = initialOffset;
+            this.positions = positions;
+            this.prioritizedPositions = prioritizedPositions;
         }
 
         @Override
         public boolean hasNext() {
-            if (innerIt.hasNext()) {
-                return true;
-            } else if (!countdownAllowedRemaining) {
-                countdownAllowedRemaining = true;
-                if (allowedRemaining > 0) {
-                    innerIt = iteratorSupplier.get();
-                    return innerIt.hasNext();
-                }
-            }
-            return false;
+            return prioritizedPositions != null ? prioritizedPositions.hasNext() : positions.hasNext();
         }
 
         @Override
         public PartPos next() {
-            PartPos next = innerIt.next();
-
-            // Handle offset
-            handler.offset++;
-            if (countdownAllowedRemaining) {
-                allowedRemaining--;
-                if (allowedRemaining <= 0) {
-                    // Set to empty iterator if we are not allowed to progress anymore.
-                    innerIt = Iterators.forArray();
-                }
-
+            if (prioritizedPositions != null) {
+                handler.cursor = prioritizedPositions.next();
+                return handler.cursor.getPartPos();
             }
-
+            PartPos next = positions.next();
+            // Priorities are unknown here, and are not needed to find a position by identity.
+            handler.cursor = PrioritizedPartPos.of(next, 0);
             return next;
         }
     }
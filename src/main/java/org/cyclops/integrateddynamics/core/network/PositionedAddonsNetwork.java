@@ -1,12 +1,12 @@
 package org.cyclops.integrateddynamics.core.network;
 
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import lombok.Getter;
 import lombok.Setter;
-import org.cyclops.cyclopscore.datastructure.Wrapper;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.api.network.IPartPosIteratorHandler;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
@@ -18,6 +18,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -30,9 +31,12 @@ public abstract class PositionedAddonsNetwork implements IPositionedAddonsNetwor
     @Getter
     @Setter
     private INetwork network;
-    private final Set<PrioritizedPartPos> allPositions = Sets.newTreeSet();
-    private final Int2ObjectMap<Set<PrioritizedPartPos>> positions = new Int2ObjectOpenHashMap<>();
+    private final TreeSet<PrioritizedPartPos> allPositions = Sets.newTreeSet();
+    private final Int2ObjectMap<TreeSet<PrioritizedPartPos>> positions = new Int2ObjectOpenHashMap<>();
+    // The positions of a channel together with the wildcard positions, for channels that have both.
+    private final Int2ObjectMap<TreeSet<PrioritizedPartPos>> mergedPositions = new Int2ObjectOpenHashMap<>();
     private final Map<PartPos, Integer> positionChannels = Maps.newHashMap();
+    private final Map<PartPos, PrioritizedPartPos> prioritizedPositions = Maps.newHashMap();
     private final Set<PartPos> disabledPositions = Sets.newHashSet();
 
     private IPartPosIteratorHandler partPosIteratorHandler = null;
@@ -42,31 +46,41 @@ public abstract class PositionedAddonsNetwork implements IPositionedAddonsNetwor
         return positions.keySet().toIntArray();
     }
 
+    /**
+     * @param channel A channel id.
+     * @return If there are positions on the given channel.
+     */
+    protected boolean hasChannel(int channel) {
+        return positions.containsKey(channel);
+    }
+
     @Override
     public boolean hasPositions() {
         return !positions.isEmpty();
     }
 
     @Override
-    public Collection<PrioritizedPartPos> getPrioritizedPositions(int channel) {
+    public NavigableSet<PrioritizedPartPos> getPrioritizedPositions(int channel) {
+        TreeSet<PrioritizedPartPos> positions = getPrioritizedPositionsSet(channel);
+        return positions == null ? Collections.emptyNavigableSet() : Collections.unmodifiableNavigableSet(positions);
+    }
+
+    /**
+     * Get the positions of the given channel, including the wildcard positions.
+     * @param channel A channel id.
+     * @return The sorted positions, or null if there are none.
+     */
+    @Nullable
+    protected TreeSet<PrioritizedPartPos> getPrioritizedPositionsSet(int channel) {
         if (channel == WILDCARD_CHANNEL) {
-            return getPrioritizedPositions();
+            return this.allPositions;
         }
-        Set<PrioritizedPartPos> positions = this.positions.get(channel);
-        Set<PrioritizedPartPos> wildcardPositions = this.positions.get(WILDCARD_CHANNEL);
-        if (positions == null) {
-            if (wildcardPositions != null) {
-                return wildcardPositions;
-            }
-            positions = Collections.emptySet();
-        }
-        if (wildcardPositions == null) {
-            return positions;
+        TreeSet<PrioritizedPartPos> merged = this.mergedPositions.get(channel);
+        if (merged != null) {
+            return merged;
         }
-        TreeSet<PrioritizedPartPos> merged = Sets.newTreeSet();
-        merged.addAll(positions);
-        merged.addAll(wildcardPositions);
-        return merged;
+        TreeSet<PrioritizedPartPos> positions = this.positions.get(channel);
+        return positions == null ? this.positions.get(WILDCARD_CHANNEL) : positions;
     }
 
     @Override
@@ -79,8 +93,34 @@ public abstract class PositionedAddonsNetwork implements IPositionedAddonsNetwor
         return this.positionChannels.getOrDefault(pos, -1);
     }
 
-    protected void invalidateIterators() {
-        setPartPosIteratorHandler(null);
+    @Nullable
+    @Override
+    public PrioritizedPartPos getPrioritizedPosition(PartPos pos) {
+        return this.prioritizedPositions.get(pos);
+    }
+
+    @Override
+    public Iterator<PrioritizedPartPos> getPrioritizedPositionsAfter(int channel, @Nullable PrioritizedPartPos cursor) {
+        return getPrioritizedPositionsAfter(getPrioritizedPositions(channel), cursor);
+    }
+
+    /**
+     * Iterate over the given positions in a cyclic manner,
+     * starting right after the given cursor position, and ending with the cursor position itself.
+     * @param positions Positions sorted by priority.
+     * @param cursor The position after which iteration should start,
+     *               or null if iteration should start at the first position.
+     * @return The positions, rotated after the cursor.
+     */
+    public static Iterator<PrioritizedPartPos> getPrioritizedPositionsAfter(NavigableSet<PrioritizedPartPos> positions,
+                                                                            @Nullable PrioritizedPartPos cursor) {
+        if (cursor == null) {
+            return positions.iterator();
+        }
+        // Both views are found in logarithmic time, so resuming does not depend on the cursor's offset.
+        return Iterators.concat(
+                positions.tailSet(cursor, false).iterator(),
+                positions.headSet(cursor, true).iterator());
     }
 
     @Override
@@ -99,17 +139,23 @@ public abstract class PositionedAddonsNetwork implements IPositionedAddonsNetwor
 
     @Override
     public boolean addPosition(PartPos pos, int priority, int channel) {
-        invalidateIterators();
-
+        // A position that is added with another channel or priority is moved.
+        PrioritizedPartPos previousPosition = this.prioritizedPositions.get(pos);
+        if (previousPosition != null && (previousPosition.getPriority() != priority
+                || this.positionChannels.get(pos) != channel)) {
+            removePosition(pos);
+        }
         PrioritizedPartPos prioritizedPosition = PrioritizedPartPos.of(pos, priority);
         if (allPositions.add(prioritizedPosition)) {
-            Set<PrioritizedPartPos> positions = this.positions.get(channel);
+            TreeSet<PrioritizedPartPos> positions = this.positions.get(channel);
             if (positions == null) {
                 positions = Sets.newTreeSet();
                 this.positions.put(channel, positions);
             }
             positions.add(prioritizedPosition);
+            addMergedPosition(channel, prioritizedPosition);
             this.positionChannels.put(pos, channel);
+            this.prioritizedPositions.put(pos, prioritizedPosition);
             this.onPositionAdded(channel, prioritizedPosition);
             return true;
         }
@@ -122,33 +168,76 @@ public abstract class PositionedAddonsNetwork implements IPositionedAddonsNetwor
 
     @Override
     public void removePosition(PartPos pos) {
-        invalidateIterators();
-
-        Wrapper<Integer> removedChannel = new Wrapper<>(-2);
-        Wrapper<PrioritizedPartPos> removedPos = new Wrapper<>(null);
-        for (Int2ObjectMap.Entry<Set<PrioritizedPartPos>> entry : this.positions.int2ObjectEntrySet()) {
-            int channel = entry.getIntKey();
-            Set<PrioritizedPartPos> positions = entry.getValue();
-            Iterator<PrioritizedPartPos> it = positions.iterator();
-            while (it.hasNext()) {
-                PrioritizedPartPos prioritizedPartPos = it.next();
-                if (prioritizedPartPos.getPartPos().equals(pos)) {
-                    it.remove();
-                    allPositions.remove(prioritizedPartPos);
-                    removedPos.set(prioritizedPartPos);
-                    removedChannel.set(channel);
-                    break;
-                }
-            }
+        // The channel and priority of the position are known, so its sets don't have to be searched.
+        PrioritizedPartPos prioritizedPartPos = prioritizedPositions.get(pos);
+        Integer channel = positionChannels.get(pos);
+        if (prioritizedPartPos == null || channel == null) {
+            return;
         }
-        int channel = removedChannel.get();
-        if (channel != -2) {
-            this.onPositionRemoved(channel, removedPos.get());
-            if (positions.get(channel).isEmpty()) {
+        TreeSet<PrioritizedPartPos> positions = this.positions.get(channel);
+        if (positions != null && positions.remove(prioritizedPartPos)) {
+            allPositions.remove(prioritizedPartPos);
+            removeMergedPosition(channel, prioritizedPartPos);
+            this.onPositionRemoved(channel, prioritizedPartPos);
+            if (positions.isEmpty()) {
                 this.positions.remove(channel);
+                if (channel == WILDCARD_CHANNEL) {
+                    this.mergedPositions.clear();
+                } else {
+                    this.mergedPositions.remove(channel);
+                }
             }
         }
         positionChannels.remove(pos);
+        prioritizedPositions.remove(pos);
+    }
+
+    /**
+     * Add a position to the merged views,
+     * and create the merged views of channels that only now have both channel and wildcard positions.
+     * This is done when positions are added, so that reading positions never modifies this network.
+     * @param channel The channel of the position.
+     * @param pos The added position.
+     */
+    protected void addMergedPosition(int channel, PrioritizedPartPos pos) {
+        TreeSet<PrioritizedPartPos> wildcardPositions = this.positions.get(WILDCARD_CHANNEL);
+        if (wildcardPositions == null) {
+            return;
+        }
+        if (channel == WILDCARD_CHANNEL) {
+            for (Int2ObjectMap.Entry<TreeSet<PrioritizedPartPos>> entry : this.positions.int2ObjectEntrySet()) {
+                if (entry.getIntKey() != WILDCARD_CHANNEL) {
+                    addMergedPosition(entry.getIntKey(), entry.getValue(), wildcardPositions, pos);
+                }
+            }
+        } else {
+            addMergedPosition(channel, this.positions.get(channel), wildcardPositions, pos);
+        }
+    }
+
+    protected void addMergedPosition(int channel, TreeSet<PrioritizedPartPos> positions,
+                                     TreeSet<PrioritizedPartPos> wildcardPositions, PrioritizedPartPos pos) {
+        TreeSet<PrioritizedPartPos> merged = this.mergedPositions.get(channel);
+        if (merged == null) {
+            merged = Sets.newTreeSet(positions);
+            merged.addAll(wildcardPositions);
+            this.mergedPositions.put(channel, merged);
+        } else {
+            merged.add(pos);
+        }
+    }
+
+    protected void removeMergedPosition(int channel, PrioritizedPartPos pos) {
+        if (channel == WILDCARD_CHANNEL) {
+            for (TreeSet<PrioritizedPartPos> merged : this.mergedPositions.values()) {
+                merged.remove(pos);
+            }
+        } else {
+            TreeSet<PrioritizedPartPos> merged = this.mergedPositions.get(channel);
+            if (merged != null) {
+                merged.remove(pos);
+            }
+        }
     }
 
     protected void onPositionRemoved(int channel, PrioritizedPartPos pos) {
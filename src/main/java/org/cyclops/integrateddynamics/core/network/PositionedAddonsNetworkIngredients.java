@@ -3,10 +3,18 @@ package org.cyclops.integrateddynamics.core.network;
 import com.google.common.collect.Maps;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
 import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollection;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
 import org.cyclops.integrateddynamics.GeneralConfig;
 import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
 import org.cyclops.integrateddynamics.api.ingredient.IIngredientPositionsIndex;
@@ -19,7 +27,6 @@ import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
 
 import javax.annotation.Nullable;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -36,6 +43,13 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
 
     private final IngredientObserver<T, M> ingredientObserver;
     private final Int2ObjectMap<IngredientPositionsIndex<T, M>> indexes;
+    private final IngredientPositionsIndexComposite<T, M> allChannelsIndex;
+    private final IIngredientPositionsIndex<T, M> emptyIndex;
+    private final Int2ObjectMap<IngredientChannelIndexed<T, M>> channels;
+    private final Object2LongMap<PartPos> positionMaxQuantities;
+    private final Object2IntMap<PartPos> positionMaxQuantityChannels;
+    private final Int2ObjectMap<MaxQuantityTotal> channelMaxQuantities;
+    private final MaxQuantityTotal maxQuantity;
 
     private boolean observe;
     private Map<PartPos, Long> lastSecondDurations = Maps.newHashMap();
@@ -46,6 +60,13 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         this.ingredientObserver = new IngredientObserver<>(this);
         this.ingredientObserver.addChangeObserver(this);
         this.indexes = new Int2ObjectOpenHashMap<>();
+        this.allChannelsIndex = new IngredientPositionsIndexComposite<>(component, this.indexes);
+        this.emptyIndex = new IngredientPositionsIndexEmpty<>(component);
+        this.channels = new Int2ObjectOpenHashMap<>();
+        this.positionMaxQuantities = new Object2LongOpenHashMap<>();
+        this.positionMaxQuantityChannels = new Object2IntOpenHashMap<>();
+        this.channelMaxQuantities = new Int2ObjectOpenHashMap<>();
+        this.maxQuantity = new MaxQuantityTotal();
 
         this.observe = false;
     }
@@ -55,8 +76,22 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         return component;
     }
 
+    /**
+     * Get the index of the given channel.
+     *
+     * For the wildcard channel, this is a view over the indexes of all other channels,
+     * unless there are positions on the wildcard channel.
+     * Those positions are observed for all channels,
+     * so the wildcard channel then has its own index that observes all positions exactly once.
+     *
+     * @param channel A channel id.
+     * @return The index, or null if it is empty.
+     */
     @Nullable
     public IIngredientPositionsIndex<T, M> getInstanceLocationsIndex(int channel) {
+        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL && !hasChannel(IPositionedAddonsNetwork.WILDCARD_CHANNEL)) {
+            return this.allChannelsIndex.hasIndexes() ? this.allChannelsIndex : null;
+        }
         return this.indexes.get(channel);
     }
 
@@ -67,8 +102,11 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
 
     @Override
     public void onChange(IIngredientComponentStorageObservable.StorageChangeEvent<T, M> event) {
-        applyChangesToChannel(event, event.getChannel());
-        applyChangesToChannel(event, -1); // Apply all changes to "all" channels
+        // Changes are only applied once, the "all" channels index is a view over the channel indexes.
+        // Changes of the wildcard channel that arrive after its last position was removed are dropped.
+        if (event.getChannel() != IPositionedAddonsNetwork.WILDCARD_CHANNEL || hasChannel(IPositionedAddonsNetwork.WILDCARD_CHANNEL)) {
+            applyChangesToChannel(event, event.getChannel());
+        }
 
         if (GeneralConfig.logChangeEvents) {
             System.out.println(this.toString() + event);
@@ -80,7 +118,10 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         PrioritizedPartPos pos = event.getPos();
         IngredientPositionsIndex<T, M> index = getIndexSafe(channel);
         if (event.getChangeType() == IIngredientComponentStorageObservable.Change.DELETION) {
-            index.removeAll(instances);
+            // Instances are removed one by one, so that the index can keep its total quantity.
+            for (T instance : instances) {
+                index.remove(instance);
+            }
             if (event.isCompleteChange()) {
                 for (T instance : instances) {
                     index.removePosition(instance, pos);
@@ -92,8 +133,8 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
                 this.indexes.remove(channel);
             }
         } else if (event.getChangeType() == IIngredientComponentStorageObservable.Change.ADDITION) {
-            index.addAll(instances);
             for (T instance : instances) {
+                index.add(instance);
                 index.addPosition(instance, pos);
             }
         }
@@ -111,24 +152,93 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
     @Override
     protected void onPositionAdded(int channel, PrioritizedPartPos pos) {
         super.onPositionAdded(channel, pos);
-
-        // If our position was added to the lastRemoved list without it being processed yet,
-        // remove it from the list before that processing is going to start.
-        List<PrioritizedPartPos> lastRemoved = ingredientObserver.getLastRemoved(channel);
-        if (lastRemoved != null) {
-            lastRemoved.remove(pos);
-        }
+        ingredientObserver.onPositionAdded(channel, pos);
+        IIngredientComponentStorage<T, M> storage = pos.getPartPos().getPos().isLoaded()
+                ? getPositionedStorageUnsafe(pos.getPartPos()) : null;
+        setPositionMaxQuantity(channel, pos.getPartPos(), storage != null ? storage.getMaxQuantity() : 0);
     }
 
     @Override
     protected void onPositionRemoved(int channel, PrioritizedPartPos pos) {
         super.onPositionRemoved(channel, pos);
         ingredientObserver.onPositionRemoved(channel, pos);
+        removePositionMaxQuantity(pos.getPartPos());
+        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL && !hasChannel(IPositionedAddonsNetwork.WILDCARD_CHANNEL)) {
+            // The wildcard channel becomes a view over all other channels again,
+            // so its own index and observation state are not needed anymore.
+            this.indexes.remove(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+            ingredientObserver.onChannelRemoved(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+        }
+        removeEmptyChannels();
+    }
+
+    protected synchronized void setPositionMaxQuantity(int channel, PartPos pos, long maxQuantity) {
+        removePositionMaxQuantity(pos);
+        this.positionMaxQuantities.put(pos, maxQuantity);
+        this.positionMaxQuantityChannels.put(pos, channel);
+        MaxQuantityTotal channelMaxQuantity = this.channelMaxQuantities.get(channel);
+        if (channelMaxQuantity == null) {
+            channelMaxQuantity = new MaxQuantityTotal();
+            this.channelMaxQuantities.put(channel, channelMaxQuantity);
+        }
+        channelMaxQuantity.add(maxQuantity);
+        this.maxQuantity.add(maxQuantity);
+    }
+
+    protected synchronized void removePositionMaxQuantity(PartPos pos) {
+        if (this.positionMaxQuantities.containsKey(pos)) {
+            long maxQuantity = this.positionMaxQuantities.removeLong(pos);
+            int channel = this.positionMaxQuantityChannels.removeInt(pos);
+            MaxQuantityTotal channelMaxQuantity = this.channelMaxQuantities.get(channel);
+            channelMaxQuantity.remove(maxQuantity);
+            if (channelMaxQuantity.isEmpty()) {
+                this.channelMaxQuantities.remove(channel);
+            }
+            this.maxQuantity.remove(maxQuantity);
+        }
+    }
+
+    @Override
+    public synchronized void setPositionMaxQuantity(PartPos pos, long maxQuantity) {
+        // Only positions that are still present are updated.
+        if (this.positionMaxQuantityChannels.containsKey(pos)) {
+            setPositionMaxQuantity(this.positionMaxQuantityChannels.getInt(pos), pos, maxQuantity);
+        }
+    }
+
+    @Override
+    public synchronized long getChannelMaxQuantity(int channel) {
+        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+            return this.maxQuantity.get();
+        }
+        // Positions in the wildcard channel are part of all channels.
+        MaxQuantityTotal channelMaxQuantity = this.channelMaxQuantities.get(channel);
+        MaxQuantityTotal wildcardMaxQuantity = this.channelMaxQuantities.get(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+        return MaxQuantityTotal.sum(channelMaxQuantity == null ? 0 : channelMaxQuantity.get(),
+                wildcardMaxQuantity == null ? 0 : wildcardMaxQuantity.get());
+    }
+
+    /**
+     * Drop the channel handles of all channels that have no positions anymore.
+     */
+    protected void removeEmptyChannels() {
+        ObjectIterator<Int2ObjectMap.Entry<IngredientChannelIndexed<T, M>>> it = this.channels.int2ObjectEntrySet().iterator();
+        while (it.hasNext()) {
+            if (getPrioritizedPositions(it.next().getIntKey()).isEmpty()) {
+                it.remove();
+            }
+        }
     }
 
     @Override
-    public IIngredientComponentStorage<T, M> getChannel(int channel) {
-        return new IngredientChannelIndexed<>(this, channel, getChannelIndex(channel));
+    public IngredientChannelIndexed<T, M> getChannel(int channel) {
+        // Channel handles are shared by all callers, they look up the current index of the channel lazily.
+        IngredientChannelIndexed<T, M> handle = this.channels.get(channel);
+        if (handle == null) {
+            handle = new IngredientChannelIndexed<>(this, channel);
+            this.channels.put(channel, handle);
+        }
+        return handle;
     }
 
     @Override
@@ -156,6 +266,29 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         }
     }
 
+    @Override
+    public void applyStorageChange(PartPos pos, IIngredientComponentStorageObservable.Change changeType,
+                                   boolean completeChange, T instance) {
+        PrioritizedPartPos prioritizedPos = getPrioritizedPosition(pos);
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        if (prioritizedPos == null || matcher.isEmpty(instance)) {
+            return;
+        }
+        // Store a copy of the instance, as it may be modified by the caller afterwards.
+        IngredientCollectionPrototypeMap<T, M> instances = new IngredientCollectionPrototypeMap<>(getComponent(), false);
+        instances.add(matcher.withQuantity(instance, matcher.getQuantity(instance)));
+
+        // The change is emitted to all channels in which the position is observed.
+        int positionChannel = getPositionChannel(pos);
+        for (int channel : getChannels()) {
+            if (channel == positionChannel || channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL
+                    || positionChannel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+                this.ingredientObserver.emitStorageChange(new IIngredientComponentStorageObservable.StorageChangeEvent<>(
+                        channel, prioritizedPos, changeType, completeChange, instances));
+            }
+        }
+    }
+
     @Override
     public boolean shouldObserve() {
         return this.observe;
@@ -167,7 +300,7 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         if (index == null) {
             // This can occur when the index is empty,
             // which can be caused by all attached storages being empty or no storages being available.
-            index = new IngredientPositionsIndexEmpty<>(getComponent());
+            index = this.emptyIndex;
         }
         return index;
     }
@@ -189,12 +322,31 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
 
     @Override
     public void kill() {
+        this.channels.clear();
+    }
+
+    /**
+     * This is only persisted if {@link GeneralConfig#ingredientNetworkPersistIndex} is enabled,
+     * as it contains the contents of all observed storages.
+     * @return The persisted state of the index.
+     */
+    public NBTTagCompound writeIndexToNBT() {
+        return this.ingredientObserver.writeToNBT();
+    }
 
+    /**
+     * Read the persisted state of the index.
+     * The index will be restored in the next update, once all positions have been added to the network.
+     * @param tag The persisted state of the index.
+     */
+    public void readIndexFromNBT(NBTTagCompound tag) {
+        this.ingredientObserver.readFromNBT(tag);
     }
 
     public void update() {
-        if (this.shouldObserve()) {
-            this.ingredientObserver.observe();
+        this.ingredientObserver.restorePersistedPositions();
+        // Observations that were postponed or that ran out of time are continued in the next tick.
+        if ((this.shouldObserve() || this.ingredientObserver.hasRemainingWork()) && this.ingredientObserver.observe()) {
             this.observe = false;
         }
     }
@@ -248,4 +400,50 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
     public void revalidateElement(INetworkElement element) {
 
     }
+
+    /**
+     * The summed capacity of a number of storages, which is kept up to date when capacities change.
+     * Capacities that are too large to be summed are considered unbounded, in which case the sum is unbounded as well.
+     */
+    protected static class MaxQuantityTotal {
+
+        // The sum of up to 65536 capacities below this limit can not overflow.
+        private static final long UNBOUNDED = Long.MAX_VALUE >> 16;
+
+        private long sum = 0;
+        private int unbounded = 0;
+        private int count = 0;
+
+        public void add(long maxQuantity) {
+            if (maxQuantity >= UNBOUNDED) {
+                unbounded++;
+            } else {
+                sum += maxQuantity;
+            }
+            count++;
+        }
+
+        public void remove(long maxQuantity) {
+            if (maxQuantity >= UNBOUNDED) {
+                unbounded--;
+            } else {
+                sum -= maxQuantity;
+            }
+            count--;
+        }
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        public long get() {
+            return unbounded > 0 || sum < 0 ? Long.MAX_VALUE : sum;
+        }
+
+        public static long sum(long a, long b) {
+            long sum = a + b;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        }
+
+    }
 }
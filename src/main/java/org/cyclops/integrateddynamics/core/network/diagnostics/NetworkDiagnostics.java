@@ -11,6 +11,9 @@ import org.cyclops.integrateddynamics.api.network.INetworkElement;
 import org.cyclops.integrateddynamics.api.network.IPartNetworkElement;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.core.network.EnergyLedger;
+import org.cyclops.integrateddynamics.core.network.EnergyNetwork;
+import org.cyclops.integrateddynamics.core.network.Network;
 import org.cyclops.integrateddynamics.core.persist.world.NetworkWorldStorage;
 import org.cyclops.integrateddynamics.network.packet.NetworkDiagnosticsNetworkPacket;
 
@@ -55,6 +58,13 @@ public class NetworkDiagnostics {
     }
 
     public void sendNetworkUpdateToPlayer(EntityPlayerMP player, INetwork network) {
+        EnergyLedger energyLedger = null;
+        for (IFullNetworkListener fullNetworkListener : network.getFullNetworkListeners()) {
+            if (fullNetworkListener instanceof EnergyNetwork) {
+                energyLedger = ((EnergyNetwork) fullNetworkListener).getLedger();
+            }
+        }
+
         List<RawPartData> rawParts = Lists.newArrayList();
         for (INetworkElement networkElement : network.getElements()) {
             if (networkElement instanceof IPartNetworkElement) {
@@ -64,7 +74,8 @@ public class NetworkDiagnostics {
                 rawParts.add(new RawPartData(pos.getPos().getDimensionId(),
                         pos.getPos().getBlockPos(), pos.getSide(),
                         L10NHelpers.localize(partNetworkElement.getPart().getTranslationKey()),
-                        lastSecondDurationNs));
+                        lastSecondDurationNs,
+                        energyLedger != null ? energyLedger.getLastSecondShedUpdates(networkElement) : 0));
             } else {
                 // If needed, we can send the other part types later on as well
             }
@@ -84,7 +95,9 @@ public class NetworkDiagnostics {
             }
         }
 
-        RawNetworkData rawNetworkData = new RawNetworkData(network.isKilled(), network.hashCode(), network.getCablesCount(), rawParts, rawObservers);
+        int deferredUpdates = network instanceof Network ? ((Network) network).getLastSecondDeferredUpdates() : 0;
+        int shedUpdates = energyLedger != null ? energyLedger.getLastSecondShedUpdates() : 0;
+        RawNetworkData rawNetworkData = new RawNetworkData(network.isKilled(), network.hashCode(), network.getCablesCount(), deferredUpdates, shedUpdates, rawParts, rawObservers);
         IntegratedDynamics._instance.getPacketHandler().sendToPlayer(new NetworkDiagnosticsNetworkPacket(rawNetworkData.toNbt()), player);
     }
 
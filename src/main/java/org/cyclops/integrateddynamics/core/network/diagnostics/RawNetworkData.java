@@ -17,12 +17,14 @@ public class RawNetworkData implements IRawData {
     private final boolean killed;
     private final int id;
     private final int cables;
+    private final int deferredUpdates;
+    private final int shedUpdates;
     private final List<RawPartData> parts;
     private final List<RawObserverData> observers;
 
     @Override
     public String toString() {
-        return String.format("Network %s (cables: %s; elements: %s)", id, cables, parts.size());
+        return String.format("Network %s (cables: %s; elements: %s; deferred updates: %s; shed updates: %s)", id, cables, parts.size(), deferredUpdates, shedUpdates);
     }
 
     public NBTTagCompound toNbt() {
@@ -30,6 +32,8 @@ public class RawNetworkData implements IRawData {
         tag.setBoolean("killed", killed);
         tag.setInteger("id", id);
         tag.setLong("cables", cables);
+        tag.setInteger("deferredUpdates", deferredUpdates);
+        tag.setInteger("shedUpdates", shedUpdates);
 
         NBTTagList listParts = new NBTTagList();
         for (RawPartData part : parts) {
@@ -62,7 +66,7 @@ public class RawNetworkData implements IRawData {
         }
 
         return new RawNetworkData(tag.getBoolean("killed"), tag.getInteger("id"),
-                tag.getInteger("cables"), parts, observers);
+                tag.getInteger("cables"), tag.getInteger("deferredUpdates"), tag.getInteger("shedUpdates"), parts, observers);
     }
 
 }
@@ -16,9 +16,13 @@ public class RawPartData implements IRawData {
     private final EnumFacing side;
     private final String name;
     private final long last20TicksDurationNs;
+    private final int last20TicksShedUpdates;
 
     @Override
     public String toString() {
+        if (last20TicksShedUpdates > 0) {
+            return String.format("%s: %s,%s,%s,%s (%s) (shed updates: %s)", name, pos.getX(), pos.getY(), pos.getZ(), side, dimension, last20TicksShedUpdates);
+        }
         return String.format("%s: %s,%s,%s,%s (%s)", name, pos.getX(), pos.getY(), pos.getZ(), side, dimension);
     }
 
@@ -29,12 +33,14 @@ public class RawPartData implements IRawData {
         tag.setInteger("side", side.ordinal());
         tag.setString("name", name);
         tag.setLong("last20TicksDurationNs", last20TicksDurationNs);
+        tag.setInteger("last20TicksShedUpdates", last20TicksShedUpdates);
         return tag;
     }
 
     public static RawPartData fromNbt(NBTTagCompound tag) {
         return new RawPartData(tag.getInteger("dimension"), BlockPos.fromLong(tag.getLong("pos")),
-                EnumFacing.VALUES[tag.getInteger("side")], tag.getString("name"), tag.getLong("last20TicksDurationNs"));
+                EnumFacing.VALUES[tag.getInteger("side")], tag.getString("name"), tag.getLong("last20TicksDurationNs"),
+                tag.getInteger("last20TicksShedUpdates"));
     }
 
 }
@@ -1,26 +1,28 @@
 package org.cyclops.integrateddynamics.core.path;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import lombok.Data;
 import lombok.experimental.Delegate;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.World;
 import net.minecraftforge.common.util.Constants;
-import net.minecraftforge.fml.common.FMLCommonHandler;
 import org.apache.logging.log4j.Level;
+import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.cyclopscore.helper.MinecraftHelpers;
-import org.cyclops.cyclopscore.helper.TileHelpers;
 import org.cyclops.cyclopscore.persist.nbt.INBTSerializable;
 import org.cyclops.integrateddynamics.IntegratedDynamics;
-import org.cyclops.integrateddynamics.api.path.IPathElement;
 import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
-import org.cyclops.integrateddynamics.capability.path.PathElementConfig;
+import org.cyclops.integrateddynamics.capability.path.PathElementLazy;
 import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -48,48 +50,93 @@ public class Cluster implements Collection<ISidedPathElement>, INBTSerializable
     @Override
     public NBTTagCompound toNBT() {
         NBTTagCompound tag = new NBTTagCompound();
-        NBTTagList list = new NBTTagList();
 
+        // Group all positions per dimension, and store them as packed positions and sides.
+        Int2ObjectMap<List<ISidedPathElement>> dimensionElements = new Int2ObjectOpenHashMap<>();
         for(ISidedPathElement e : elements) {
-            NBTTagCompound elementTag = new NBTTagCompound();
-            elementTag.setInteger("dimension", e.getPathElement().getPosition().getDimensionId());
-            elementTag.setLong("pos", e.getPathElement().getPosition().getBlockPos().toLong());
-            if (e.getSide() != null) {
-                elementTag.setInteger("side", e.getSide().ordinal());
+            int dimensionId = e.getPathElement().getPosition().getDimensionId();
+            List<ISidedPathElement> list = dimensionElements.get(dimensionId);
+            if (list == null) {
+                list = Lists.newArrayList();
+                dimensionElements.put(dimensionId, list);
             }
-            list.appendTag(elementTag);
+            list.add(e);
         }
 
-        tag.setTag("list", list);
+        NBTTagList dimensions = new NBTTagList();
+        for (Int2ObjectMap.Entry<List<ISidedPathElement>> entry : dimensionElements.int2ObjectEntrySet()) {
+            List<ISidedPathElement> list = entry.getValue();
+            int[] positions = new int[list.size() * 2];
+            byte[] sides = new byte[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                ISidedPathElement e = list.get(i);
+                long pos = e.getPathElement().getPosition().getBlockPos().toLong();
+                positions[i * 2] = (int) (pos >> 32);
+                positions[i * 2 + 1] = (int) pos;
+                sides[i] = (byte) (e.getSide() == null ? -1 : e.getSide().ordinal());
+            }
+            NBTTagCompound dimensionTag = new NBTTagCompound();
+            dimensionTag.setInteger("dimension", entry.getIntKey());
+            dimensionTag.setIntArray("positions", positions);
+            dimensionTag.setByteArray("sides", sides);
+            dimensions.appendTag(dimensionTag);
+        }
+
+        tag.setTag("dimensions", dimensions);
         return tag;
     }
 
     @Override
     public void fromNBT(NBTTagCompound tag) {
-        NBTTagList list = tag.getTagList("list", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal());
-
-        for(int i = 0; i < list.tagCount(); i++) {
-            NBTTagCompound elementTag = list.getCompoundTagAt(i);
-            int dimensionId = elementTag.getInteger("dimension");
-            BlockPos pos = BlockPos.fromLong(elementTag.getLong("pos"));
-            EnumFacing side = null;
-            if (elementTag.hasKey("side", Constants.NBT.TAG_INT)) {
-                side = EnumFacing.VALUES[elementTag.getInteger("side")];
+        if (tag.hasKey("dimensions", MinecraftHelpers.NBTTag_Types.NBTTagList.ordinal())) {
+            NBTTagList dimensions = tag.getTagList("dimensions", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal());
+            for (int i = 0; i < dimensions.tagCount(); i++) {
+                NBTTagCompound dimensionTag = dimensions.getCompoundTagAt(i);
+                int dimensionId = dimensionTag.getInteger("dimension");
+                int[] positions = dimensionTag.getIntArray("positions");
+                byte[] sides = dimensionTag.getByteArray("sides");
+                if (isDimensionValid(dimensionId)) {
+                    for (int j = 0; j < sides.length; j++) {
+                        long pos = ((long) positions[j * 2] << 32) | (positions[j * 2 + 1] & 0xFFFFFFFFL);
+                        EnumFacing side = sides[j] < 0 ? null : EnumFacing.VALUES[sides[j]];
+                        addLazy(dimensionId, BlockPos.fromLong(pos), side);
+                    }
+                }
             }
-
-            if(!net.minecraftforge.common.DimensionManager.isDimensionRegistered(dimensionId)) {
-                IntegratedDynamics.clog(Level.WARN, String.format("Skipped loading part from a network at the " +
-                        "invalid dimension id %s.", dimensionId));
-            } else {
-                World world = FMLCommonHandler.instance().getMinecraftServerInstance().getWorld(dimensionId);
-                IPathElement pathElement = TileHelpers.getCapability(world, pos, side, PathElementConfig.CAPABILITY);
-                if(pathElement == null) {
-                    IntegratedDynamics.clog(Level.WARN, String.format("Skipped loading part from a network at " +
-                            "position %s in world %s because it has no valid path element.", pos, dimensionId));
-                } else {
-                    elements.add(SidedPathElement.of(pathElement, side));
+        } else {
+            // Legacy format, with a separate compound per element.
+            NBTTagList list = tag.getTagList("list", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal());
+            for(int i = 0; i < list.tagCount(); i++) {
+                NBTTagCompound elementTag = list.getCompoundTagAt(i);
+                int dimensionId = elementTag.getInteger("dimension");
+                BlockPos pos = BlockPos.fromLong(elementTag.getLong("pos"));
+                EnumFacing side = null;
+                if (elementTag.hasKey("side", Constants.NBT.TAG_INT)) {
+                    side = EnumFacing.VALUES[elementTag.getInteger("side")];
+                }
+                if (isDimensionValid(dimensionId)) {
+                    addLazy(dimensionId, pos, side);
                 }
             }
         }
     }
+
+    protected boolean isDimensionValid(int dimensionId) {
+        if(!net.minecraftforge.common.DimensionManager.isDimensionRegistered(dimensionId)) {
+            IntegratedDynamics.clog(Level.WARN, String.format("Skipped loading part from a network at the " +
+                    "invalid dimension id %s.", dimensionId));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Add a path element of which the capability will only be resolved when it is used.
+     * @param dimensionId The dimension id.
+     * @param pos The position.
+     * @param side The side.
+     */
+    protected void addLazy(int dimensionId, BlockPos pos, @Nullable EnumFacing side) {
+        elements.add(SidedPathElement.of(new PathElementLazy(DimPos.of(dimensionId, pos), side), side));
+    }
 }
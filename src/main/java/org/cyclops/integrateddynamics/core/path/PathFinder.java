@@ -1,11 +1,20 @@
 package org.cyclops.integrateddynamics.core.path;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
 import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
 
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
 import java.util.TreeSet;
 
 /**
@@ -14,35 +23,201 @@ import java.util.TreeSet;
  */
 public final class PathFinder {
 
-    protected static TreeSet<ISidedPathElement> getConnectedElements(ISidedPathElement head, Set<DimPos> visitedPositions) {
+    protected static TreeSet<ISidedPathElement> getConnectedElements(ISidedPathElement head) {
         TreeSet<ISidedPathElement> elements = Sets.newTreeSet();
+        VisitedPositions visitedPositions = new VisitedPositions();
+        ArrayDeque<ISidedPathElement> queue = new ArrayDeque<>();
 
         // Make sure to add our head
-        if(!visitedPositions.contains(head.getPathElement().getPosition())) {
-            elements.add(head);
-            visitedPositions.add(head.getPathElement().getPosition());
+        visitedPositions.add(head.getPathElement().getPosition());
+        elements.add(head);
+        queue.add(head);
+
+        // Iteratively add all neighbours that haven't been checked yet,
+        // so that the stack depth does not depend on the length of the path.
+        ISidedPathElement element;
+        while ((element = queue.poll()) != null) {
+            for (ISidedPathElement neighbour : element.getPathElement().getReachableElements()) {
+                if (visitedPositions.add(neighbour.getPathElement().getPosition())) {
+                    elements.add(neighbour);
+                    queue.add(neighbour);
+                }
+            }
+        }
+
+        return elements;
+    }
+
+    public static Cluster getConnectedCluster(ISidedPathElement head) {
+        return new Cluster(getConnectedElements(head));
+    }
+
+    /**
+     * Find the clusters that have become detached from each other after a connection between path elements was broken.
+     *
+     * A search is started from each head, and all searches are expanded one element at a time in turn.
+     * Searches that reach each other are merged using a union-find structure over the heads.
+     * Expansion stops as soon as at most one search is still open,
+     * so that the amount of work only depends on the size of the detached clusters,
+     * and not on the size of the remaining cluster.
+     *
+     * @param heads The path elements that were adjacent to the broken connection.
+     * @return The detached clusters, excluding the largest remaining cluster.
+     *         This is empty if all heads are still connected to each other.
+     */
+    public static List<Cluster> getDetachedClusters(List<ISidedPathElement> heads) {
+        int size = heads.size();
+        if (size <= 1) {
+            return Collections.emptyList();
         }
 
-        // Add neighbours that haven't been checked yet.
-        for(ISidedPathElement neighbour : head.getPathElement().getReachableElements()) {
-            if(!visitedPositions.contains(neighbour.getPathElement().getPosition())) {
-                elements.add(neighbour);
-                visitedPositions.add(neighbour.getPathElement().getPosition());
+        int[] parents = new int[size];
+        List<ArrayDeque<ISidedPathElement>> queues = Lists.newArrayListWithCapacity(size);
+        List<TreeSet<ISidedPathElement>> members = Lists.newArrayListWithCapacity(size);
+        PositionOwners owners = new PositionOwners();
+
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            queues.add(new ArrayDeque<>());
+            members.add(Sets.newTreeSet());
+            ISidedPathElement head = heads.get(i);
+            int owner = owners.get(head.getPathElement().getPosition());
+            if (owner < 0) {
+                owners.put(head.getPathElement().getPosition(), i);
+                queues.get(i).add(head);
+                members.get(i).add(head);
+            } else {
+                union(parents, queues, members, owner, i);
             }
         }
 
-        // Loop over the added neighbours to recursively check their neighbours.
-        Set<ISidedPathElement> neighbourElements = Sets.newHashSet();
-        for(ISidedPathElement addedElement : elements) {
-            neighbourElements.addAll(getConnectedElements(addedElement, visitedPositions));
+        while (true) {
+            int roots = 0;
+            int openRoots = 0;
+            for (int i = 0; i < size; i++) {
+                if (parents[i] == i) {
+                    roots++;
+                    if (!queues.get(i).isEmpty()) {
+                        openRoots++;
+                    }
+                }
+            }
+
+            // All searches have met each other, so nothing became detached.
+            if (roots == 1) {
+                return Collections.emptyList();
+            }
+
+            // At most one search is still open, so all closed searches are detached clusters.
+            if (openRoots <= 1) {
+                int largestClosed = -1;
+                if (openRoots == 0) {
+                    // Let the largest cluster keep the original network.
+                    for (int i = 0; i < size; i++) {
+                        if (parents[i] == i && (largestClosed < 0 || members.get(i).size() > members.get(largestClosed).size())) {
+                            largestClosed = i;
+                        }
+                    }
+                }
+                List<Cluster> clusters = Lists.newArrayList();
+                for (int i = 0; i < size; i++) {
+                    if (parents[i] == i && i != largestClosed && queues.get(i).isEmpty()) {
+                        clusters.add(new Cluster(members.get(i)));
+                    }
+                }
+                return clusters;
+            }
+
+            // Expand each open search with a single element.
+            for (int i = 0; i < size; i++) {
+                if (parents[i] == i && !queues.get(i).isEmpty()) {
+                    ISidedPathElement element = queues.get(i).poll();
+                    for (ISidedPathElement neighbour : element.getPathElement().getReachableElements()) {
+                        DimPos position = neighbour.getPathElement().getPosition();
+                        int owner = owners.get(position);
+                        if (owner < 0) {
+                            int root = find(parents, i);
+                            owners.put(position, root);
+                            queues.get(root).add(neighbour);
+                            members.get(root).add(neighbour);
+                        } else {
+                            union(parents, queues, members, owner, i);
+                        }
+                    }
+                }
+            }
         }
-        elements.addAll(neighbourElements);
+    }
 
-        return elements;
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
     }
 
-    public static Cluster getConnectedCluster(ISidedPathElement head) {
-        return new Cluster(getConnectedElements(head, Sets.<DimPos>newTreeSet()));
+    private static void union(int[] parents, List<ArrayDeque<ISidedPathElement>> queues,
+                              List<TreeSet<ISidedPathElement>> members, int a, int b) {
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        if (rootA != rootB) {
+            // Always move the smaller search into the larger one.
+            if (members.get(rootA).size() < members.get(rootB).size()) {
+                int tmp = rootA;
+                rootA = rootB;
+                rootB = tmp;
+            }
+            parents[rootB] = rootA;
+            queues.get(rootA).addAll(queues.get(rootB));
+            queues.get(rootB).clear();
+            members.get(rootA).addAll(members.get(rootB));
+            members.get(rootB).clear();
+        }
+    }
+
+    /**
+     * A set of visited positions, keyed by dimension and packed block position,
+     * to avoid allocating and comparing {@link DimPos} instances in large searches.
+     */
+    private static class VisitedPositions {
+
+        private final Int2ObjectMap<LongSet> dimensions = new Int2ObjectOpenHashMap<>();
+
+        public boolean add(DimPos pos) {
+            LongSet positions = dimensions.get(pos.getDimensionId());
+            if (positions == null) {
+                positions = new LongOpenHashSet();
+                dimensions.put(pos.getDimensionId(), positions);
+            }
+            return positions.add(pos.getBlockPos().toLong());
+        }
+
+    }
+
+    /**
+     * A mapping from positions to the index of the search that first visited it,
+     * keyed by dimension and packed block position.
+     */
+    private static class PositionOwners {
+
+        private final Int2ObjectMap<Long2IntMap> dimensions = new Int2ObjectOpenHashMap<>();
+
+        public int get(DimPos pos) {
+            Long2IntMap positions = dimensions.get(pos.getDimensionId());
+            return positions == null ? -1 : positions.get(pos.getBlockPos().toLong());
+        }
+
+        public void put(DimPos pos, int owner) {
+            Long2IntMap positions = dimensions.get(pos.getDimensionId());
+            if (positions == null) {
+                positions = new Long2IntOpenHashMap();
+                positions.defaultReturnValue(-1);
+                dimensions.put(pos.getDimensionId(), positions);
+            }
+            positions.put(pos.getBlockPos().toLong(), owner);
+        }
+
     }
 
 }
@@ -1,5 +1,6 @@
 package org.cyclops.integrateddynamics.core.persist.world;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
@@ -9,8 +10,10 @@ import org.cyclops.cyclopscore.persist.nbt.NBTPersist;
 import org.cyclops.cyclopscore.persist.world.WorldStorage;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.core.network.Network;
+import org.cyclops.integrateddynamics.core.network.NetworkFormationQueue;
+import org.cyclops.integrateddynamics.core.network.NetworkPositionIndex;
 
-import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -23,6 +26,7 @@ public class NetworkWorldStorage extends WorldStorage {
 
     @NBTPersist
     private Set<INetwork> networks = Sets.newHashSet();
+    private volatile List<INetwork> networksSnapshot = null;
 
     private NetworkWorldStorage(ModBase mod) {
         super(mod);
@@ -54,11 +58,15 @@ public class NetworkWorldStorage extends WorldStorage {
         } else {
             super.readGeneratedFieldsFromNBT(tag);
         }
+        invalidateSnapshot();
     }
 
     @Override
     public void reset() {
         networks.clear();
+        invalidateSnapshot();
+        NetworkPositionIndex.getInstance().reset();
+        NetworkFormationQueue.getInstance().reset();
     }
 
     @Override
@@ -71,7 +79,9 @@ public class NetworkWorldStorage extends WorldStorage {
      * @param network The network.
      */
     public synchronized void addNewNetwork(INetwork network) {
-        networks.add(network);
+        if (networks.add(network)) {
+            invalidateSnapshot();
+        }
     }
 
     /**
@@ -80,14 +90,34 @@ public class NetworkWorldStorage extends WorldStorage {
      * @param network The network.
      */
     public synchronized void removeInvalidatedNetwork(INetwork network) {
-        networks.remove(network);
+        if (networks.remove(network)) {
+            invalidateSnapshot();
+        }
+    }
+
+    protected void invalidateSnapshot() {
+        this.networksSnapshot = null;
     }
 
     /**
+     * Get an immutable snapshot of the current network set.
+     * The snapshot is only recreated after the set of networks has changed,
+     * so that retrieving the networks in each tick does not allocate anything.
+     * The snapshot is a list, because distinct networks may be equal to each other.
      * @return A thread-safe copy of the current network set.
      */
-    public synchronized Set<INetwork> getNetworks() {
-        return Collections.unmodifiableSet(Sets.newHashSet(networks));
+    public List<INetwork> getNetworks() {
+        List<INetwork> snapshot = this.networksSnapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = this.networksSnapshot;
+                if (snapshot == null) {
+                    snapshot = ImmutableList.copyOf(networks);
+                    this.networksSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
     }
 
     @Override
@@ -0,0 +1,67 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An energy ledger over dummy storages in a single channel, without a network.
+ * @author rubensworks
+ */
+public class DummyEnergyLedger extends EnergyLedger {
+
+    private final List<PartPos> positions = Lists.newArrayList();
+    private final Map<PartPos, DummyEnergyStorage> storages = Maps.newHashMap();
+    private long rateLimit = Integer.MAX_VALUE;
+
+    public DummyEnergyLedger() {
+        super(null);
+    }
+
+    public void addStorage(PartPos pos, DummyEnergyStorage storage) {
+        if (!this.positions.contains(pos)) {
+            this.positions.add(pos);
+        }
+        this.storages.put(pos, storage);
+    }
+
+    public void removeStorage(PartPos pos) {
+        this.storages.remove(pos);
+    }
+
+    public void setRateLimit(long rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    @Override
+    protected Iterable<PartPos> getPositions(int channel) {
+        return this.positions;
+    }
+
+    @Override
+    protected boolean isPositionAvailable(PartPos pos) {
+        return this.storages.containsKey(pos);
+    }
+
+    @Override
+    protected long getRateLimit() {
+        return this.rateLimit;
+    }
+
+    @Override
+    protected void addStorage(Balance balance, PartPos pos) {
+        DummyEnergyStorage storage = this.storages.get(pos);
+        balance.addStorage(pos, storage.getStored(), storage.getMaxQuantity());
+    }
+
+    @Override
+    protected long extract(int channel, PartPos pos, long amount) {
+        if (!isPositionAvailable(pos)) {
+            return 0;
+        }
+        return this.storages.get(pos).extract(Math.min(amount, getRateLimit()), false);
+    }
+}
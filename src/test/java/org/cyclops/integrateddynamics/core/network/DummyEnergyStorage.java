@@ -0,0 +1,78 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Iterators;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * A simple energy storage.
+ * @author rubensworks
+ */
+public class DummyEnergyStorage implements IIngredientComponentStorage<Integer, Boolean> {
+
+    private final int capacity;
+    private int stored;
+
+    public DummyEnergyStorage(int capacity, int stored) {
+        this.capacity = capacity;
+        this.stored = stored;
+    }
+
+    public int getStored() {
+        return stored;
+    }
+
+    @Override
+    public IngredientComponent<Integer, Boolean> getComponent() {
+        return IngredientComponent.ENERGY;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return stored > 0 ? Iterators.singletonIterator(stored) : Collections.emptyIterator();
+    }
+
+    @Override
+    public Iterator<Integer> iterator(@Nonnull Integer prototype, Boolean matchCondition) {
+        return iterator();
+    }
+
+    @Override
+    public long getMaxQuantity() {
+        return capacity;
+    }
+
+    @Override
+    public Integer insert(@Nonnull Integer ingredient, boolean simulate) {
+        int inserted = Math.min(ingredient, capacity - stored);
+        if (!simulate) {
+            stored += inserted;
+        }
+        return ingredient - inserted;
+    }
+
+    @Override
+    public Integer extract(@Nonnull Integer prototype, Boolean matchCondition, boolean simulate) {
+        if (matchCondition && stored < prototype) {
+            return 0;
+        }
+        int extracted = Math.min(prototype, stored);
+        if (!simulate) {
+            stored -= extracted;
+        }
+        return extracted;
+    }
+
+    @Override
+    public Integer extract(long maxQuantity, boolean simulate) {
+        int extracted = (int) Math.min(maxQuantity, stored);
+        if (!simulate) {
+            stored -= extracted;
+        }
+        return extracted;
+    }
+}
@@ -0,0 +1,87 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+
+/**
+ * Dummy network element that is ordered by id.
+ * @author rubensworks
+ */
+public class DummyNetworkElement extends ConsumingNetworkElementBase {
+
+    private final int id;
+    private int priority;
+    private int channel;
+    private int updateInterval = 1;
+    private int consumptionRate = 0;
+
+    public DummyNetworkElement(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public int getUpdateInterval() {
+        return updateInterval;
+    }
+
+    public DummyNetworkElement setUpdateInterval(int updateInterval) {
+        this.updateInterval = updateInterval;
+        return this;
+    }
+
+    @Override
+    public boolean isUpdate() {
+        return true;
+    }
+
+    @Override
+    public int getConsumptionRate() {
+        return consumptionRate;
+    }
+
+    public DummyNetworkElement setConsumptionRate(int consumptionRate) {
+        this.consumptionRate = consumptionRate;
+        return this;
+    }
+
+    @Override
+    public void setPriorityAndChannel(INetwork network, int priority, int channel) {
+        this.priority = priority;
+        this.channel = channel;
+    }
+
+    public DummyNetworkElement setPriorityAndChannel(int priority, int channel) {
+        this.priority = priority;
+        this.channel = channel;
+        return this;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public int getChannel() {
+        return channel;
+    }
+
+    @Override
+    public boolean canRevalidate(INetwork network) {
+        return true;
+    }
+
+    @Override
+    public int compareTo(INetworkElement o) {
+        return Integer.compare(id, ((DummyNetworkElement) o).id);
+    }
+
+    @Override
+    public String toString() {
+        return "DummyNetworkElement(" + id + ")";
+    }
+}
@@ -0,0 +1,67 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageSignaling;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * A simple energy storage that signals its changes.
+ * @author rubensworks
+ */
+public class DummySignalingEnergyStorage extends DummyEnergyStorage implements IIngredientComponentStorageSignaling {
+
+    private final List<Runnable> listeners = Lists.newArrayList();
+
+    public DummySignalingEnergyStorage(int capacity, int stored) {
+        super(capacity, stored);
+    }
+
+    public List<Runnable> getListeners() {
+        return listeners;
+    }
+
+    protected void signal() {
+        for (Runnable listener : Lists.newArrayList(listeners)) {
+            listener.run();
+        }
+    }
+
+    @Override
+    public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public Integer insert(@Nonnull Integer ingredient, boolean simulate) {
+        Integer remaining = super.insert(ingredient, simulate);
+        if (!simulate && !remaining.equals(ingredient)) {
+            signal();
+        }
+        return remaining;
+    }
+
+    @Override
+    public Integer extract(@Nonnull Integer prototype, Boolean matchCondition, boolean simulate) {
+        Integer extracted = super.extract(prototype, matchCondition, simulate);
+        if (!simulate && extracted > 0) {
+            signal();
+        }
+        return extracted;
+    }
+
+    @Override
+    public Integer extract(long maxQuantity, boolean simulate) {
+        Integer extracted = super.extract(maxQuantity, simulate);
+        if (!simulate && extracted > 0) {
+            signal();
+        }
+        return extracted;
+    }
+}
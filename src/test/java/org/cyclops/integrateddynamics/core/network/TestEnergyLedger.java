@@ -0,0 +1,242 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the admission, shedding and settling of energy ledgers.
+ * @author rubensworks
+ */
+public class TestEnergyLedger {
+
+    private static final PartPos POS_A = PartPos.of(DimPos.of(0, new BlockPos(0, 0, 0)), EnumFacing.NORTH);
+    private static final PartPos POS_B = PartPos.of(DimPos.of(0, new BlockPos(1, 0, 0)), EnumFacing.NORTH);
+
+    private int multiplierOriginal;
+    private boolean loadSheddingOriginal;
+
+    private DummyEnergyLedger ledger;
+    private DummyEnergyStorage storageA;
+    private DummyEnergyStorage storageB;
+
+    @Before
+    public void beforeEach() {
+        multiplierOriginal = GeneralConfig.energyConsumptionMultiplier;
+        loadSheddingOriginal = GeneralConfig.energyLoadShedding;
+        GeneralConfig.energyConsumptionMultiplier = 1;
+        GeneralConfig.energyLoadShedding = true;
+
+        ledger = new DummyEnergyLedger();
+        storageA = new DummyEnergyStorage(100, 100);
+        storageB = new DummyEnergyStorage(100, 50);
+    }
+
+    @After
+    public void afterEach() {
+        GeneralConfig.energyConsumptionMultiplier = multiplierOriginal;
+        GeneralConfig.energyLoadShedding = loadSheddingOriginal;
+    }
+
+    protected DummyNetworkElement consumer(int id, int priority, int rate) {
+        DummyNetworkElement element = new DummyNetworkElement(id).setPriorityAndChannel(priority, 0).setConsumptionRate(rate);
+        ledger.setConsumptionRate(element, rate);
+        return element;
+    }
+
+    protected void tick() {
+        ledger.settle();
+        ledger.reset();
+    }
+
+    @Test
+    public void testBalance() {
+        ledger.addStorage(POS_A, storageA);
+        ledger.addStorage(POS_B, storageB);
+        EnergyLedger.Balance balance = ledger.getBalance(0);
+        assertThat(balance.getStored(), is(150L));
+        assertThat(balance.getCapacity(), is(200L));
+        assertThat(balance.getAvailable(), is(150L));
+        assertThat(balance.getConsumed(), is(0L));
+        assertThat(balance.isShedding(), is(false));
+    }
+
+    @Test
+    public void testReserve() {
+        ledger.addStorage(POS_A, storageA);
+        assertThat(ledger.reserve(0, 60), is(true));
+        assertThat(ledger.getBalance(0).getAvailable(), is(40L));
+        assertThat(ledger.reserve(0, 60), is(false));
+        assertThat(ledger.getBalance(0).getAvailable(), is(40L));
+
+        // Reserving does not extract anything.
+        assertThat(storageA.getStored(), is(100));
+    }
+
+    @Test
+    public void testReserveRateLimit() {
+        ledger.addStorage(POS_A, storageA);
+        ledger.setRateLimit(50);
+        assertThat(ledger.reserve(0, 60), is(false));
+        assertThat(ledger.reserve(0, 50), is(true));
+    }
+
+    @Test
+    public void testAdmit() {
+        ledger.addStorage(POS_A, storageA);
+        DummyNetworkElement e0 = consumer(0, 0, 30);
+        assertThat(ledger.admit(e0, 30), is(true));
+        assertThat(ledger.admit(e0, 30), is(true));
+        assertThat(ledger.admit(e0, 30), is(true));
+        assertThat(ledger.admit(e0, 30), is(false));
+        assertThat(ledger.getLastSecondShedUpdates(e0), is(1));
+    }
+
+    @Test
+    public void testSettle() {
+        ledger.addStorage(POS_A, storageA);
+        ledger.addStorage(POS_B, storageB);
+        assertThat(ledger.reserve(0, 50), is(true));
+        ledger.consume(0, 50);
+        assertThat(ledger.getBalance(0).getConsumed(), is(50L));
+        tick();
+
+        // The fullest storage is lowered to the fill ratio of the other one.
+        assertThat(storageA.getStored(), is(50));
+        assertThat(storageB.getStored(), is(50));
+        assertThat(ledger.getDebt(0), is(0L));
+        assertThat(ledger.getBalance(0).getStored(), is(100L));
+    }
+
+    @Test
+    public void testSettleEqualFill() {
+        storageB = new DummyEnergyStorage(100, 100);
+        ledger.addStorage(POS_A, storageA);
+        ledger.addStorage(POS_B, storageB);
+        ledger.consume(0, 150);
+        tick();
+        assertThat(storageA.getStored(), is(25));
+        assertThat(storageB.getStored(), is(25));
+    }
+
+    @Test
+    public void testSettleCompensates() {
+        storageB = new DummyEnergyStorage(100, 100);
+        ledger.addStorage(POS_A, storageA);
+        ledger.addStorage(POS_B, storageB);
+        ledger.setRateLimit(60);
+        ledger.consume(0, 150);
+        tick();
+
+        // Both storages can only provide 60 per extraction, the remainder is taken in a second pass.
+        assertThat(storageA.getStored() + storageB.getStored(), is(50));
+        assertThat(ledger.getDebt(0), is(0L));
+    }
+
+    @Test
+    public void testSettleDebt() {
+        storageB = new DummyEnergyStorage(100, 100);
+        ledger.addStorage(POS_A, storageA);
+        ledger.addStorage(POS_B, storageB);
+        ledger.consume(0, 150);
+        assertThat(ledger.getBalance(0).getStored(), is(200L));
+
+        // The storage disappears before settling, so not everything can be extracted.
+        ledger.removeStorage(POS_A);
+        tick();
+        assertThat(storageB.getStored(), is(0));
+        assertThat(ledger.getDebt(0), is(50L));
+
+        // The debt is owed in the next tick.
+        ledger.addStorage(POS_A, storageA);
+        EnergyLedger.Balance balance = ledger.getBalance(0);
+        assertThat(ledger.getDebt(0), is(0L));
+        assertThat(balance.getDebt(), is(50L));
+        assertThat(balance.getStored(), is(100L));
+        assertThat(balance.getAvailable(), is(50L));
+        assertThat(balance.getConsumed(), is(50L));
+        assertThat(ledger.reserve(0, 60), is(false));
+        assertThat(ledger.reserve(0, 50), is(true));
+        ledger.consume(0, 50);
+        tick();
+        assertThat(storageA.getStored(), is(0));
+        assertThat(ledger.getDebt(0), is(0L));
+    }
+
+    @Test
+    public void testSettleDebtWithoutStorages() {
+        ledger.addStorage(POS_A, storageA);
+        ledger.consume(0, 50);
+        ledger.removeStorage(POS_A);
+        tick();
+        assertThat(ledger.getDebt(0), is(50L));
+
+        // Without storages, the debt is kept.
+        assertThat(ledger.getBalance(0).getAvailable(), is(0L));
+        tick();
+        assertThat(ledger.getDebt(0), is(50L));
+    }
+
+    @Test
+    public void testShedding() {
+        ledger.addStorage(POS_A, storageA);
+        DummyNetworkElement e0 = consumer(0, 1, 60);
+        DummyNetworkElement e1 = consumer(1, 0, 60);
+        DummyNetworkElement e2 = consumer(2, -1, 10);
+
+        EnergyLedger.Balance balance = ledger.getBalance(0);
+        assertThat(balance.isShedding(), is(true));
+        assertThat(balance.getCutoffPriority(), is(0));
+
+        // Consumers below the cutoff are shed, even if there is energy left.
+        assertThat(ledger.admit(e2, 10), is(false));
+        assertThat(ledger.admit(e0, 60), is(true));
+        // Consumers at the cutoff only get their fair share.
+        assertThat(ledger.admit(e1, 60), is(false));
+        assertThat(ledger.getLastSecondShedUpdates(), is(2));
+
+        ledger.resetLastSecondShedUpdates();
+        assertThat(ledger.getLastSecondShedUpdates(), is(0));
+    }
+
+    @Test
+    public void testSheddingFairShareAccumulates() {
+        ledger.addStorage(POS_A, storageA);
+        DummyNetworkElement e0 = consumer(0, 1, 80);
+        DummyNetworkElement e1 = consumer(1, 0, 40);
+
+        // Half of the demand of the cutoff priority can be served.
+        assertThat(ledger.admit(e1, 40), is(false));
+        tick();
+        assertThat(ledger.admit(e1, 40), is(true));
+        assertThat(ledger.admit(e0, 80), is(false));
+    }
+
+    @Test
+    public void testNoSheddingWithoutMultiplier() {
+        GeneralConfig.energyConsumptionMultiplier = 0;
+        ledger.addStorage(POS_A, storageA);
+        consumer(0, 1, 1000);
+        assertThat(ledger.getBalance(0).isShedding(), is(false));
+    }
+
+    @Test
+    public void testConsumptionRates() {
+        DummyNetworkElement e0 = consumer(0, 0, 10);
+        consumer(1, 0, 20);
+        assertThat(ledger.getTotalConsumptionRate(), is(30L));
+        ledger.setConsumptionRate(e0, 15);
+        assertThat(ledger.getTotalConsumptionRate(), is(35L));
+        ledger.removeConsumptionRate(e0);
+        assertThat(ledger.getTotalConsumptionRate(), is(20L));
+    }
+
+}
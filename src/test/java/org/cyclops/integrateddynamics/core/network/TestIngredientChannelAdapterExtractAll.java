@@ -0,0 +1,104 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the simulated extractions that plan {@link IngredientChannelAdapter#extractAll(List, Object, boolean)}.
+ * @author rubensworks
+ */
+public class TestIngredientChannelAdapterExtractAll {
+
+    private static final PartPos POS_A = PartPos.of(DimPos.of(0, new BlockPos(0, 0, 0)), EnumFacing.NORTH);
+    private static final PartPos POS_B = PartPos.of(DimPos.of(0, new BlockPos(1, 0, 0)), EnumFacing.NORTH);
+
+    protected static IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> request(int quantity) {
+        return new IngredientChannelAdapter.ExtractionRequest<>(IngredientComponent.ENERGY, quantity);
+    }
+
+    protected static int simulate(PartPos pos, DummyEnergyStorage storage,
+                                  List<IngredientChannelAdapter.ExtractionRequest<Integer, Boolean>> requests) {
+        return IngredientChannelAdapter.simulateExtractions(IngredientComponent.ENERGY, pos, storage, requests, false);
+    }
+
+    @Test
+    public void testSingleRequest() {
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r0 = request(64);
+        assertThat(simulate(POS_A, new DummyEnergyStorage(1000, 100), Lists.newArrayList(r0)), is(1));
+        assertThat(r0.isSatisfied(), is(true));
+        assertThat(r0.getFoundQuantity(1), is(64L));
+    }
+
+    @Test
+    public void testSkippedRequest() {
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r0 = new IngredientChannelAdapter.ExtractionRequest<>(IngredientComponent.ENERGY, null);
+        assertThat(r0.isSatisfied(), is(true));
+        assertThat(simulate(POS_A, new DummyEnergyStorage(1000, 100), Lists.newArrayList(r0)), is(0));
+    }
+
+    @Test
+    public void testOverlappingRequestsSufficient() {
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r0 = request(40);
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r1 = request(50);
+        assertThat(simulate(POS_A, new DummyEnergyStorage(1000, 100), Lists.newArrayList(r0, r1)), is(2));
+        assertThat(r0.getFoundQuantity(1), is(40L));
+        assertThat(r1.getFoundQuantity(1), is(50L));
+    }
+
+    @Test
+    public void testOverlappingRequestsInsufficient() {
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r0 = request(64);
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r1 = request(64);
+        assertThat(simulate(POS_A, new DummyEnergyStorage(1000, 100), Lists.newArrayList(r0, r1)), is(1));
+        assertThat(r0.isSatisfied(), is(true));
+        assertThat(r0.getFoundQuantity(1), is(64L));
+        // Only the quantity that was not planned for the first request is available for the second request.
+        assertThat(r1.isSatisfied(), is(false));
+        assertThat(r1.getSatisfiedInstance(), nullValue());
+        assertThat(r1.getFoundQuantity(1), is(36L));
+    }
+
+    @Test
+    public void testOverlappingRequestsExhausted() {
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r0 = request(100);
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r1 = request(10);
+        assertThat(simulate(POS_A, new DummyEnergyStorage(1000, 100), Lists.newArrayList(r0, r1)), is(1));
+        assertThat(r1.isSatisfied(), is(false));
+        assertThat(r1.getFoundQuantity(1), is(0L));
+    }
+
+    @Test
+    public void testOverlappingRequestsOverPositions() {
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r0 = request(64);
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r1 = request(64);
+        List<IngredientChannelAdapter.ExtractionRequest<Integer, Boolean>> requests = Lists.newArrayList(r0, r1);
+        assertThat(simulate(POS_A, new DummyEnergyStorage(1000, 100), requests), is(1));
+        assertThat(simulate(POS_B, new DummyEnergyStorage(1000, 50), requests), is(1));
+        assertThat(r0.getFoundQuantity(1), is(64L));
+        assertThat(r1.isSatisfied(), is(true));
+        assertThat(r1.getFoundQuantity(1), is(64L));
+    }
+
+    @Test
+    public void testPartialRequestPlansOnlyRemainder() {
+        // The first request only needs 14 more from the second position, so the rest stays available.
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r0 = request(64);
+        IngredientChannelAdapter.ExtractionRequest<Integer, Boolean> r1 = request(80);
+        assertThat(simulate(POS_A, new DummyEnergyStorage(1000, 50), Lists.newArrayList(r0)), is(0));
+        assertThat(simulate(POS_B, new DummyEnergyStorage(1000, 100), Lists.newArrayList(r0, r1)), is(2));
+        assertThat(r0.getFoundQuantity(1), is(64L));
+        assertThat(r1.getFoundQuantity(1), is(80L));
+    }
+
+}
@@ -0,0 +1,247 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.IntSets;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollection;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageSlotSignaling;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the signals and storage changes of the ingredient observer.
+ * @author rubensworks
+ */
+public class TestIngredientObserver {
+
+    private static final IIngredientComponentStorageObservable.Change ADDITION = IIngredientComponentStorageObservable.Change.ADDITION;
+    private static final IIngredientComponentStorageObservable.Change DELETION = IIngredientComponentStorageObservable.Change.DELETION;
+
+    private boolean multithreading;
+    private PartPos pos;
+    private PrioritizedPartPos prioritizedPos;
+    private DummySignalingEnergyStorage storage;
+    private IIngredientComponentStorage<Integer, Boolean> positionStorage;
+    private boolean scheduled;
+    private IngredientObserver<Integer, Boolean> observer;
+    private List<String> events;
+
+    protected static IIngredientCollection<Integer, Boolean> instances(int quantity) {
+        IngredientCollectionPrototypeMap<Integer, Boolean> instances = new IngredientCollectionPrototypeMap<>(IngredientComponent.ENERGY, false);
+        instances.add(quantity);
+        return instances;
+    }
+
+    protected IIngredientComponentStorageObservable.StorageChangeEvent<Integer, Boolean> event(IIngredientComponentStorageObservable.Change changeType,
+                                                                                              int quantity) {
+        return new IIngredientComponentStorageObservable.StorageChangeEvent<>(0, prioritizedPos, changeType, false, instances(quantity));
+    }
+
+    @Before
+    public void beforeEach() {
+        multithreading = GeneralConfig.ingredientNetworkObserverEnableMultithreading;
+        GeneralConfig.ingredientNetworkObserverEnableMultithreading = false;
+        pos = PartPos.of(DimPos.of(0, new BlockPos(0, 0, 0)), EnumFacing.NORTH);
+        prioritizedPos = PrioritizedPartPos.of(pos, 0);
+        storage = new DummySignalingEnergyStorage(100, 0);
+        positionStorage = storage;
+        scheduled = false;
+        IPositionedAddonsNetworkIngredients<Integer, Boolean> network = (IPositionedAddonsNetworkIngredients<Integer, Boolean>) Proxy.newProxyInstance(
+                IPositionedAddonsNetworkIngredients.class.getClassLoader(), new Class<?>[]{IPositionedAddonsNetworkIngredients.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getComponent":
+                            return IngredientComponent.ENERGY;
+                        case "getPositionedStorageUnsafe":
+                            return pos.equals(args[0]) ? positionStorage : null;
+                        case "scheduleObservation":
+                            scheduled = true;
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        observer = new IngredientObserver<>(network);
+        events = Lists.newArrayList();
+        observer.addChangeObserver(event -> {
+            for (Integer instance : event.getInstances()) {
+                events.add(event.getChangeType() + ":" + instance);
+            }
+        });
+    }
+
+    @After
+    public void afterEach() {
+        GeneralConfig.ingredientNetworkObserverEnableMultithreading = multithreading;
+    }
+
+    @Test
+    public void testSignaling() {
+        observer.registerSignalingStorage(pos);
+        assertThat(storage.getListeners().size(), is(1));
+
+        storage.insert(10, true);
+        assertThat(observer.drainDirtyPositions().isEmpty(), is(true));
+        assertThat(scheduled, is(false));
+
+        storage.insert(10, false);
+        assertThat(observer.drainDirtyPositions(), is(Sets.newHashSet(pos)));
+        assertThat(scheduled, is(true));
+        assertThat(observer.drainDirtyPositions().isEmpty(), is(true));
+
+        observer.unregisterSignalingStorage(pos);
+        assertThat(storage.getListeners().isEmpty(), is(true));
+        storage.extract(10, false);
+        assertThat(observer.drainDirtyPositions().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testNoSlotSignals() {
+        // Storages that do not signal their slots are not observed per slot.
+        observer.registerSignalingStorage(pos);
+        assertThat(observer.isSlotSignaling(pos), is(false));
+        assertThat(observer.drainDirtySlots(pos) == null, is(true));
+    }
+
+    @Test
+    public void testSlotSignals() {
+        boolean slotDiffing = GeneralConfig.ingredientNetworkObserverSlotDiffing;
+        GeneralConfig.ingredientNetworkObserverSlotDiffing = true;
+        try {
+            DummySlotSignalingEnergyStorage slottedStorage = new DummySlotSignalingEnergyStorage(10, 0, 0);
+            positionStorage = slottedStorage;
+            observer.registerSignalingStorage(pos);
+            assertThat(observer.isSlotSignaling(pos), is(true));
+            assertThat(observer.drainDirtySlots(pos).isEmpty(), is(true));
+
+            slottedStorage.setSlot(2, 5);
+            assertThat(observer.drainDirtyPositions(), is(Sets.newHashSet(pos)));
+            assertThat(observer.drainDirtySlots(pos), is(IntSets.singleton(2)));
+
+            // Changes that are not bound to a slot require all slots to be inspected.
+            slottedStorage.signal();
+            assertThat(observer.drainDirtySlots(pos) == null, is(true));
+            assertThat(observer.drainDirtySlots(pos).isEmpty(), is(true));
+
+            observer.unregisterSignalingStorage(pos);
+            assertThat(observer.isSlotSignaling(pos), is(false));
+            assertThat(slottedStorage.slotListeners.isEmpty(), is(true));
+        } finally {
+            GeneralConfig.ingredientNetworkObserverSlotDiffing = slotDiffing;
+        }
+    }
+
+    @Test
+    public void testStorageChangeObservedAfter() {
+        observer.emitStorageChange(event(ADDITION, 10));
+        assertThat(events, is(Lists.newArrayList("ADDITION:10")));
+
+        // The observation includes the change of the network, and another change.
+        observer.applyPendingChanges();
+        assertThat(observer.emitDiff(0, prioritizedPos, instances(15), null, false), is(true));
+        assertThat(events, is(Lists.newArrayList("ADDITION:10", "ADDITION:5")));
+
+        // The change is only compensated once.
+        assertThat(observer.emitDiff(0, prioritizedPos, instances(15), null, false), is(true));
+        assertThat(events, is(Lists.newArrayList("ADDITION:10", "ADDITION:5", "ADDITION:15")));
+    }
+
+    @Test
+    public void testStorageChangeObservedExactly() {
+        observer.emitStorageChange(event(DELETION, 10));
+        observer.applyPendingChanges();
+        assertThat(observer.emitDiff(0, prioritizedPos, null, instances(10), true), is(false));
+        assertThat(events, is(Lists.newArrayList("DELETION:10")));
+    }
+
+    @Test
+    public void testStorageChangeObservedBefore() {
+        // The change was already observed by a running observation before it was applied to the observer.
+        observer.emitStorageChange(event(ADDITION, 10));
+        observer.emitDiff(0, prioritizedPos, instances(10), null, false);
+        assertThat(events, is(Lists.newArrayList("ADDITION:10", "ADDITION:10")));
+
+        // The next observation reverts the duplicate change.
+        observer.applyPendingChanges();
+        assertThat(observer.hasUnobservedChanges(0, prioritizedPos), is(true));
+        assertThat(observer.emitDiff(0, prioritizedPos, null, null, false), is(true));
+        assertThat(events, is(Lists.newArrayList("ADDITION:10", "ADDITION:10", "DELETION:10")));
+        assertThat(observer.hasUnobservedChanges(0, prioritizedPos), is(false));
+    }
+
+    @Test
+    public void testStorageChangeOtherChannel() {
+        observer.emitStorageChange(event(ADDITION, 10));
+        observer.applyPendingChanges();
+        assertThat(observer.emitDiff(1, prioritizedPos, instances(10), null, false), is(true));
+        assertThat(observer.hasUnobservedChanges(0, prioritizedPos), is(true));
+    }
+
+    /**
+     * A slotted energy storage that signals its slot changes.
+     */
+    public static class DummySlotSignalingEnergyStorage extends TestIngredientSlotDiffManager.DummySlottedEnergyStorage
+            implements IIngredientComponentStorageSlotSignaling {
+
+        private final List<Runnable> listeners = Lists.newArrayList();
+        private final List<IntConsumer> slotListeners = Lists.newArrayList();
+
+        public DummySlotSignalingEnergyStorage(int... slots) {
+            super(slots);
+        }
+
+        @Override
+        public void setSlot(int slot, int quantity) {
+            super.setSlot(slot, quantity);
+            for (IntConsumer slotListener : slotListeners) {
+                slotListener.accept(slot);
+            }
+        }
+
+        public void signal() {
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+
+        @Override
+        public void addChangeListener(Runnable listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeChangeListener(Runnable listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public void addSlotChangeListener(IntConsumer listener) {
+            slotListeners.add(listener);
+        }
+
+        @Override
+        public void removeSlotChangeListener(IntConsumer listener) {
+            slotListeners.remove(listener);
+        }
+    }
+
+}
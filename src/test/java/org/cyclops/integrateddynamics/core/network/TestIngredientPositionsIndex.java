@@ -0,0 +1,160 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the aggregate quantities of ingredient positions indexes.
+ * @author rubensworks
+ */
+public class TestIngredientPositionsIndex {
+
+    private IngredientPositionsIndex<Integer, Boolean> index;
+
+    protected static PrioritizedPartPos pos(int x, int priority) {
+        return PrioritizedPartPos.of(PartPos.of(DimPos.of(0, new BlockPos(x, 0, 0)), EnumFacing.NORTH), priority);
+    }
+
+    protected static List<PrioritizedPartPos> list(Collection<PrioritizedPartPos> positions) {
+        return Lists.newArrayList(positions);
+    }
+
+    @Before
+    public void beforeEach() {
+        index = new IngredientPositionsIndex<>(IngredientComponent.ENERGY);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertThat(index.getTotalQuantity(), is(0L));
+        assertThat(index.getQuantity(1, false), is(0L));
+    }
+
+    @Test
+    public void testAdd() {
+        index.add(10);
+        index.add(5);
+        assertThat(index.getTotalQuantity(), is(15L));
+        assertThat(index.getQuantity(1), is(15L));
+        assertThat(index.getQuantity(1, false), is(15L));
+        assertThat(index.getQuantity(1, true), is(15L));
+    }
+
+    @Test
+    public void testRemove() {
+        index.add(10);
+        index.remove(3);
+        assertThat(index.getTotalQuantity(), is(7L));
+        assertThat(index.getQuantity(1, false), is(7L));
+    }
+
+    @Test
+    public void testRemoveMoreThanPresent() {
+        index.add(10);
+        index.remove(100);
+        assertThat(index.getTotalQuantity(), is(0L));
+        assertThat(index.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testTotalMatchesIteration() {
+        index.add(10);
+        index.add(20);
+        index.remove(5);
+        long quantity = 0;
+        for (Integer instance : index) {
+            quantity += instance;
+        }
+        assertThat(index.getTotalQuantity(), is(quantity));
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        IngredientPositionsIndexEmpty<Integer, Boolean> emptyIndex = new IngredientPositionsIndexEmpty<>(IngredientComponent.ENERGY);
+        assertThat(emptyIndex.getTotalQuantity(), is(0L));
+        assertThat(emptyIndex.getQuantity(1, false), is(0L));
+    }
+
+    @Test
+    public void testPositions() {
+        PrioritizedPartPos p0 = pos(0, 0);
+        PrioritizedPartPos p1 = pos(1, 10);
+        PrioritizedPartPos p2 = pos(2, -10);
+        index.addPosition(10, p0);
+        index.addPosition(10, p1);
+        index.addPosition(10, p2);
+        index.addPosition(10, p0);
+
+        assertThat(list(index.getNonEmptyPrioritizedPositions()), is(Lists.newArrayList(p1, p0, p2)));
+        assertThat(list(index.getPrioritizedPositions(1, false)), is(Lists.newArrayList(p1, p0, p2)));
+        assertThat(list(index.getPrioritizedPositions(1, true)), is(Lists.newArrayList(p1, p0, p2)));
+        assertThat(index.getNonEmptyPrioritizedPositions().tailSet(p0, false).first(), is(p2));
+
+        index.removePosition(10, p0);
+        assertThat(list(index.getNonEmptyPrioritizedPositions()), is(Lists.newArrayList(p1, p2)));
+        index.removePosition(10, p0);
+        assertThat(list(index.getNonEmptyPrioritizedPositions()), is(Lists.newArrayList(p1, p2)));
+        index.removePosition(10, p1);
+        index.removePosition(10, p2);
+        assertThat(index.getNonEmptyPrioritizedPositions().isEmpty(), is(true));
+        assertThat(index.getPrioritizedPositions(1, true).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testCompositePositions() {
+        Int2ObjectMap<IngredientPositionsIndex<Integer, Boolean>> indexes = new Int2ObjectOpenHashMap<>();
+        IngredientPositionsIndexComposite<Integer, Boolean> composite = new IngredientPositionsIndexComposite<>(IngredientComponent.ENERGY, indexes);
+        assertThat(composite.getNonEmptyPrioritizedPositions().isEmpty(), is(true));
+
+        PrioritizedPartPos p0 = pos(0, 0);
+        PrioritizedPartPos p1 = pos(1, 10);
+        IngredientPositionsIndex<Integer, Boolean> index0 = new IngredientPositionsIndex<>(IngredientComponent.ENERGY);
+        index0.addPosition(10, p0);
+        IngredientPositionsIndex<Integer, Boolean> index1 = new IngredientPositionsIndex<>(IngredientComponent.ENERGY);
+        index1.addPosition(10, p1);
+        index1.addPosition(10, p0);
+        indexes.put(0, index0);
+        indexes.put(1, index1);
+        assertThat(list(composite.getNonEmptyPrioritizedPositions()), is(Lists.newArrayList(p1, p0)));
+        assertThat(list(composite.getPrioritizedPositions(1, true)), is(Lists.newArrayList(p1, p0)));
+    }
+
+    @Test
+    public void testComposite() {
+        Int2ObjectMap<IngredientPositionsIndex<Integer, Boolean>> indexes = new Int2ObjectOpenHashMap<>();
+        IngredientPositionsIndexComposite<Integer, Boolean> composite = new IngredientPositionsIndexComposite<>(IngredientComponent.ENERGY, indexes);
+        assertThat(composite.getTotalQuantity(), is(0L));
+
+        IngredientPositionsIndex<Integer, Boolean> index0 = new IngredientPositionsIndex<>(IngredientComponent.ENERGY);
+        index0.add(10);
+        IngredientPositionsIndex<Integer, Boolean> index1 = new IngredientPositionsIndex<>(IngredientComponent.ENERGY);
+        index1.add(5);
+        indexes.put(0, index0);
+        indexes.put(1, index1);
+        assertThat(composite.getTotalQuantity(), is(15L));
+        assertThat(composite.getQuantity(1, false), is(15L));
+
+        // The wildcard channel is observed for all channels, so it is not part of the sum.
+        IngredientPositionsIndex<Integer, Boolean> indexWildcard = new IngredientPositionsIndex<>(IngredientComponent.ENERGY);
+        indexWildcard.add(100);
+        indexes.put(IPositionedAddonsNetwork.WILDCARD_CHANNEL, indexWildcard);
+        assertThat(composite.getTotalQuantity(), is(15L));
+    }
+
+}
@@ -0,0 +1,261 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorageSlotted;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the ingredient slot diff manager.
+ * @author rubensworks
+ */
+public class TestIngredientSlotDiffManager {
+
+    private IngredientSlotDiffManager<Integer, Boolean> manager;
+
+    protected static IntCollection slots(int... slots) {
+        return IntArrayList.wrap(slots);
+    }
+
+    protected static List<Integer> list(Integer... instances) {
+        return Lists.newArrayList(instances);
+    }
+
+    @Before
+    public void beforeEach() {
+        manager = new IngredientSlotDiffManager<>(IngredientComponent.ENERGY);
+    }
+
+    @Test
+    public void testInitial() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(10, 0, 0);
+        assertThat(manager.isInitialized(), is(false));
+
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, null);
+        assertThat(manager.isInitialized(), is(true));
+        assertThat(Lists.newArrayList(diff.getAdditions()), is(list(10)));
+        assertThat(diff.hasDeletions(), is(false));
+        assertThat(diff.isCompletelyEmpty(), is(false));
+    }
+
+    @Test
+    public void testInitialEmpty() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(0, 0);
+
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, null);
+        assertThat(diff.hasAdditions(), is(false));
+        assertThat(diff.hasDeletions(), is(false));
+        assertThat(diff.isCompletelyEmpty(), is(true));
+    }
+
+    @Test
+    public void testInitialIgnoresChangedSlots() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(0, 0, 9);
+
+        // Nothing is known yet, so all slots must be inspected.
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, slots(0));
+        assertThat(Lists.newArrayList(diff.getAdditions()), is(list(9)));
+    }
+
+    @Test
+    public void testUnchanged() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(10, 0, 0);
+        manager.onChange(storage, null);
+
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, null);
+        assertThat(diff.hasAdditions(), is(false));
+        assertThat(diff.hasDeletions(), is(false));
+        assertThat(diff.isCompletelyEmpty(), is(false));
+    }
+
+    @Test
+    public void testChangedSlots() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(10, 0, 0);
+        manager.onChange(storage, null);
+
+        storage.setSlot(2, 5);
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, slots(2));
+        assertThat(Lists.newArrayList(diff.getAdditions()), is(list(5)));
+        assertThat(diff.hasDeletions(), is(false));
+    }
+
+    @Test
+    public void testChangedSlotsOnlyInspectsGiven() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(10, 0, 0);
+        manager.onChange(storage, null);
+
+        storage.setSlot(1, 5);
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, slots(2));
+        assertThat(diff.hasAdditions(), is(false));
+        assertThat(diff.hasDeletions(), is(false));
+
+        diff = manager.onChange(storage, null);
+        assertThat(Lists.newArrayList(diff.getAdditions()), is(list(5)));
+        assertThat(diff.hasDeletions(), is(false));
+    }
+
+    @Test
+    public void testChangedSlotsOutOfRange() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(10, 0, 0);
+        manager.onChange(storage, null);
+
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, slots(-1, 3, 100));
+        assertThat(diff.hasAdditions(), is(false));
+        assertThat(diff.hasDeletions(), is(false));
+    }
+
+    @Test
+    public void testReplace() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(10, 0, 0);
+        manager.onChange(storage, null);
+
+        storage.setSlot(0, 15);
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, slots(0));
+        assertThat(Lists.newArrayList(diff.getAdditions()), is(list(15)));
+        assertThat(Lists.newArrayList(diff.getDeletions()), is(list(10)));
+        assertThat(diff.isCompletelyEmpty(), is(false));
+    }
+
+    @Test
+    public void testRemoveLast() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(10, 0, 0);
+        manager.onChange(storage, null);
+
+        storage.setSlot(0, 0);
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, slots(0));
+        assertThat(diff.hasAdditions(), is(false));
+        assertThat(Lists.newArrayList(diff.getDeletions()), is(list(10)));
+        assertThat(diff.isCompletelyEmpty(), is(true));
+    }
+
+    @Test
+    public void testSlotCountChanged() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(0, 0, 7);
+        manager.onChange(storage, null);
+
+        // The changed slots are ignored if the number of slots has changed.
+        storage = new DummySlottedEnergyStorage(0, 0);
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onChange(storage, slots(0));
+        assertThat(diff.hasAdditions(), is(false));
+        assertThat(Lists.newArrayList(diff.getDeletions()), is(list(7)));
+        assertThat(diff.isCompletelyEmpty(), is(true));
+
+        storage = new DummySlottedEnergyStorage(0, 0, 0, 3);
+        diff = manager.onChange(storage, slots(0));
+        assertThat(Lists.newArrayList(diff.getAdditions()), is(list(3)));
+        assertThat(diff.hasDeletions(), is(false));
+    }
+
+    @Test
+    public void testClear() {
+        DummySlottedEnergyStorage storage = new DummySlottedEnergyStorage(0, 10);
+        manager.onChange(storage, null);
+
+        IngredientSlotDiffManager.Diff<Integer, Boolean> diff = manager.onClear();
+        assertThat(manager.isInitialized(), is(false));
+        assertThat(diff.hasAdditions(), is(false));
+        assertThat(Lists.newArrayList(diff.getDeletions()), is(list(10)));
+        assertThat(diff.isCompletelyEmpty(), is(true));
+
+        // After clearing, all slots are inspected again.
+        diff = manager.onChange(storage, slots(0));
+        assertThat(manager.isInitialized(), is(true));
+        assertThat(Lists.newArrayList(diff.getAdditions()), is(list(10)));
+    }
+
+    /**
+     * A slotted energy storage of which the slots can be set directly.
+     */
+    public static class DummySlottedEnergyStorage implements IIngredientComponentStorageSlotted<Integer, Boolean> {
+
+        private final int[] slots;
+
+        public DummySlottedEnergyStorage(int... slots) {
+            this.slots = slots;
+        }
+
+        public void setSlot(int slot, int quantity) {
+            this.slots[slot] = quantity;
+        }
+
+        @Override
+        public IngredientComponent<Integer, Boolean> getComponent() {
+            return IngredientComponent.ENERGY;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return Iterators.filter(Iterators.forArray(getContents()), quantity -> quantity > 0);
+        }
+
+        @Override
+        public Iterator<Integer> iterator(@Nonnull Integer prototype, Boolean matchCondition) {
+            return iterator();
+        }
+
+        @Override
+        public long getMaxQuantity() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public Integer insert(@Nonnull Integer ingredient, boolean simulate) {
+            return ingredient;
+        }
+
+        @Override
+        public Integer extract(@Nonnull Integer prototype, Boolean matchCondition, boolean simulate) {
+            return 0;
+        }
+
+        @Override
+        public Integer extract(long maxQuantity, boolean simulate) {
+            return 0;
+        }
+
+        @Override
+        public int getSlots() {
+            return slots.length;
+        }
+
+        @Override
+        public Integer getSlotContents(int slot) {
+            return slots[slot];
+        }
+
+        @Override
+        public long getMaxQuantity(int slot) {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public Integer insert(int slot, @Nonnull Integer ingredient, boolean simulate) {
+            return ingredient;
+        }
+
+        @Override
+        public Integer extract(int slot, long maxQuantity, boolean simulate) {
+            return 0;
+        }
+
+        protected Integer[] getContents() {
+            Integer[] contents = new Integer[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                contents[i] = slots[i];
+            }
+            return contents;
+        }
+    }
+
+}
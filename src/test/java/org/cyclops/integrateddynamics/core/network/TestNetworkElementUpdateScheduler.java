@@ -0,0 +1,189 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the network element update scheduler.
+ * @author rubensworks
+ */
+public class TestNetworkElementUpdateScheduler {
+
+    private NetworkElementUpdateScheduler scheduler;
+    private List<INetworkElement> visited;
+
+    private DummyNetworkElement e0;
+    private DummyNetworkElement e1;
+    private DummyNetworkElement e2;
+
+    @Before
+    public void beforeEach() {
+        scheduler = new NetworkElementUpdateScheduler();
+        visited = Lists.newArrayList();
+        e0 = new DummyNetworkElement(0);
+        e1 = new DummyNetworkElement(1);
+        e2 = new DummyNetworkElement(2);
+    }
+
+    protected void tick(int ticks) {
+        visited.clear();
+        scheduler.tick(element -> {
+            visited.add(element);
+            return ticks;
+        });
+    }
+
+    @Test
+    public void testEmpty() {
+        tick(1);
+        assertThat(visited.isEmpty(), is(true));
+        assertThat(scheduler.size(), is(0));
+    }
+
+    @Test
+    public void testNaturalOrder() {
+        scheduler.add(e2, 1);
+        scheduler.add(e0, 1);
+        scheduler.add(e1, 1);
+        assertThat(scheduler.size(), is(3));
+
+        tick(1);
+        assertThat(visited, is(Lists.newArrayList(e0, e1, e2)));
+        tick(1);
+        assertThat(visited, is(Lists.newArrayList(e0, e1, e2)));
+    }
+
+    @Test
+    public void testIntervals() {
+        scheduler.add(e0, 1);
+        scheduler.add(e1, 2);
+        assertThat(scheduler.getRemainingTicks(e1), is(2));
+
+        tick(3);
+        assertThat(visited, is(Lists.newArrayList(e0)));
+        tick(3);
+        assertThat(visited, is(Lists.newArrayList(e1)));
+        tick(3);
+        assertThat(visited.isEmpty(), is(true));
+        tick(3);
+        assertThat(visited, is(Lists.newArrayList(e0)));
+        tick(3);
+        assertThat(visited, is(Lists.newArrayList(e1)));
+    }
+
+    @Test
+    public void testIntervalLargerThanWheel() {
+        scheduler.add(e0, 100);
+        for (int i = 1; i < 100; i++) {
+            tick(100);
+            assertThat("Tick " + i + " is empty", visited.isEmpty(), is(true));
+        }
+        tick(100);
+        assertThat(visited, is(Lists.newArrayList(e0)));
+    }
+
+    @Test
+    public void testUnscheduleByVisitor() {
+        scheduler.add(e0, 1);
+        scheduler.add(e1, 1);
+
+        visited.clear();
+        scheduler.tick(element -> {
+            visited.add(element);
+            return element == e0 ? -1 : 1;
+        });
+        assertThat(visited, is(Lists.newArrayList(e0, e1)));
+        assertThat(scheduler.size(), is(1));
+        assertThat(scheduler.getRemainingTicks(e0), is(-1));
+
+        tick(1);
+        assertThat(visited, is(Lists.newArrayList(e1)));
+    }
+
+    @Test
+    public void testRemove() {
+        scheduler.add(e0, 1);
+        scheduler.add(e1, 1);
+        assertThat(scheduler.remove(e0), is(true));
+        assertThat(scheduler.remove(e0), is(false));
+
+        tick(1);
+        assertThat(visited, is(Lists.newArrayList(e1)));
+    }
+
+    @Test
+    public void testRemoveWhileVisiting() {
+        scheduler.add(e0, 1);
+        scheduler.add(e1, 1);
+
+        visited.clear();
+        scheduler.tick(element -> {
+            visited.add(element);
+            scheduler.remove(e1);
+            return 1;
+        });
+        assertThat(visited, is(Lists.newArrayList(e0)));
+        assertThat(scheduler.size(), is(1));
+    }
+
+    @Test
+    public void testRescheduleReplaces() {
+        scheduler.add(e0, 1);
+        scheduler.add(e0, 3);
+        assertThat(scheduler.size(), is(1));
+
+        tick(1);
+        assertThat(visited.isEmpty(), is(true));
+        tick(1);
+        assertThat(visited.isEmpty(), is(true));
+        tick(1);
+        assertThat(visited, is(Lists.newArrayList(e0)));
+    }
+
+    @Test
+    public void testIdentity() {
+        scheduler.add(e0, 1);
+        DummyNetworkElement e0Copy = new DummyNetworkElement(0);
+        assertThat(scheduler.remove(e0Copy), is(false));
+        assertThat(scheduler.getRemainingTicks(e0Copy), is(-1));
+        assertThat(scheduler.remove(e0), is(true));
+    }
+
+    @Test
+    public void testBudget() {
+        scheduler.add(e0, 1);
+        scheduler.add(e1, 1);
+        scheduler.add(e2, 1);
+
+        // A budget of a single nanosecond only allows one element per tick.
+        visited.clear();
+        scheduler.tick(element -> {
+            visited.add(element);
+            return 1;
+        }, 1);
+        assertThat(visited, is(Lists.newArrayList(e0)));
+        assertThat(scheduler.getDeferredCount(), is(2));
+
+        // Deferred elements go before newly due elements.
+        visited.clear();
+        scheduler.tick(element -> {
+            visited.add(element);
+            return 1;
+        }, 1);
+        assertThat(visited, is(Lists.newArrayList(e1)));
+
+        // Without budget, everything that is due is visited.
+        tick(1);
+        assertThat(visited, is(Lists.newArrayList(e2, e0, e1)));
+        assertThat(scheduler.getDeferredCount(), is(0));
+        assertThat(scheduler.size(), is(3));
+    }
+
+}
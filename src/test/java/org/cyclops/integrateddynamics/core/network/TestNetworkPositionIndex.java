@@ -0,0 +1,154 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Sets;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the network position index.
+ * @author rubensworks
+ */
+public class TestNetworkPositionIndex {
+
+    private NetworkPositionIndex index;
+    private INetwork n0;
+    private INetwork n1;
+
+    /**
+     * @return A network that only supports identity comparison.
+     */
+    protected static INetwork network() {
+        return (INetwork) Proxy.newProxyInstance(INetwork.class.getClassLoader(), new Class<?>[]{INetwork.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "DummyNetwork@" + System.identityHashCode(proxy);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    protected static DimPos pos(int dimension, int x, int y, int z) {
+        return DimPos.of(dimension, new BlockPos(x, y, z));
+    }
+
+    @Before
+    public void beforeEach() {
+        index = NetworkPositionIndex.getInstance();
+        index.reset();
+        n0 = network();
+        n1 = network();
+    }
+
+    @After
+    public void afterEach() {
+        index.reset();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertThat(index.getNetwork(pos(0, 0, 0, 0)), nullValue());
+        assertThat(index.getNetworks(0, 0, 0).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testPut() {
+        index.put(pos(0, 1, 2, 3), n0);
+        index.put(pos(0, 4, 5, 6), n1);
+
+        assertThat(index.getNetwork(pos(0, 1, 2, 3)), is(n0));
+        assertThat(index.getNetwork(pos(0, 4, 5, 6)), is(n1));
+        assertThat(index.getNetwork(pos(0, 7, 8, 9)), nullValue());
+    }
+
+    @Test
+    public void testPutOverrides() {
+        index.put(pos(0, 1, 2, 3), n0);
+        index.put(pos(0, 1, 2, 3), n1);
+
+        assertThat(index.getNetwork(pos(0, 1, 2, 3)), is(n1));
+        assertThat(index.getNetworks(0, 0, 0), is(Sets.newHashSet(n1)));
+    }
+
+    @Test
+    public void testDimensions() {
+        index.put(pos(0, 1, 2, 3), n0);
+        index.put(pos(-1, 1, 2, 3), n1);
+
+        assertThat(index.getNetwork(pos(0, 1, 2, 3)), is(n0));
+        assertThat(index.getNetwork(pos(-1, 1, 2, 3)), is(n1));
+        assertThat(index.getNetwork(pos(1, 1, 2, 3)), nullValue());
+        assertThat(index.getNetworks(0, 0, 0), is(Sets.newHashSet(n0)));
+        assertThat(index.getNetworks(-1, 0, 0), is(Sets.newHashSet(n1)));
+    }
+
+    @Test
+    public void testChunks() {
+        index.put(pos(0, 0, 0, 0), n0);
+        index.put(pos(0, 15, 255, 15), n1);
+        index.put(pos(0, 16, 0, 0), n1);
+        index.put(pos(0, -1, 0, -17), n0);
+
+        assertThat(index.getNetworks(0, 0, 0), is(Sets.newHashSet(n0, n1)));
+        assertThat(index.getNetworks(0, 1, 0), is(Sets.newHashSet(n1)));
+        assertThat(index.getNetworks(0, -1, -2), is(Sets.newHashSet(n0)));
+        assertThat(index.getNetworks(0, 0, 1).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRemove() {
+        index.put(pos(0, 1, 2, 3), n0);
+        index.put(pos(0, 4, 5, 6), n0);
+
+        index.remove(pos(0, 1, 2, 3), n0);
+        assertThat(index.getNetwork(pos(0, 1, 2, 3)), nullValue());
+        assertThat(index.getNetworks(0, 0, 0), is(Sets.newHashSet(n0)));
+
+        index.remove(pos(0, 4, 5, 6), n0);
+        assertThat(index.getNetwork(pos(0, 4, 5, 6)), nullValue());
+        assertThat(index.getNetworks(0, 0, 0).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRemoveOtherNetwork() {
+        index.put(pos(0, 1, 2, 3), n0);
+        index.put(pos(0, 1, 2, 3), n1);
+
+        // The position has been taken over by another network, so it must remain.
+        index.remove(pos(0, 1, 2, 3), n0);
+        assertThat(index.getNetwork(pos(0, 1, 2, 3)), is(n1));
+    }
+
+    @Test
+    public void testRemoveAbsent() {
+        index.remove(pos(0, 1, 2, 3), n0);
+        index.put(pos(0, 1, 2, 3), n0);
+        index.remove(pos(0, 4, 5, 6), n0);
+        index.remove(pos(1, 1, 2, 3), n0);
+        assertThat(index.getNetwork(pos(0, 1, 2, 3)), is(n0));
+    }
+
+    @Test
+    public void testReset() {
+        index.put(pos(0, 1, 2, 3), n0);
+        index.reset();
+        assertThat(index.getNetwork(pos(0, 1, 2, 3)), nullValue());
+        assertThat(index.getNetworks(0, 0, 0).isEmpty(), is(true));
+    }
+
+}
@@ -0,0 +1,181 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the network tick scheduler.
+ * @author rubensworks
+ */
+public class TestNetworkTickScheduler {
+
+    private boolean multithreading;
+    private int globalBudget;
+    private Thread mainThread;
+    private List<String> mainThreadTasks;
+
+    @Before
+    public void beforeEach() {
+        multithreading = GeneralConfig.networkTickEnableMultithreading;
+        globalBudget = GeneralConfig.networkTickGlobalBudgetNs;
+        GeneralConfig.networkTickEnableMultithreading = true;
+        GeneralConfig.networkTickGlobalBudgetNs = 0;
+        mainThread = Thread.currentThread();
+        mainThreadTasks = Collections.synchronizedList(Lists.newArrayList());
+    }
+
+    @After
+    public void afterEach() {
+        GeneralConfig.networkTickEnableMultithreading = multithreading;
+        GeneralConfig.networkTickGlobalBudgetNs = globalBudget;
+    }
+
+    protected void tick(DummyTickNetwork... networks) {
+        List<INetwork> list = Lists.newArrayList();
+        for (DummyTickNetwork network : networks) {
+            list.add(network.network);
+        }
+        NetworkTickScheduler.getInstance().tick(list);
+    }
+
+    @Test
+    public void testSerial() {
+        GeneralConfig.networkTickEnableMultithreading = false;
+        DummyTickNetwork n0 = new DummyTickNetwork("n0", true);
+        DummyTickNetwork n1 = new DummyTickNetwork("n1", true);
+
+        tick(n0, n1);
+        assertThat(n0.updates, is(1));
+        assertThat(n1.updates, is(1));
+        assertThat(n0.updateThread, is(mainThread));
+        assertThat(n1.updateThread, is(mainThread));
+        assertThat(mainThreadTasks, is(Lists.newArrayList("n0", "n1")));
+    }
+
+    @Test
+    public void testParallel() {
+        DummyTickNetwork n0 = new DummyTickNetwork("n0", true);
+        DummyTickNetwork n1 = new DummyTickNetwork("n1", false);
+        DummyTickNetwork n2 = new DummyTickNetwork("n2", true);
+
+        tick(n0, n1, n2);
+        assertThat(n0.updateThread, not(mainThread));
+        assertThat(n1.updateThread, is(mainThread));
+        assertThat(n2.updateThread, not(mainThread));
+        assertThat(NetworkTickScheduler.getInstance().isParallelPhase(), is(false));
+
+        // Tasks of networks that are not thread-safe run immediately, the others in network order in the sync phase.
+        assertThat(mainThreadTasks, is(Lists.newArrayList("n1", "n0", "n2")));
+        assertThat(n0.taskThread, is(mainThread));
+        assertThat(n2.taskThread, is(mainThread));
+    }
+
+    @Test
+    public void testNotUpdated() {
+        DummyTickNetwork n0 = new DummyTickNetwork("n0", true);
+        DummyTickNetwork n1 = new DummyTickNetwork("n1", true);
+        n0.updateElements = false;
+
+        tick(n0, n1);
+        assertThat(n0.networkUpdates, is(1));
+        assertThat(n0.updates, is(0));
+        assertThat(n1.updates, is(1));
+    }
+
+    @Test
+    public void testCrash() {
+        DummyTickNetwork n0 = new DummyTickNetwork("n0", true);
+        DummyTickNetwork n1 = new DummyTickNetwork("n1", true);
+        n0.crash = true;
+
+        boolean thrown = false;
+        try {
+            tick(n0, n1);
+        } catch (IllegalStateException e) {
+            thrown = true;
+        }
+        assertThat(thrown, is(true));
+        assertThat(n0.crashed, is(true));
+        assertThat(n1.crashed, is(false));
+        assertThat(mainThreadTasks, is(Lists.newArrayList("n1")));
+
+        // Crashed networks are not ticked anymore.
+        tick(n0, n1);
+        assertThat(n0.networkUpdates, is(1));
+        assertThat(n1.updates, is(2));
+    }
+
+    /**
+     * A network that records its updates and schedules a main thread task in each element update.
+     */
+    public class DummyTickNetwork {
+
+        private final String name;
+        private final boolean threadSafe;
+        private final INetwork network;
+
+        private boolean updateElements = true;
+        private boolean crash = false;
+        private boolean crashed = false;
+        private int networkUpdates = 0;
+        private volatile int updates = 0;
+        private volatile Thread updateThread = null;
+        private volatile Thread taskThread = null;
+
+        public DummyTickNetwork(String name, boolean threadSafe) {
+            this.name = name;
+            this.threadSafe = threadSafe;
+            this.network = (INetwork) Proxy.newProxyInstance(INetwork.class.getClassLoader(), new Class<?>[]{INetwork.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "isCrashed":
+                                return crashed;
+                            case "setCrashed":
+                                crashed = (boolean) args[0];
+                                return null;
+                            case "updateNetwork":
+                                networkUpdates++;
+                                return updateElements;
+                            case "canUpdateElementsConcurrently":
+                                return this.threadSafe;
+                            case "updateElements":
+                                updateElements((INetwork) proxy);
+                                return null;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "toString":
+                                return this.name;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        protected void updateElements(INetwork network) {
+            updates++;
+            updateThread = Thread.currentThread();
+            if (crash) {
+                throw new IllegalStateException("Crash of " + name);
+            }
+            NetworkTickScheduler.getInstance().runOnMainThread(network, () -> {
+                taskThread = Thread.currentThread();
+                mainThreadTasks.add(name);
+            });
+        }
+    }
+
+}
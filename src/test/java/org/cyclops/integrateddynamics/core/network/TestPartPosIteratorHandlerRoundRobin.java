@@ -0,0 +1,97 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the round-robin part position iterator handler.
+ * @author rubensworks
+ */
+public class TestPartPosIteratorHandlerRoundRobin {
+
+    private PartPosIteratorHandlerRoundRobin handler;
+
+    private PrioritizedPartPos p0;
+    private PrioritizedPartPos p1;
+    private PrioritizedPartPos p2;
+
+    protected static PrioritizedPartPos pos(int x, int priority) {
+        return PrioritizedPartPos.of(PartPos.of(DimPos.of(0, new BlockPos(x, 0, 0)), EnumFacing.NORTH), priority);
+    }
+
+    protected static List<PartPos> list(PrioritizedPartPos... positions) {
+        List<PartPos> list = Lists.newArrayList();
+        for (PrioritizedPartPos position : positions) {
+            list.add(position.getPartPos());
+        }
+        return list;
+    }
+
+    protected static NavigableSet<PrioritizedPartPos> set(PrioritizedPartPos... positions) {
+        return Sets.newTreeSet(Lists.newArrayList(positions));
+    }
+
+    @Before
+    public void beforeEach() {
+        handler = new PartPosIteratorHandlerRoundRobin();
+        p0 = pos(0, 10);
+        p1 = pos(1, 5);
+        p2 = pos(2, 0);
+    }
+
+    @Test
+    public void testSorted() {
+        Iterator<PartPos> it = handler.handleIterator(set(p0, p1, p2), 0);
+        assertThat(Lists.newArrayList(it), is(list(p0, p1, p2)));
+        assertThat(handler.getCursor(), is(p2));
+
+        it = handler.handleIterator(set(p0, p1, p2), 0);
+        assertThat(it.next(), is(p0.getPartPos()));
+        assertThat(handler.getCursor(), is(p0));
+        assertThat(Lists.newArrayList(handler.handleIterator(set(p0, p1, p2), 0)), is(list(p1, p2, p0)));
+    }
+
+    @Test
+    public void testSortedCursorAbsent() {
+        handler.handleIterator(set(p0, p1, p2), 0).next();
+        // The cursor does not have to be part of the positions.
+        assertThat(Lists.newArrayList(handler.handleIterator(set(p1, p2), 0)), is(list(p1, p2)));
+        assertThat(Lists.newArrayList(new PartPosIteratorHandlerRoundRobin(p1).handleIterator(set(p0, p2), 0)), is(list(p2, p0)));
+    }
+
+    @Test
+    public void testUnsorted() {
+        List<PartPos> positions = list(p2, p0, p1);
+        assertThat(Lists.newArrayList(handler.handleIterator(positions::iterator, 0)), is(list(p2, p0, p1)));
+        assertThat(Lists.newArrayList(handler.handleIterator(positions::iterator, 0)), is(list(p2, p0, p1)));
+
+        handler = new PartPosIteratorHandlerRoundRobin(p2);
+        assertThat(Lists.newArrayList(handler.handleIterator(positions::iterator, 0)), is(list(p0, p1, p2)));
+        handler = new PartPosIteratorHandlerRoundRobin(pos(3, 0));
+        assertThat(Lists.newArrayList(handler.handleIterator(positions::iterator, 0)), is(list(p2, p0, p1)));
+    }
+
+    @Test
+    public void testClone() {
+        handler.handleIterator(set(p0, p1, p2), 0).next();
+        PartPosIteratorHandlerRoundRobin clone = (PartPosIteratorHandlerRoundRobin) handler.clone();
+        clone.handleIterator(set(p0, p1, p2), 0).next();
+        assertThat(handler.getCursor(), is(p0));
+        assertThat(clone.getCursor(), is(p1));
+    }
+
+}
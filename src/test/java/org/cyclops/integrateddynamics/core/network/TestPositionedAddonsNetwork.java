@@ -0,0 +1,251 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the positions of positioned addons networks.
+ * @author rubensworks
+ */
+public class TestPositionedAddonsNetwork {
+
+    private static final int WILDCARD = IPositionedAddonsNetwork.WILDCARD_CHANNEL;
+
+    private DummyPositionedAddonsNetwork network;
+
+    private PartPos p0;
+    private PartPos p1;
+    private PartPos p2;
+    private PartPos p3;
+
+    protected static PartPos pos(int x) {
+        return PartPos.of(DimPos.of(0, new BlockPos(x, 0, 0)), EnumFacing.NORTH);
+    }
+
+    protected static List<PartPos> list(PartPos... positions) {
+        return Lists.newArrayList(positions);
+    }
+
+    protected static List<PartPos> list(Iterator<PrioritizedPartPos> it) {
+        List<PartPos> positions = Lists.newArrayList();
+        while (it.hasNext()) {
+            positions.add(it.next().getPartPos());
+        }
+        return positions;
+    }
+
+    protected List<PartPos> channel(int channel) {
+        return list(network.getPrioritizedPositions(channel).iterator());
+    }
+
+    @Before
+    public void beforeEach() {
+        network = new DummyPositionedAddonsNetwork();
+        p0 = pos(0);
+        p1 = pos(1);
+        p2 = pos(2);
+        p3 = pos(3);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertThat(network.hasPositions(), is(false));
+        assertThat(network.getChannels().length, is(0));
+        assertThat(channel(0).isEmpty(), is(true));
+        assertThat(channel(WILDCARD).isEmpty(), is(true));
+        assertThat(network.getPrioritizedPositionsAfter(0, null).hasNext(), is(false));
+    }
+
+    @Test
+    public void testChannels() {
+        assertThat(network.addPosition(p0, 0, 0), is(true));
+        assertThat(network.addPosition(p1, 0, 1), is(true));
+        assertThat(network.addPosition(p1, 0, 1), is(false));
+
+        assertThat(network.hasPositions(), is(true));
+        assertThat(channel(0), is(list(p0)));
+        assertThat(channel(1), is(list(p1)));
+        assertThat(channel(2).isEmpty(), is(true));
+        assertThat(channel(WILDCARD), is(list(p0, p1)));
+        assertThat(network.getPositionChannel(p1), is(1));
+        assertThat(network.getPositionChannel(p2), is(-1));
+        assertThat(network.getPrioritizedPosition(p1).getPriority(), is(0));
+    }
+
+    @Test
+    public void testPriorities() {
+        network.addPosition(p0, 0, 0);
+        network.addPosition(p1, 10, 0);
+        network.addPosition(p2, -10, 0);
+
+        assertThat(channel(0), is(list(p1, p0, p2)));
+    }
+
+    @Test
+    public void testMergedWildcardAddedLast() {
+        network.addPosition(p0, 0, 0);
+        network.addPosition(p1, 0, 1);
+        network.addPosition(p2, 10, WILDCARD);
+
+        assertThat(channel(0), is(list(p2, p0)));
+        assertThat(channel(1), is(list(p2, p1)));
+        assertThat(channel(2), is(list(p2)));
+        assertThat(channel(WILDCARD), is(list(p2, p0, p1)));
+    }
+
+    @Test
+    public void testMergedWildcardAddedFirst() {
+        network.addPosition(p2, 10, WILDCARD);
+        network.addPosition(p0, 0, 0);
+        network.addPosition(p3, 20, 0);
+        network.addPosition(p1, 0, 1);
+
+        assertThat(channel(0), is(list(p3, p2, p0)));
+        assertThat(channel(1), is(list(p2, p1)));
+    }
+
+    @Test
+    public void testMergedRemoveWildcard() {
+        network.addPosition(p0, 0, 0);
+        network.addPosition(p2, 10, WILDCARD);
+        network.addPosition(p3, 5, WILDCARD);
+
+        network.removePosition(p2);
+        assertThat(channel(0), is(list(p3, p0)));
+        network.removePosition(p3);
+        assertThat(channel(0), is(list(p0)));
+
+        // New wildcard positions must be merged again.
+        network.addPosition(p2, 10, WILDCARD);
+        assertThat(channel(0), is(list(p2, p0)));
+    }
+
+    @Test
+    public void testMergedRemoveChannel() {
+        network.addPosition(p0, 0, 0);
+        network.addPosition(p1, 5, 0);
+        network.addPosition(p2, 10, WILDCARD);
+
+        network.removePosition(p0);
+        assertThat(channel(0), is(list(p2, p1)));
+        network.removePosition(p1);
+        assertThat(channel(0), is(list(p2)));
+        assertThat(network.getChannels(), is(new int[]{WILDCARD}));
+
+        network.addPosition(p0, 0, 0);
+        assertThat(channel(0), is(list(p2, p0)));
+    }
+
+    @Test
+    public void testRemove() {
+        network.addPosition(p0, 0, 0);
+        network.addPosition(p1, 0, 1);
+
+        network.removePosition(p0);
+        assertThat(channel(0).isEmpty(), is(true));
+        assertThat(channel(WILDCARD), is(list(p1)));
+        assertThat(network.getPositionChannel(p0), is(-1));
+        assertThat(network.getPrioritizedPosition(p0), nullValue());
+        assertThat(network.getChannels(), is(new int[]{1}));
+        assertThat(network.removed, is(list(p0)));
+
+        // Removing an absent position does nothing.
+        network.removePosition(p0);
+        network.removePosition(p2);
+        assertThat(network.removed, is(list(p0)));
+
+        network.removePosition(p1);
+        assertThat(network.hasPositions(), is(false));
+    }
+
+    @Test
+    public void testMove() {
+        network.addPosition(p0, 0, 0);
+        network.addPosition(p1, 5, 0);
+
+        // Changing the priority
+        assertThat(network.addPosition(p0, 10, 0), is(true));
+        assertThat(channel(0), is(list(p0, p1)));
+        assertThat(network.getPrioritizedPosition(p0).getPriority(), is(10));
+
+        // Changing the channel
+        assertThat(network.addPosition(p0, 10, 1), is(true));
+        assertThat(channel(0), is(list(p1)));
+        assertThat(channel(1), is(list(p0)));
+        assertThat(channel(WILDCARD), is(list(p0, p1)));
+        assertThat(network.getPositionChannel(p0), is(1));
+
+        assertThat(network.added, is(list(p0, p1, p0, p0)));
+        assertThat(network.removed, is(list(p0, p0)));
+    }
+
+    @Test
+    public void testPositionsAfter() {
+        network.addPosition(p0, 0, 0);
+        network.addPosition(p1, 0, 0);
+        network.addPosition(p2, 0, 0);
+
+        assertThat(list(network.getPrioritizedPositionsAfter(0, null)), is(list(p0, p1, p2)));
+        assertThat(list(network.getPrioritizedPositionsAfter(0, network.getPrioritizedPosition(p0))), is(list(p1, p2, p0)));
+        assertThat(list(network.getPrioritizedPositionsAfter(0, network.getPrioritizedPosition(p2))), is(list(p0, p1, p2)));
+
+        // A cursor that has been removed resumes at the next position.
+        PrioritizedPartPos cursor = network.getPrioritizedPosition(p1);
+        network.removePosition(p1);
+        assertThat(list(network.getPrioritizedPositionsAfter(0, cursor)), is(list(p2, p0)));
+    }
+
+    @Test
+    public void testPositionsAfterMerged() {
+        network.addPosition(p0, 0, 0);
+        network.addPosition(p1, 0, 1);
+        network.addPosition(p2, 0, WILDCARD);
+
+        assertThat(list(network.getPrioritizedPositionsAfter(0, network.getPrioritizedPosition(p0))), is(list(p2, p0)));
+        assertThat(list(network.getPrioritizedPositionsAfter(WILDCARD, network.getPrioritizedPosition(p0))), is(list(p1, p2, p0)));
+    }
+
+    @Test
+    public void testDisabled() {
+        network.addPosition(p0, 0, 0);
+        assertThat(network.isPositionDisabled(p0), is(false));
+        network.disablePosition(p0);
+        assertThat(network.isPositionDisabled(p0), is(true));
+        network.enablePosition(p0);
+        assertThat(network.isPositionDisabled(p0), is(false));
+    }
+
+    /**
+     * A positioned addons network that remembers added and removed positions.
+     */
+    public static class DummyPositionedAddonsNetwork extends PositionedAddonsNetwork {
+
+        private final List<PartPos> added = Lists.newArrayList();
+        private final List<PartPos> removed = Lists.newArrayList();
+
+        @Override
+        protected void onPositionAdded(int channel, PrioritizedPartPos pos) {
+            added.add(pos.getPartPos());
+        }
+
+        @Override
+        protected void onPositionRemoved(int channel, PrioritizedPartPos pos) {
+            removed.add(pos.getPartPos());
+        }
+    }
+
+}
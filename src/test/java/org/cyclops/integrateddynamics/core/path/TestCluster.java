@@ -0,0 +1,145 @@
+package org.cyclops.integrateddynamics.core.path;
+
+import com.google.common.collect.Lists;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
+import org.cyclops.integrateddynamics.capability.path.PathElementDefault;
+import org.cyclops.integrateddynamics.capability.path.PathElementLazy;
+import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the NBT serialization of clusters.
+ * @author rubensworks
+ */
+public class TestCluster {
+
+    protected static ISidedPathElement element(int dimension, BlockPos pos, EnumFacing side) {
+        return SidedPathElement.of(new DummyPathElement(DimPos.of(dimension, pos)), side);
+    }
+
+    protected static Cluster roundTrip(Cluster cluster) {
+        Cluster read = new DummyCluster();
+        read.fromNBT(cluster.toNBT());
+        return read;
+    }
+
+    @Test
+    public void testEmpty() {
+        Cluster cluster = new Cluster();
+        assertThat(roundTrip(cluster).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Cluster cluster = new Cluster();
+        cluster.add(element(0, new BlockPos(0, 0, 0), null));
+        cluster.add(element(0, new BlockPos(-1, 255, 30000000), EnumFacing.DOWN));
+        cluster.add(element(0, new BlockPos(-30000000, 1, -5), EnumFacing.EAST));
+        cluster.add(element(-1, new BlockPos(16, 64, -16), EnumFacing.UP));
+
+        Cluster read = roundTrip(cluster);
+        assertThat(read.size(), is(4));
+        List<ISidedPathElement> expected = Lists.newArrayList(cluster);
+        List<ISidedPathElement> actual = Lists.newArrayList(read);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getPathElement(), instanceOf(PathElementLazy.class));
+            assertThat(actual.get(i).getPathElement().getPosition(), is(expected.get(i).getPathElement().getPosition()));
+            assertThat(actual.get(i).getSide(), is(expected.get(i).getSide()));
+        }
+    }
+
+    @Test
+    public void testCompactFormat() {
+        Cluster cluster = new Cluster();
+        cluster.add(element(0, new BlockPos(1, 2, 3), EnumFacing.NORTH));
+        cluster.add(element(0, new BlockPos(4, 5, 6), null));
+
+        NBTTagCompound tag = cluster.toNBT();
+        assertThat(tag.hasKey("list"), is(false));
+        NBTTagList dimensions = tag.getTagList("dimensions", 10);
+        assertThat(dimensions.tagCount(), is(1));
+        NBTTagCompound dimensionTag = dimensions.getCompoundTagAt(0);
+        assertThat(dimensionTag.getInteger("dimension"), is(0));
+        assertThat(dimensionTag.getIntArray("positions").length, is(4));
+        assertThat(dimensionTag.getByteArray("sides").length, is(2));
+    }
+
+    @Test
+    public void testLegacyFormat() {
+        NBTTagList list = new NBTTagList();
+        NBTTagCompound elementA = new NBTTagCompound();
+        elementA.setInteger("dimension", 0);
+        elementA.setLong("pos", new BlockPos(1, 2, 3).toLong());
+        elementA.setInteger("side", EnumFacing.SOUTH.ordinal());
+        list.appendTag(elementA);
+        NBTTagCompound elementB = new NBTTagCompound();
+        elementB.setInteger("dimension", 1);
+        elementB.setLong("pos", new BlockPos(4, 5, 6).toLong());
+        list.appendTag(elementB);
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setTag("list", list);
+
+        Cluster read = new DummyCluster();
+        read.fromNBT(tag);
+        assertThat(read.size(), is(2));
+        List<ISidedPathElement> actual = Lists.newArrayList(read);
+        assertThat(actual.get(0).getPathElement().getPosition(), is(DimPos.of(0, new BlockPos(1, 2, 3))));
+        assertThat(actual.get(0).getSide(), is(EnumFacing.SOUTH));
+        assertThat(actual.get(1).getPathElement().getPosition(), is(DimPos.of(1, new BlockPos(4, 5, 6))));
+        assertThat(actual.get(1).getSide(), nullValue());
+    }
+
+    @Test
+    public void testInvalidDimension() {
+        Cluster cluster = new Cluster();
+        cluster.add(element(0, new BlockPos(1, 2, 3), null));
+        cluster.add(element(DummyCluster.INVALID_DIMENSION, new BlockPos(4, 5, 6), null));
+
+        Cluster read = roundTrip(cluster);
+        assertThat(read.size(), is(1));
+        assertThat(read.iterator().next().getPathElement().getPosition(), is(DimPos.of(0, new BlockPos(1, 2, 3))));
+    }
+
+    /**
+     * A cluster that does not depend on registered dimensions.
+     */
+    public static class DummyCluster extends Cluster {
+
+        public static final int INVALID_DIMENSION = 42;
+
+        @Override
+        protected boolean isDimensionValid(int dimensionId) {
+            return dimensionId != INVALID_DIMENSION;
+        }
+    }
+
+    /**
+     * A path element that only has a position.
+     */
+    public static class DummyPathElement extends PathElementDefault {
+
+        private final DimPos position;
+
+        public DummyPathElement(DimPos position) {
+            this.position = position;
+        }
+
+        @Override
+        public DimPos getPosition() {
+            return position;
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package org.cyclops.integrateddynamics.core.path;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
+import org.cyclops.integrateddynamics.capability.path.PathElementDefault;
+import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the path finder.
+ * @author rubensworks
+ */
+public class TestPathFinder {
+
+    protected static ISidedPathElement element(int x) {
+        return SidedPathElement.of(new DummyLinkedPathElement(DimPos.of(0, new BlockPos(x, 0, 0))), null);
+    }
+
+    protected static void link(ISidedPathElement a, ISidedPathElement b) {
+        ((DummyLinkedPathElement) a.getPathElement()).reachable.add(b);
+        ((DummyLinkedPathElement) b.getPathElement()).reachable.add(a);
+    }
+
+    protected static void unlink(ISidedPathElement a, ISidedPathElement b) {
+        ((DummyLinkedPathElement) a.getPathElement()).reachable.remove(b);
+        ((DummyLinkedPathElement) b.getPathElement()).reachable.remove(a);
+    }
+
+    protected static List<ISidedPathElement> chain(int start, int length) {
+        List<ISidedPathElement> elements = Lists.newArrayList();
+        for (int i = 0; i < length; i++) {
+            ISidedPathElement element = element(start + i);
+            if (i > 0) {
+                link(elements.get(i - 1), element);
+            }
+            elements.add(element);
+        }
+        return elements;
+    }
+
+    protected static Set<ISidedPathElement> set(Cluster cluster) {
+        return Sets.newHashSet(cluster);
+    }
+
+    @Test
+    public void testConnectedCluster() {
+        List<ISidedPathElement> elements = chain(0, 4);
+        Cluster cluster = PathFinder.getConnectedCluster(elements.get(2));
+        assertThat(set(cluster), is(Sets.newHashSet(elements)));
+    }
+
+    @Test
+    public void testConnectedClusterLongChain() {
+        List<ISidedPathElement> elements = chain(0, 100000);
+        Cluster cluster = PathFinder.getConnectedCluster(elements.get(0));
+        assertThat(cluster.size(), is(100000));
+    }
+
+    @Test
+    public void testDetachedClustersSingleHead() {
+        List<ISidedPathElement> elements = chain(0, 2);
+        assertThat(PathFinder.getDetachedClusters(Lists.newArrayList(elements.get(0))).isEmpty(), is(true));
+        assertThat(PathFinder.getDetachedClusters(Collections.emptyList()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDetachedClustersSamePosition() {
+        ISidedPathElement a = element(0);
+        link(a, element(1));
+        assertThat(PathFinder.getDetachedClusters(Lists.newArrayList(a, a)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDetachedClustersStillConnected() {
+        // A ring that is broken at one place is still connected.
+        List<ISidedPathElement> elements = chain(0, 6);
+        link(elements.get(5), elements.get(0));
+        unlink(elements.get(2), elements.get(3));
+
+        assertThat(PathFinder.getDetachedClusters(Lists.newArrayList(elements.get(2), elements.get(3))).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDetachedClustersEqualHalves() {
+        List<ISidedPathElement> elements = chain(0, 4);
+        unlink(elements.get(1), elements.get(2));
+
+        List<Cluster> clusters = PathFinder.getDetachedClusters(Lists.newArrayList(elements.get(1), elements.get(2)));
+        assertThat(clusters.size(), is(1));
+        assertThat(set(clusters.get(0)), is(Sets.newHashSet(elements.get(2), elements.get(3))));
+    }
+
+    @Test
+    public void testDetachedClustersSmallestOnly() {
+        List<ISidedPathElement> small = chain(0, 2);
+        List<ISidedPathElement> large = chain(10, 1000);
+        link(small.get(1), large.get(0));
+        unlink(small.get(1), large.get(0));
+
+        List<Cluster> clusters = PathFinder.getDetachedClusters(Lists.newArrayList(small.get(1), large.get(0)));
+        assertThat(clusters.size(), is(1));
+        assertThat(set(clusters.get(0)), is(Sets.newHashSet(small)));
+    }
+
+    @Test
+    public void testDetachedClustersMultipleHeads() {
+        // Three arms of which the center was removed.
+        List<ISidedPathElement> a = chain(0, 2);
+        List<ISidedPathElement> b = chain(10, 1);
+        List<ISidedPathElement> c = chain(20, 3);
+
+        List<Cluster> clusters = PathFinder.getDetachedClusters(Lists.newArrayList(a.get(0), b.get(0), c.get(0)));
+        assertThat(clusters.size(), is(2));
+        assertThat(set(clusters.get(0)), is(Sets.newHashSet(a)));
+        assertThat(set(clusters.get(1)), is(Sets.newHashSet(b)));
+    }
+
+    @Test
+    public void testDetachedClustersPartiallyConnected() {
+        // Two of the three heads are still connected through another path.
+        List<ISidedPathElement> a = chain(0, 3);
+        List<ISidedPathElement> b = chain(10, 2);
+        link(a.get(2), b.get(1));
+        List<ISidedPathElement> c = chain(20, 1);
+
+        List<Cluster> clusters = PathFinder.getDetachedClusters(Lists.newArrayList(a.get(0), b.get(0), c.get(0)));
+        assertThat(clusters.size(), is(1));
+        assertThat(set(clusters.get(0)), is(Sets.newHashSet(c)));
+    }
+
+    /**
+     * A path element with explicitly linked neighbours.
+     */
+    public static class DummyLinkedPathElement extends PathElementDefault {
+
+        private final DimPos position;
+        private final Set<ISidedPathElement> reachable = Sets.newTreeSet();
+
+        public DummyLinkedPathElement(DimPos position) {
+            this.position = position;
+        }
+
+        @Override
+        public DimPos getPosition() {
+            return position;
+        }
+
+        @Override
+        public Set<ISidedPathElement> getReachableElements() {
+            return reachable;
+        }
+    }
+
+}